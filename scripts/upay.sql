@@ -78,7 +78,8 @@ CREATE TABLE `upay_merchant` (
 
 -- --------------------------------------------------------------------
 -- 商户应用表
--- 说明：商户应用表用于维护商户接入支付的各个应用，控制应用接入权限
+-- 说明：商户应用表用于维护商户接入支付的各个应用，控制应用接入权限；
+-- 签名方式为RSA时使用应用公钥验签、商户私钥签名，为HMAC_SHA256时请求和应答均使用应用HMAC密钥签名
 -- --------------------------------------------------------------------
 DROP TABLE IF EXISTS `upay_application`;
 CREATE TABLE `upay_application` (
@@ -87,6 +88,8 @@ CREATE TABLE `upay_application` (
   `mch_id` BIGINT NOT NULL COMMENT '商户ID',
   `name` VARCHAR(80) NOT NULL COMMENT '应用名称',
   `access_token` VARCHAR(40) COMMENT '授权Token',
+  `sign_scheme` TINYINT UNSIGNED NOT NULL DEFAULT 1 COMMENT '签名方式-1RSA,2HMAC_SHA256',
+  `secret_key` VARCHAR(64) COMMENT 'HMAC签名密钥',
   `private_key` VARCHAR(512) COMMENT '应用私钥',
   `public_key` VARCHAR(200) COMMENT '应用公钥',
   `created_time` DATETIME COMMENT '创建时间',
@@ -149,6 +152,7 @@ CREATE TABLE `upay_account_fund` (
   `balance` BIGINT NOT NULL COMMENT '账户余额-分',
   `frozen_amount` BIGINT NOT NULL COMMENT '冻结金额-分',
   `vouch_amount` BIGINT NOT NULL COMMENT '担保金额-分',
+  `buckets` INTEGER UNSIGNED NOT NULL DEFAULT 0 COMMENT '资金分桶数量',
   `version` INTEGER UNSIGNED NOT NULL COMMENT '数据版本号',
   `created_time` DATETIME COMMENT '创建时间',
   `modified_time` DATETIME COMMENT '修改时间',
@@ -156,6 +160,25 @@ CREATE TABLE `upay_account_fund` (
   UNIQUE KEY `uk_account_fund_accountId` (`account_id`) USING BTREE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
+-- --------------------------------------------------------------------
+-- 账户资金分桶表
+-- 说明：热点主账户（比如：商户收益账户）拆分成多个资金分桶，收入类资金事务按哈希选择分桶进行原子累加，
+-- 避免所有收入操作竞争账户资金表同一行记录；支出、冻结类资金事务处理前和定时任务将分桶余额合并至账户资金；
+-- 账户余额为账户资金余额与所有分桶余额之和，分桶只记录收入因此分桶余额不会为负数。
+-- --------------------------------------------------------------------
+DROP TABLE IF EXISTS `upay_account_bucket`;
+CREATE TABLE `upay_account_bucket` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `account_id` BIGINT NOT NULL COMMENT '账号ID',
+  `bucket_no` INTEGER UNSIGNED NOT NULL COMMENT '分桶编号',
+  `balance` BIGINT NOT NULL COMMENT '分桶余额-分',
+  `version` INTEGER UNSIGNED NOT NULL COMMENT '数据版本号',
+  `created_time` DATETIME COMMENT '创建时间',
+  `modified_time` DATETIME COMMENT '修改时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_account_bucket_accountId` (`account_id`, `bucket_no`) USING BTREE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
 -- --------------------------------------------------------------------
 -- 账户资金流水表
 -- 说明：任何一条资金流水（资金变动）都是一次交易订单或交易退款的支付行为产生；
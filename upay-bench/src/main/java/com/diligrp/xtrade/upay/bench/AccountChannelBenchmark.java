@@ -0,0 +1,58 @@
+package com.diligrp.xtrade.upay.bench;
+
+import com.diligrp.xtrade.upay.channel.domain.AccountChannel;
+import com.diligrp.xtrade.upay.channel.domain.IFundTransaction;
+import com.diligrp.xtrade.upay.core.domain.FundTransaction;
+import com.diligrp.xtrade.upay.trade.type.FundType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 账户渠道资金事务构建基准测试：openTransaction - 收支明细 - fundTransaction()
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountChannelBenchmark {
+
+    private final LocalDateTime when = LocalDateTime.now();
+
+    private final AccountChannel channel = AccountChannel.of("20201017110000001", 100001L, 0L);
+
+    /**
+     * 交易资金及买卖家佣金
+     */
+    @Benchmark
+    public FundTransaction tradeTransaction() {
+        IFundTransaction transaction = channel.openTransaction(10, when);
+        transaction.outgo(1000, FundType.FUND.getCode(), FundType.FUND.getName());
+        transaction.outgo(10, FundType.POUNDAGE.getCode(), FundType.POUNDAGE.getName());
+        return transaction.fundTransaction().get();
+    }
+
+    /**
+     * 超过初始容量的资金明细
+     */
+    @Benchmark
+    public FundTransaction feesTransaction() {
+        IFundTransaction transaction = channel.openTransaction(10, when);
+        transaction.unfreeze(5000);
+        for (int i = 0; i < 8; i++) {
+            transaction.outgo(100 + i, FundType.POUNDAGE.getCode(), FundType.POUNDAGE.getName());
+        }
+        return transaction.fundTransaction().get();
+    }
+}
@@ -0,0 +1,57 @@
+package com.diligrp.xtrade.upay.bench;
+
+import com.diligrp.xtrade.upay.core.exception.FundAccountException;
+import com.diligrp.xtrade.upay.core.model.FundAccount;
+import com.diligrp.xtrade.upay.core.type.AccountState;
+import com.diligrp.xtrade.upay.core.util.AccountStateMachine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 资金账户状态机基准测试：校验通过和校验失败（抛出异常）两种路径
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountStateMachineBenchmark {
+
+    private final FundAccount normal = FundAccount.builder().accountId(100001L).parentId(0L).name("normal")
+        .state(AccountState.NORMAL.getCode()).build();
+
+    private final FundAccount frozen = FundAccount.builder().accountId(100002L).parentId(0L).name("frozen")
+        .state(AccountState.FROZEN.getCode()).build();
+
+    @Benchmark
+    public FundAccount accountStateCheck() {
+        AccountStateMachine.accountStateCheck(normal);
+        return normal;
+    }
+
+    @Benchmark
+    public FundAccount frozenFundCheck() {
+        AccountStateMachine.frozenFundCheck(normal);
+        return normal;
+    }
+
+    @Benchmark
+    public Object accountStateCheckFailed() {
+        try {
+            AccountStateMachine.accountStateCheck(frozen);
+            return frozen;
+        } catch (FundAccountException ex) {
+            return ex;
+        }
+    }
+}
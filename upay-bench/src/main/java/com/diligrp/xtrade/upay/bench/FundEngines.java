@@ -0,0 +1,93 @@
+package com.diligrp.xtrade.upay.bench;
+
+import com.diligrp.xtrade.upay.bench.dao.InMemoryAccountBucketDao;
+import com.diligrp.xtrade.upay.bench.dao.InMemoryAccountFundDao;
+import com.diligrp.xtrade.upay.bench.dao.InMemoryFundAccountDao;
+import com.diligrp.xtrade.upay.bench.dao.InMemoryFundStatementDao;
+import com.diligrp.xtrade.upay.core.model.AccountFund;
+import com.diligrp.xtrade.upay.core.model.FundAccount;
+import com.diligrp.xtrade.upay.core.service.IFundStreamEngine;
+import com.diligrp.xtrade.upay.core.service.impl.AccountBucketServiceImpl;
+import com.diligrp.xtrade.upay.core.service.impl.DefaultFundStreamEngine;
+import com.diligrp.xtrade.upay.core.service.impl.DeltaFundStreamEngine;
+import com.diligrp.xtrade.upay.core.service.impl.FundAccountServiceImpl;
+import com.diligrp.xtrade.upay.core.type.AccountState;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+
+/**
+ * 基准测试资金流引擎装配：使用内存数据访问层替代Mybatis，不启动Spring容器，无事务和Seata代理
+ */
+public class FundEngines {
+
+    private final InMemoryFundAccountDao fundAccountDao = new InMemoryFundAccountDao();
+
+    private final InMemoryAccountFundDao accountFundDao = new InMemoryAccountFundDao();
+
+    private final InMemoryFundStatementDao fundStatementDao = new InMemoryFundStatementDao();
+
+    private final InMemoryAccountBucketDao accountBucketDao = new InMemoryAccountBucketDao();
+
+    private final IFundStreamEngine fundStreamEngine;
+
+    private FundEngines(DefaultFundStreamEngine engine) {
+        AccountBucketServiceImpl accountBucketService = new AccountBucketServiceImpl();
+        inject(accountBucketService, "accountBucketDao", accountBucketDao);
+        inject(accountBucketService, "accountFundDao", accountFundDao);
+
+        FundAccountServiceImpl fundAccountService = new FundAccountServiceImpl();
+        inject(fundAccountService, "fundAccountDao", fundAccountDao);
+        inject(fundAccountService, "accountFundDao", accountFundDao);
+        inject(fundAccountService, "accountBucketService", accountBucketService);
+
+        inject(engine, "fundAccountService", fundAccountService);
+        inject(engine, "accountFundDao", accountFundDao);
+        inject(engine, "fundStatementDao", fundStatementDao);
+        inject(engine, "accountBucketService", accountBucketService);
+        this.fundStreamEngine = engine;
+    }
+
+    /**
+     * 创建资金流引擎，mode与配置项upay.fund-engine.mode一致：default或delta
+     */
+    public static FundEngines create(String mode) {
+        if ("delta".equals(mode)) {
+            return new FundEngines(new DeltaFundStreamEngine());
+        }
+        return new FundEngines(new DefaultFundStreamEngine());
+    }
+
+    /**
+     * 创建主资金账户及账户资金
+     */
+    public void createAccount(long accountId, long balance) {
+        LocalDateTime when = LocalDateTime.now();
+        fundAccountDao.insertFundAccount(FundAccount.builder().accountId(accountId).parentId(0L)
+            .name("bench-" + accountId).state(AccountState.NORMAL.getCode()).version(0).createdTime(when).build());
+        accountFundDao.insertAccountFund(AccountFund.builder().accountId(accountId).balance(balance).frozenAmount(0L)
+            .vouchAmount(0L).buckets(0).version(0).createdTime(when).build());
+    }
+
+    public IFundStreamEngine fundStreamEngine() {
+        return fundStreamEngine;
+    }
+
+    public InMemoryAccountFundDao accountFundDao() {
+        return accountFundDao;
+    }
+
+    public InMemoryFundStatementDao fundStatementDao() {
+        return fundStatementDao;
+    }
+
+    private static void inject(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalArgumentException("Field not found: " + target.getClass().getName() + "." + name);
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,164 @@
+package com.diligrp.xtrade.upay.bench;
+
+import com.diligrp.xtrade.upay.channel.domain.AccountChannel;
+import com.diligrp.xtrade.upay.channel.domain.IFundTransaction;
+import com.diligrp.xtrade.upay.core.domain.FundActivity;
+import com.diligrp.xtrade.upay.core.domain.FundTransaction;
+import com.diligrp.xtrade.upay.core.domain.TransactionStatus;
+import com.diligrp.xtrade.upay.core.model.FundStatement;
+import com.diligrp.xtrade.upay.core.service.IFundStreamEngine;
+import com.diligrp.xtrade.upay.core.service.impl.DefaultFundStreamEngine;
+import com.diligrp.xtrade.upay.core.type.ActionType;
+import com.diligrp.xtrade.upay.trade.type.FundType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 资金流引擎基准测试：单账户资金事务和即时交易（买家、卖家和商户收益）批量资金事务
+ *
+ * 资金事务构建及收支明细生成（卖家收款并支付佣金，与资金流引擎实现模式无关）:
+ * legacy*: 原实现，资金明细存储为FundActivity列表，Stream累加总金额，sorted(FundActivity::compare)排序并通过AtomicLong计算期初余额
+ * array*: 资金明细存储为基本类型数组，创建时计算收支汇总，一次遍历生成收支明细（DefaultFundStreamEngine.fundStatements）
+ *
+ * 建议使用"-prof gc"查看每次操作的内存分配量
+ * gradlew :upay-bench:jmh -Pincludes=FundStreamEngineBenchmark -Pargs="-prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FundStreamEngineBenchmark {
+
+    private static final long MERCHANT_ACCOUNT = 1L;
+
+    private static final long INITIAL_BALANCE = Long.MAX_VALUE >> 2;
+
+    @Param({"default", "delta"})
+    private String mode;
+
+    @Param({"1000"})
+    private int accounts;
+
+    private IFundStreamEngine fundStreamEngine;
+
+    private final StatementEngine statementEngine = new StatementEngine();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        FundEngines engines = FundEngines.create(mode);
+        engines.createAccount(MERCHANT_ACCOUNT, INITIAL_BALANCE);
+        for (long accountId = 2; accountId <= accounts + 1; accountId++) {
+            engines.createAccount(accountId, INITIAL_BALANCE);
+        }
+        fundStreamEngine = engines.fundStreamEngine();
+    }
+
+    /**
+     * 交易资金支出并收取佣金
+     */
+    @Benchmark
+    public TransactionStatus submit() {
+        long accountId = randomAccount();
+        AccountChannel channel = AccountChannel.of("1", accountId, 0L);
+        IFundTransaction transaction = channel.openTransaction(10, LocalDateTime.now());
+        transaction.outgo(1000, FundType.FUND.getCode(), FundType.FUND.getName());
+        transaction.outgo(10, FundType.POUNDAGE.getCode(), FundType.POUNDAGE.getName());
+        return fundStreamEngine.submit(transaction.fundTransaction().get());
+    }
+
+    /**
+     * 即时交易：买家付款、卖家收款和商户收益三个资金事务批量提交
+     */
+    @Benchmark
+    public List<TransactionStatus> submitAll() {
+        LocalDateTime now = LocalDateTime.now();
+        long fromId = randomAccount(), toId = randomAccount();
+        IFundTransaction from = AccountChannel.of("1", fromId, 0L).openTransaction(10, now);
+        from.outgo(1000, FundType.FUND.getCode(), FundType.FUND.getName());
+        from.outgo(10, FundType.POUNDAGE.getCode(), FundType.POUNDAGE.getName());
+        IFundTransaction to = AccountChannel.of("1", toId, 0L).openTransaction(10, now);
+        to.income(1000, FundType.FUND.getCode(), FundType.FUND.getName());
+        IFundTransaction merchant = AccountChannel.of("1", MERCHANT_ACCOUNT, 0L).openTransaction(10, now);
+        merchant.income(10, FundType.POUNDAGE.getCode(), FundType.POUNDAGE.getName());
+        List<FundTransaction> transactions = Arrays.asList(from.fundTransaction().get(),
+            to.fundTransaction().get(), merchant.fundTransaction().get());
+        return fundStreamEngine.submitAll(transactions);
+    }
+
+    /**
+     * 原实现：卖家收款并支付佣金的资金事务构建及收支明细生成
+     */
+    @Benchmark
+    public List<FundStatement> legacyStatements() {
+        LocalDateTime now = LocalDateTime.now();
+        List<FundActivity> funds = new ArrayList<>();
+        funds.add(FundActivity.of(1000, FundType.FUND.getCode(), FundType.FUND.getName()));
+        funds.add(FundActivity.of(-10, FundType.POUNDAGE.getCode(), FundType.POUNDAGE.getName()));
+        FundActivity[] activities = funds.toArray(new FundActivity[funds.size()]);
+
+        long totalAmount = Arrays.stream(activities).mapToLong(FundActivity::getAmount).sum();
+        TransactionStatus status = TransactionStatus.of(MERCHANT_ACCOUNT, INITIAL_BALANCE, totalAmount, 0L, 0L, now);
+        AtomicLong balance = new AtomicLong(status.getBalance());
+        List<FundStatement> statements = Arrays.stream(activities)
+            .filter(activity -> activity.getAmount() != 0).sorted(FundActivity::compare)
+            .map(activity -> FundStatement.builder().paymentId("1")
+                .accountId(MERCHANT_ACCOUNT).childId(null).tradeType(10)
+                .action(ActionType.getByAmount(activity.getAmount()).getCode())
+                .balance(balance.getAndAdd(activity.getAmount())).amount(activity.getAmount()).type(activity.getType())
+                .typeName(activity.getTypeName()).description(null).createdTime(now).build())
+            .collect(Collectors.toList());
+        status.ofStreams(statements.stream().map(stmt -> TransactionStatus.FundStream.of(stmt.getBalance(), stmt.getAmount(),
+            stmt.getType(), stmt.getTypeName())).collect(Collectors.toList()));
+        return statements;
+    }
+
+    /**
+     * 基本类型数组实现：卖家收款并支付佣金的资金事务构建及收支明细生成
+     */
+    @Benchmark
+    public List<FundStatement> arrayStatements() {
+        LocalDateTime now = LocalDateTime.now();
+        IFundTransaction transaction = AccountChannel.of("1", MERCHANT_ACCOUNT, 0L).openTransaction(10, now);
+        transaction.income(1000, FundType.FUND.getCode(), FundType.FUND.getName());
+        transaction.outgo(10, FundType.POUNDAGE.getCode(), FundType.POUNDAGE.getName());
+        FundTransaction fundTransaction = transaction.fundTransaction().get();
+
+        TransactionStatus status = TransactionStatus.of(MERCHANT_ACCOUNT, INITIAL_BALANCE,
+            fundTransaction.getTotalAmount(), 0L, 0L, now);
+        return statementEngine.statements(fundTransaction, status);
+    }
+
+    private long randomAccount() {
+        return 2 + ThreadLocalRandom.current().nextInt(accounts);
+    }
+
+    /**
+     * 访问资金流引擎的收支明细生成，不依赖任何数据访问层
+     */
+    private static class StatementEngine extends DefaultFundStreamEngine {
+        List<FundStatement> statements(FundTransaction transaction, TransactionStatus status) {
+            return fundStatements(transaction, status);
+        }
+    }
+}
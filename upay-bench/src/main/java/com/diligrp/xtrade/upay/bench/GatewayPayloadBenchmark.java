@@ -0,0 +1,89 @@
+package com.diligrp.xtrade.upay.bench;
+
+import com.diligrp.xtrade.shared.util.JsonUtils;
+import com.diligrp.xtrade.upay.core.domain.ApplicationPermit;
+import com.diligrp.xtrade.upay.core.type.SignScheme;
+import com.diligrp.xtrade.upay.core.util.PayloadBuffer;
+import com.diligrp.xtrade.upay.core.util.PayloadCodec;
+import com.diligrp.xtrade.upay.core.util.SignatureUtils;
+import com.diligrp.xtrade.upay.trade.domain.PaymentRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关请求数据解析基准测试
+ *
+ * 每次操作模拟payment.trade.service:commit请求：读取请求数据、验证请求签名并反序列化PaymentRequest；
+ * 使用HMAC签名方式避免RSA验签开销掩盖数据拷贝开销，每次请求分配的内存使用-prof gc查看（gc.alloc.rate.norm）
+ * legacy: 原实现，按行读取请求数据到StringBuilder，按字符串验签，JsonUtils从字符串反序列化
+ * streaming: 请求数据按字节读取到线程复用的缓冲区，按原始字节验签，Jackson直接从缓冲区反序列化
+ *
+ * gradlew :upay-bench:jmh -Pincludes=GatewayPayloadBenchmark -Pargs="-prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+@Fork(1)
+public class GatewayPayloadBenchmark {
+
+    private static final String CHARSET = "utf-8";
+
+    private ApplicationPermit application;
+
+    private byte[] body;
+
+    private String signature;
+
+    @Setup
+    public void setup() throws Exception {
+        application = ApplicationPermit.of(1001L, "token", SignScheme.HMAC_SHA256.getCode(),
+            SignatureUtils.generateSecretKey(), null, null);
+        String payload = "{\"tradeId\":\"2020081012345678\",\"accountId\":100001,\"channelId\":1,\"password\":\"123456\","
+            + "\"fees\":[{\"amount\":100,\"type\":1,\"typeName\":\"交易手续费\",\"useFor\":1},"
+            + "{\"amount\":50,\"type\":2,\"typeName\":\"交易佣金\",\"useFor\":2}]}";
+        body = payload.getBytes(StandardCharsets.UTF_8);
+        signature = SignatureUtils.hmacSign(payload, CHARSET, application.secretKey());
+    }
+
+    @Benchmark
+    public PaymentRequest legacy() throws Exception {
+        StringBuilder builder = new StringBuilder();
+        String line;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), CHARSET));
+        while ((line = reader.readLine()) != null) {
+            builder.append(line);
+        }
+        String payload = builder.toString();
+        if (!SignatureUtils.verify(application, payload, CHARSET, signature)) {
+            throw new IllegalStateException("signature verify failed");
+        }
+        return JsonUtils.fromJsonString(payload, PaymentRequest.class);
+    }
+
+    @Benchmark
+    public PaymentRequest streaming() throws Exception {
+        PayloadBuffer payload = PayloadBuffer.read(new ByteArrayInputStream(body), body.length);
+        if (!SignatureUtils.verify(application, payload.array(), 0, payload.length(), signature)) {
+            throw new IllegalStateException("signature verify failed");
+        }
+        return PayloadCodec.fromJsonBytes(payload, StandardCharsets.UTF_8, PaymentRequest.class);
+    }
+}
@@ -0,0 +1,102 @@
+package com.diligrp.xtrade.upay.bench;
+
+import com.diligrp.xtrade.shared.domain.Message;
+import com.diligrp.xtrade.shared.domain.MessageEnvelop;
+import com.diligrp.xtrade.shared.domain.PageMessage;
+import com.diligrp.xtrade.shared.util.JsonUtils;
+import com.diligrp.xtrade.upay.core.domain.ApplicationPermit;
+import com.diligrp.xtrade.upay.core.domain.TransactionStatus;
+import com.diligrp.xtrade.upay.core.type.SignScheme;
+import com.diligrp.xtrade.upay.core.util.PayloadBuffer;
+import com.diligrp.xtrade.upay.core.util.PayloadCodec;
+import com.diligrp.xtrade.upay.core.util.SignatureUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关应答数据基准测试
+ *
+ * 每次操作与PaymentPlatformController.gateway应答处理一致：序列化应答、签名并写回（写入空输出流）；
+ * 使用HMAC签名方式避免RSA签名开销掩盖数据拷贝开销，SampleTime模式输出p99等延迟分位数，-prof gc查看每次应答分配的内存
+ * legacy: 原实现，JsonUtils序列化成字符串，按字符串签名，写回前再次编码成字节
+ * zeroCopy: 预先创建的ObjectWriter序列化到线程复用的应答缓冲区，按原始字节签名并直接写回
+ * commit: 交易提交应答；list: 50条记录的分页查询应答（类似listFrozen）
+ *
+ * gradlew :upay-bench:jmh -Pincludes=GatewayReplyBenchmark -Pargs="-prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class GatewayReplyBenchmark {
+
+    private static final String CHARSET = "utf-8";
+
+    private static final OutputStream out = OutputStream.nullOutputStream();
+
+    @Param({"commit", "list"})
+    private String reply;
+
+    private ApplicationPermit application;
+
+    private Message<?> result;
+
+    @Setup
+    public void setup() {
+        application = ApplicationPermit.of(1001L, "token", SignScheme.HMAC_SHA256.getCode(),
+            SignatureUtils.generateSecretKey(), null, null);
+        if ("list".equals(reply)) {
+            List<TransactionStatus> statuses = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                statuses.add(transactionStatus(100000L + i));
+            }
+            result = PageMessage.success(500, statuses);
+        } else {
+            result = Message.success(transactionStatus(100001L));
+        }
+    }
+
+    @Benchmark
+    public String legacy() throws Exception {
+        MessageEnvelop envelop = MessageEnvelop.of(null, JsonUtils.toJsonString(result));
+        String signature = SignatureUtils.hmacSign(envelop.getPayload(), envelop.getCharset(), application.secretKey());
+        out.write(envelop.getPayload().getBytes(CHARSET));
+        return signature;
+    }
+
+    @Benchmark
+    public String zeroCopy() throws Exception {
+        PayloadBuffer payload = PayloadCodec.toJsonBytes(result);
+        String signature = SignatureUtils.sign(application, payload.array(), 0, payload.length());
+        payload.writeTo(out);
+        return signature;
+    }
+
+    private static TransactionStatus transactionStatus(Long accountId) {
+        TransactionStatus status = TransactionStatus.of(accountId, 100000L, -2000L, 0L, 0L, LocalDateTime.now());
+        List<TransactionStatus.FundStream> streams = new ArrayList<>();
+        streams.add(TransactionStatus.FundStream.of(100000L, -1900L, 1, "交易"));
+        streams.add(TransactionStatus.FundStream.of(98100L, -100L, 2, "手续费"));
+        status.ofStreams(streams);
+        return status;
+    }
+}
@@ -0,0 +1,77 @@
+package com.diligrp.xtrade.upay.bench;
+
+import com.diligrp.xtrade.shared.security.RsaCipher;
+import com.diligrp.xtrade.upay.core.domain.ApplicationPermit;
+import com.diligrp.xtrade.upay.core.domain.MerchantPermit;
+import com.diligrp.xtrade.upay.core.type.SignScheme;
+import com.diligrp.xtrade.upay.core.util.SignatureUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关签名方式基准测试
+ *
+ * 每次操作与PaymentPlatformController.gateway一致：按应用签名方式验证请求签名并签名应答数据；
+ * 单线程运行，结果即为每个CPU核心每秒可处理的签名请求数（不含业务处理）
+ *
+ * gradlew :upay-bench:jmh -Pincludes=GatewaySignSchemeBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+@Fork(1)
+public class GatewaySignSchemeBenchmark {
+
+    private static final String CHARSET = "utf-8";
+
+    @Param({"RSA", "HMAC_SHA256"})
+    private SignScheme scheme;
+
+    private ApplicationPermit application;
+
+    private String request;
+
+    private String signature;
+
+    private String reply;
+
+    @Setup
+    public void setup() throws Exception {
+        String[] appKeys = RsaCipher.generateRSAKeyPair();
+        String[] merchantKeys = RsaCipher.generateRSAKeyPair();
+        String secretKey = scheme == SignScheme.HMAC_SHA256 ? SignatureUtils.generateSecretKey() : null;
+        MerchantPermit merchant = MerchantPermit.of(1001L, "bench", 1L, 2L, 3L, merchantKeys[0], merchantKeys[1]);
+        application = ApplicationPermit.of(1001L, "token", scheme.getCode(), secretKey, appKeys[0], appKeys[1])
+            .withMerchant(merchant);
+
+        request = "{\"tradeId\":\"2020081012345678\",\"accountId\":100001,\"password\":\"123456\",\"channelId\":1,"
+            + "\"fees\":[{\"type\":1,\"typeName\":\"交易手续费\",\"amount\":100}]}";
+        signature = scheme == SignScheme.HMAC_SHA256 ? SignatureUtils.hmacSign(request, CHARSET, application.secretKey())
+            : SignatureUtils.sign(request, CHARSET, application.privateKey());
+        reply = "{\"code\":200,\"data\":{\"paymentId\":\"2020081012345678\",\"status\":4,"
+            + "\"when\":\"2020-08-10 12:00:00\",\"balance\":100000,\"frozenAmount\":0},\"message\":\"success\"}";
+    }
+
+    @Benchmark
+    public String gateway() throws Exception {
+        if (!SignatureUtils.verify(application, request, CHARSET, signature)) {
+            throw new IllegalStateException("signature verify failed");
+        }
+        return SignatureUtils.sign(application, reply, CHARSET);
+    }
+}
@@ -0,0 +1,38 @@
+package com.diligrp.xtrade.upay.bench;
+
+import com.diligrp.xtrade.upay.trade.util.PaymentDatedIdStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 支付号生成策略基准测试
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentDatedIdStrategyBenchmark {
+
+    private final PaymentDatedIdStrategy strategy = new PaymentDatedIdStrategy(10);
+
+    private final LocalDate today = LocalDate.now();
+
+    private long sequence = 0;
+
+    @Benchmark
+    public String id() {
+        return strategy.id(today, ++sequence % 100000);
+    }
+}
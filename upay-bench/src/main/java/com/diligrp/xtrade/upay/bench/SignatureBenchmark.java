@@ -0,0 +1,91 @@
+package com.diligrp.xtrade.upay.bench;
+
+import com.diligrp.xtrade.shared.security.RsaCipher;
+import com.diligrp.xtrade.upay.core.domain.ApplicationPermit;
+import com.diligrp.xtrade.upay.core.domain.MerchantPermit;
+import com.diligrp.xtrade.upay.core.util.SignatureUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接口数据签名验签基准测试
+ *
+ * legacy*: 原实现，每次请求Base64解码并通过KeyFactory解析密钥，Signature.getInstance并创建SecureRandom（MessageEnvelop.packEnvelop/unpackEnvelop）
+ * pooled*: 接入许可中预先解析的密钥，线程复用Signature实例（SignatureUtils）
+ *
+ * gradlew :upay-bench:jmh -Pincludes=SignatureBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class SignatureBenchmark {
+
+    private static final String CHARSET = "utf-8";
+
+    private String payload;
+
+    private String signature;
+
+    private String privateKey;
+
+    private String publicKey;
+
+    private ApplicationPermit application;
+
+    private MerchantPermit merchant;
+
+    @Setup
+    public void setup() throws Exception {
+        String[] keyPair = RsaCipher.generateRSAKeyPair();
+        privateKey = keyPair[0];
+        publicKey = keyPair[1];
+        StringBuilder builder = new StringBuilder("{\"code\":200,\"data\":{\"paymentId\":\"2020081012345678\",\"items\":[");
+        for (int i = 0; i < 10; i++) {
+            builder.append(i == 0 ? "" : ",").append("{\"accountId\":").append(100000 + i).append(",\"amount\":").append(i * 100)
+                .append(",\"description\":\"交易手续费\"}");
+        }
+        payload = builder.append("]},\"message\":\"success\"}").toString();
+        // 应用和商户使用相同密钥对，便于签名后验签
+        application = ApplicationPermit.of(1001L, "token", privateKey, publicKey);
+        merchant = MerchantPermit.of(1001L, "bench", 1L, 2L, 3L, privateKey, publicKey);
+        signature = SignatureUtils.sign(payload, CHARSET, merchant.privateKey());
+    }
+
+    @Benchmark
+    public String legacySign() throws Exception {
+        byte[] sign = RsaCipher.sign(payload.getBytes(CHARSET), RsaCipher.getPrivateKey(privateKey));
+        return Base64.getEncoder().encodeToString(sign);
+    }
+
+    @Benchmark
+    public String pooledSign() throws Exception {
+        return SignatureUtils.sign(payload, CHARSET, merchant.privateKey());
+    }
+
+    @Benchmark
+    public boolean legacyVerify() throws Exception {
+        byte[] sign = Base64.getDecoder().decode(signature);
+        return RsaCipher.verify(payload.getBytes(CHARSET), sign, RsaCipher.getPublicKey(publicKey));
+    }
+
+    @Benchmark
+    public boolean pooledVerify() throws Exception {
+        return SignatureUtils.verify(payload, CHARSET, signature, application.publicKey());
+    }
+}
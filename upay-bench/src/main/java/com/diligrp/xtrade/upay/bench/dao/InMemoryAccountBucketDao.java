@@ -0,0 +1,38 @@
+package com.diligrp.xtrade.upay.bench.dao;
+
+import com.diligrp.xtrade.upay.core.dao.IAccountBucketDao;
+import com.diligrp.xtrade.upay.core.model.AccountBucket;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 内存账户资金分桶数据访问层，基准测试账户均未拆分资金分桶
+ */
+public class InMemoryAccountBucketDao implements IAccountBucketDao {
+
+    @Override
+    public void insertAccountBuckets(List<AccountBucket> buckets) {
+        throw new UnsupportedOperationException("Account buckets not supported");
+    }
+
+    @Override
+    public List<AccountBucket> findAccountBuckets(Long accountId) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<AccountBucket> listAccountBuckets() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public long sumBucketBalance(Long accountId) {
+        return 0;
+    }
+
+    @Override
+    public int increaseBucketBalance(AccountBucket bucket) {
+        return 0;
+    }
+}
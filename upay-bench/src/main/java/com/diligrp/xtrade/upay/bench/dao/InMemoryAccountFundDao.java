@@ -0,0 +1,129 @@
+package com.diligrp.xtrade.upay.bench.dao;
+
+import com.diligrp.xtrade.upay.core.dao.IAccountFundDao;
+import com.diligrp.xtrade.upay.core.domain.FundDeltaDto;
+import com.diligrp.xtrade.upay.core.model.AccountFund;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存账户资金数据访问层，查询返回数据副本，修改语义与IAccountFundDao.xml一致
+ */
+public class InMemoryAccountFundDao implements IAccountFundDao {
+
+    private final Map<Long, AccountFund> funds = new ConcurrentHashMap<>();
+
+    @Override
+    public void insertAccountFund(AccountFund fund) {
+        funds.put(fund.getAccountId(), copyOf(fund));
+    }
+
+    @Override
+    public Optional<AccountFund> findAccountFundById(Long accountId) {
+        AccountFund fund = funds.get(accountId);
+        if (fund == null) {
+            return Optional.empty();
+        }
+        synchronized (fund) {
+            return Optional.of(copyOf(fund));
+        }
+    }
+
+    @Override
+    public Optional<AccountFund> lockAccountFundById(Long accountId) {
+        return findAccountFundById(accountId);
+    }
+
+    @Override
+    public int compareAndSetVersion(AccountFund accountFund) {
+        AccountFund fund = funds.get(accountFund.getAccountId());
+        if (fund == null) {
+            return 0;
+        }
+        synchronized (fund) {
+            if (!fund.getVersion().equals(accountFund.getVersion())) {
+                return 0;
+            }
+            if (accountFund.getBalance() != null) {
+                fund.setBalance(accountFund.getBalance());
+            }
+            if (accountFund.getFrozenAmount() != null) {
+                fund.setFrozenAmount(accountFund.getFrozenAmount());
+            }
+            if (accountFund.getModifiedTime() != null) {
+                fund.setModifiedTime(accountFund.getModifiedTime());
+            }
+            fund.setVersion(fund.getVersion() + 1);
+            return 1;
+        }
+    }
+
+    @Override
+    public int increaseAccountBalance(AccountFund accountFund) {
+        AccountFund fund = funds.get(accountFund.getAccountId());
+        if (fund == null) {
+            return 0;
+        }
+        synchronized (fund) {
+            fund.setBalance(fund.getBalance() + accountFund.getBalance());
+            fund.setVersion(fund.getVersion() + 1);
+            if (accountFund.getModifiedTime() != null) {
+                fund.setModifiedTime(accountFund.getModifiedTime());
+            }
+            return 1;
+        }
+    }
+
+    @Override
+    public int updateAccountBuckets(AccountFund accountFund) {
+        AccountFund fund = funds.get(accountFund.getAccountId());
+        if (fund == null) {
+            return 0;
+        }
+        synchronized (fund) {
+            fund.setBuckets(accountFund.getBuckets());
+            fund.setVersion(fund.getVersion() + 1);
+            if (accountFund.getModifiedTime() != null) {
+                fund.setModifiedTime(accountFund.getModifiedTime());
+            }
+            return 1;
+        }
+    }
+
+    @Override
+    public int increaseAccountFund(FundDeltaDto delta) {
+        AccountFund fund = funds.get(delta.getAccountId());
+        if (fund == null) {
+            return 0;
+        }
+        synchronized (fund) {
+            long balance = fund.getBalance(), frozenAmount = fund.getFrozenAmount();
+            long amount = delta.getAmount(), frozenDelta = delta.getFrozenAmount();
+            if (frozenDelta < 0 && frozenAmount + frozenDelta < 0) {
+                return 0;
+            }
+            long unfrozenAmount = frozenDelta < 0 ? frozenAmount + frozenDelta : frozenAmount;
+            if (delta.isFundTransaction() && balance - unfrozenAmount + amount < 0) {
+                return 0;
+            }
+            if (frozenDelta > 0 && balance + amount - frozenAmount - frozenDelta < 0) {
+                return 0;
+            }
+            fund.setBalance(balance + amount);
+            fund.setFrozenAmount(frozenAmount + frozenDelta);
+            fund.setVersion(fund.getVersion() + 1);
+            fund.setModifiedTime(delta.getModifiedTime());
+            return 1;
+        }
+    }
+
+    private AccountFund copyOf(AccountFund fund) {
+        AccountFund copy = AccountFund.builder().accountId(fund.getAccountId()).balance(fund.getBalance())
+            .frozenAmount(fund.getFrozenAmount()).vouchAmount(fund.getVouchAmount()).buckets(fund.getBuckets()).version(fund.getVersion())
+            .createdTime(fund.getCreatedTime()).build();
+        copy.setModifiedTime(fund.getModifiedTime());
+        return copy;
+    }
+}
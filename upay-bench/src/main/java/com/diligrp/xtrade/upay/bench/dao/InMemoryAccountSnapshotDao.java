@@ -0,0 +1,53 @@
+package com.diligrp.xtrade.upay.bench.dao;
+
+import com.diligrp.xtrade.upay.channel.dao.IAccountSnapshotDao;
+import com.diligrp.xtrade.upay.channel.model.DailySnapshot;
+import com.diligrp.xtrade.upay.channel.model.SnapshotGuard;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内存账户余额快照数据访问层，只记录快照插入数量
+ */
+public class InMemoryAccountSnapshotDao implements IAccountSnapshotDao {
+
+    private final LongAdder snapshots = new LongAdder();
+
+    private volatile SnapshotGuard guard;
+
+    @Override
+    public void insertSnapshotGuard(SnapshotGuard guard) {
+        this.guard = guard;
+    }
+
+    @Override
+    public SnapshotGuard findSnapshotGuard(LocalDate dayOn, Integer state) {
+        SnapshotGuard guard = this.guard;
+        return guard != null && guard.getSnapshotOn().equals(dayOn)
+            && (state == null || state.equals(guard.getState())) ? guard : null;
+    }
+
+    @Override
+    public SnapshotGuard findLastSnapshotGuard(LocalDate dayOn, Integer state) {
+        SnapshotGuard guard = this.guard;
+        return guard != null && guard.getSnapshotOn().isBefore(dayOn)
+            && (state == null || state.equals(guard.getState())) ? guard : null;
+    }
+
+    @Override
+    public int updateSnapshotGuardState(SnapshotGuard guard) {
+        this.guard = guard;
+        return 1;
+    }
+
+    @Override
+    public void batchInsertDailySnapshot(List<DailySnapshot> snapshots) {
+        this.snapshots.add(snapshots.size());
+    }
+
+    public long snapshots() {
+        return snapshots.sum();
+    }
+}
@@ -0,0 +1,57 @@
+package com.diligrp.xtrade.upay.bench.dao;
+
+import com.diligrp.xtrade.upay.core.dao.IFundAccountDao;
+import com.diligrp.xtrade.upay.core.domain.AccountStateDto;
+import com.diligrp.xtrade.upay.core.model.FundAccount;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 内存资金账户数据访问层
+ */
+public class InMemoryFundAccountDao implements IFundAccountDao {
+
+    private final Map<Long, FundAccount> accounts = new ConcurrentHashMap<>();
+
+    @Override
+    public void insertFundAccount(FundAccount account) {
+        accounts.put(account.getAccountId(), account);
+    }
+
+    @Override
+    public Optional<FundAccount> findFundAccountById(Long accountId) {
+        return Optional.ofNullable(accounts.get(accountId));
+    }
+
+    @Override
+    public List<FundAccount> findFundAccountByParentId(Long parentId) {
+        return accounts.values().stream().filter(account -> parentId.equals(account.getParentId()))
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public Integer compareAndSetState(AccountStateDto accountState) {
+        FundAccount account = accounts.get(accountState.getAccountId());
+        if (account == null) {
+            return 0;
+        }
+        synchronized (account) {
+            if (!account.getVersion().equals(accountState.getVersion())) {
+                return 0;
+            }
+            account.setState(accountState.getState());
+            account.setModifiedTime(accountState.getModifiedTime());
+            account.setVersion(account.getVersion() + 1);
+            return 1;
+        }
+    }
+
+    @Override
+    public Integer updateFundAccount(FundAccount account) {
+        return accounts.replace(account.getAccountId(), account) == null ? 0 : 1;
+    }
+}
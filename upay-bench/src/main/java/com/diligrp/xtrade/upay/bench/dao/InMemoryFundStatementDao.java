@@ -0,0 +1,31 @@
+package com.diligrp.xtrade.upay.bench.dao;
+
+import com.diligrp.xtrade.upay.core.dao.IFundStatementDao;
+import com.diligrp.xtrade.upay.core.model.FundStatement;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内存资金收支明细数据访问层，只记录插入数量避免基准测试过程中内存持续增长
+ */
+public class InMemoryFundStatementDao implements IFundStatementDao {
+
+    private final LongAdder statements = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    @Override
+    public void insertFundStatements(List<FundStatement> statements) {
+        this.statements.add(statements.size());
+        this.batches.increment();
+    }
+
+    public long statements() {
+        return statements.sum();
+    }
+
+    public long batches() {
+        return batches.sum();
+    }
+}
@@ -0,0 +1,46 @@
+package com.diligrp.xtrade.upay.bench.simulator;
+
+import com.diligrp.xtrade.upay.core.dao.IAccountFundDao;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统计账户资金乐观锁修改失败次数（即资金流引擎的重试次数），包装账户资金数据访问层
+ */
+public class CasFailureCounter implements BeanPostProcessor {
+
+    private static final String CAS_METHOD = "compareAndSetVersion";
+
+    private final LongAdder failures = new LongAdder();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof IAccountFundDao)) {
+            return bean;
+        }
+
+        return Proxy.newProxyInstance(IAccountFundDao.class.getClassLoader(), new Class<?>[] {IAccountFundDao.class},
+            (proxy, method, args) -> {
+                try {
+                    Object result = method.invoke(bean, args);
+                    if (CAS_METHOD.equals(method.getName()) && Integer.valueOf(0).equals(result)) {
+                        failures.increment();
+                    }
+                    return result;
+                } catch (InvocationTargetException ex) {
+                    throw ex.getTargetException();
+                }
+            });
+    }
+
+    public long failures() {
+        return failures.sum();
+    }
+
+    public void reset() {
+        failures.reset();
+    }
+}
@@ -0,0 +1,230 @@
+package com.diligrp.xtrade.upay.bench.simulator;
+
+import com.diligrp.xtrade.upay.core.ErrorCode;
+import com.diligrp.xtrade.upay.core.domain.FundActivity;
+import com.diligrp.xtrade.upay.core.domain.FundTransaction;
+import com.diligrp.xtrade.upay.core.exception.PaymentServiceException;
+import com.diligrp.xtrade.upay.core.service.IFundStreamEngine;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 资金流引擎多线程竞争模拟器，输出不同并发线程数下的吞吐量、延迟、重试次数和失败率曲线（CSV）
+ *
+ * 每个并发线程数使用全新的H2内存数据库，每个线程使用固定种子的随机数生成相同的操作序列，保证结果可重复对比；
+ * 账户选择：hot-ratio比例的操作落在商户热点账户上，其余操作按Zipf分布落在普通账户上。
+ *
+ * 参数（--name=value）：
+ * mode - 资金流引擎模式：default或delta，默认default
+ * threads - 并发线程数列表，默认1,2,4,8,16,32
+ * operations - 每个线程的操作次数，默认2000
+ * accounts - 普通账户数量，默认1000
+ * zipf - 普通账户Zipf分布指数，默认1.1
+ * hot-ratio - 落在商户热点账户上的操作比例，默认0.2
+ * mix - 操作比例income:outgo:freeze:unfreeze，默认40:40:10:10
+ * seed - 随机数种子，默认20201017
+ * output - CSV输出文件，默认标准输出
+ */
+public class ContentionSimulator {
+
+    private static final long HOT_ACCOUNT = 1L;
+
+    private static final long INITIAL_BALANCE = 1_000_000_000L;
+
+    private static final long INITIAL_FROZEN = 100_000_000L;
+
+    private static final long AMOUNT = 100L;
+
+    private static final int TRADE_TYPE = 10;
+
+    private static final String CSV_HEADER = "mode,threads,operations,elapsed_ms,throughput_ops,p50_us,p99_us,"
+        + "retries,concurrent_failures,other_failures,failure_rate";
+
+    private final Map<String, String> options;
+
+    private final String mode;
+
+    private final int operations;
+
+    private final int accounts;
+
+    private final double hotRatio;
+
+    private final int[] mix;
+
+    private final long seed;
+
+    private final ZipfGenerator zipf;
+
+    public ContentionSimulator(Map<String, String> options) {
+        this.options = options;
+        this.mode = option("mode", "default");
+        this.operations = Integer.parseInt(option("operations", "2000"));
+        this.accounts = Integer.parseInt(option("accounts", "1000"));
+        this.hotRatio = Double.parseDouble(option("hot-ratio", "0.2"));
+        this.mix = Arrays.stream(option("mix", "40:40:10:10").split(":")).mapToInt(Integer::parseInt).toArray();
+        this.seed = Long.parseLong(option("seed", "20201017"));
+        this.zipf = new ZipfGenerator(accounts, Double.parseDouble(option("zipf", "1.1")));
+        if (mix.length != 4) {
+            throw new IllegalArgumentException("Invalid mix, expected income:outgo:freeze:unfreeze");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Invalid argument: " + arg + ", expected --name=value");
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        ContentionSimulator simulator = new ContentionSimulator(options);
+        String output = options.get("output");
+        try (PrintStream out = output == null ? new PrintStream(System.out, true, StandardCharsets.UTF_8.name())
+            : new PrintStream(Files.newOutputStream(Paths.get(output)), true, StandardCharsets.UTF_8.name())) {
+            out.println(CSV_HEADER);
+            for (String threads : simulator.option("threads", "1,2,4,8,16,32").split(",")) {
+                out.println(simulator.simulate(Integer.parseInt(threads.trim())));
+            }
+        }
+    }
+
+    /**
+     * 使用全新的数据库执行一次模拟，返回CSV数据行
+     */
+    public String simulate(int threads) throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("upay.fund-engine.mode", mode);
+        properties.put("simulator.jdbc-url", "jdbc:h2:mem:upay" + threads + ";MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+        // 默认实现每个资金事务需额外占用一个数据库连接查询账户资金
+        properties.put("simulator.max-connections", threads * 2 + 4);
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("simulator", properties));
+            context.register(SimulatorConfiguration.class);
+            context.refresh();
+
+            createAccounts(new JdbcTemplate(context.getBean(DataSource.class)));
+            IFundStreamEngine fundStreamEngine = context.getBean(IFundStreamEngine.class);
+            CasFailureCounter casFailureCounter = context.getBean(CasFailureCounter.class);
+            casFailureCounter.reset();
+
+            long[][] latencies = new long[threads][];
+            LongAdder concurrentFailures = new LongAdder();
+            LongAdder otherFailures = new LongAdder();
+            CyclicBarrier barrier = new CyclicBarrier(threads + 1);
+            CountDownLatch latch = new CountDownLatch(threads);
+            for (int i = 0; i < threads; i++) {
+                final int index = i;
+                Thread worker = new Thread(() -> {
+                    try {
+                        latencies[index] = runWorker(fundStreamEngine, new Random(seed + index), barrier,
+                            concurrentFailures, otherFailures);
+                    } catch (Exception ex) {
+                        throw new IllegalStateException("Simulator worker failed", ex);
+                    } finally {
+                        latch.countDown();
+                    }
+                }, "simulator-" + i);
+                worker.start();
+            }
+
+            barrier.await();
+            long startTime = System.nanoTime();
+            latch.await();
+            long elapsed = System.nanoTime() - startTime;
+
+            long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            long total = (long) threads * operations;
+            long failures = concurrentFailures.sum() + otherFailures.sum();
+            return String.format("%s,%d,%d,%d,%.1f,%.1f,%.1f,%d,%d,%d,%.4f", mode, threads, total, elapsed / 1_000_000,
+                total * 1_000_000_000.0 / elapsed, percentile(all, 0.50) / 1000.0, percentile(all, 0.99) / 1000.0,
+                casFailureCounter.failures(), concurrentFailures.sum(), otherFailures.sum(), (double) failures / total);
+        }
+    }
+
+    private long[] runWorker(IFundStreamEngine fundStreamEngine, Random random, CyclicBarrier barrier,
+                             LongAdder concurrentFailures, LongAdder otherFailures) throws Exception {
+        // 预先生成操作序列，避免随机数生成影响延迟统计
+        List<FundTransaction> transactions = new ArrayList<>(operations);
+        for (int i = 0; i < operations; i++) {
+            transactions.add(nextTransaction(random, i));
+        }
+        long[] latencies = new long[operations];
+        barrier.await();
+        for (int i = 0; i < operations; i++) {
+            long startTime = System.nanoTime();
+            try {
+                fundStreamEngine.submit(transactions.get(i));
+            } catch (PaymentServiceException ex) {
+                if (ex.getCode() == ErrorCode.DATA_CONCURRENT_UPDATED) {
+                    concurrentFailures.increment();
+                } else {
+                    otherFailures.increment();
+                }
+            }
+            latencies[i] = System.nanoTime() - startTime;
+        }
+        return latencies;
+    }
+
+    private FundTransaction nextTransaction(Random random, int sequence) {
+        long accountId = random.nextDouble() < hotRatio ? HOT_ACCOUNT : HOT_ACCOUNT + 1 + zipf.next(random);
+        int choice = random.nextInt(mix[0] + mix[1] + mix[2] + mix[3]);
+        String paymentId = String.valueOf(sequence);
+        LocalDateTime when = LocalDateTime.now();
+        FundActivity[] activities = new FundActivity[0];
+        long frozenAmount = 0;
+        if (choice < mix[0]) {
+            activities = new FundActivity[] {FundActivity.of(AMOUNT, 0, "账户资金")};
+        } else if (choice < mix[0] + mix[1]) {
+            activities = new FundActivity[] {FundActivity.of(-AMOUNT, 0, "账户资金")};
+        } else if (choice < mix[0] + mix[1] + mix[2]) {
+            frozenAmount = AMOUNT;
+        } else {
+            frozenAmount = -AMOUNT;
+        }
+        return FundTransaction.of(paymentId, accountId, 0L, TRADE_TYPE, frozenAmount, activities, when);
+    }
+
+    private void createAccounts(JdbcTemplate jdbcTemplate) {
+        List<Object[]> rows = new ArrayList<>(accounts + 1);
+        LocalDateTime when = LocalDateTime.now();
+        for (long accountId = HOT_ACCOUNT; accountId <= HOT_ACCOUNT + accounts; accountId++) {
+            rows.add(new Object[] {accountId, INITIAL_BALANCE, INITIAL_FROZEN, when});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO upay_account_fund(account_id, balance, frozen_amount, vouch_amount, "
+            + "version, created_time) VALUES (?, ?, ?, 0, 0, ?)", rows);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+}
@@ -0,0 +1,118 @@
+package com.diligrp.xtrade.upay.bench.simulator;
+
+import com.diligrp.xtrade.shared.mybatis.MybatisMapperSupport;
+import com.diligrp.xtrade.shared.sequence.KeyGeneratorManager;
+import com.diligrp.xtrade.upay.core.service.IAccountBucketService;
+import com.diligrp.xtrade.upay.core.service.IFundAccountService;
+import com.diligrp.xtrade.upay.core.service.IFundStreamEngine;
+import com.diligrp.xtrade.upay.core.service.impl.AccountBucketServiceImpl;
+import com.diligrp.xtrade.upay.core.service.impl.DefaultFundStreamEngine;
+import com.diligrp.xtrade.upay.core.service.impl.DeltaFundStreamEngine;
+import com.diligrp.xtrade.upay.core.service.impl.FundAccountServiceImpl;
+import com.diligrp.xtrade.upay.core.util.SegmentKeyManager;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+
+/**
+ * 资金流引擎竞争模拟器Spring配置：H2内存数据库（MySQL兼容模式）+ Mybatis + 本地事务，不依赖Nacos、Redis和Seata
+ */
+@Configuration
+@EnableTransactionManagement
+@MapperScan(basePackages =  {"com.diligrp.xtrade.upay.core.dao"}, markerInterface = MybatisMapperSupport.class)
+public class SimulatorConfiguration {
+
+    private static final String[] MAPPERS = {
+        "com/diligrp/xtrade/upay/mapper/IAccountFundDao.xml",
+        "com/diligrp/xtrade/upay/mapper/IAccountBucketDao.xml",
+        "com/diligrp/xtrade/upay/mapper/IFundStatementDao.xml"
+    };
+
+    @Bean(destroyMethod = "dispose")
+    public JdbcConnectionPool dataSource(@Value("${simulator.jdbc-url}") String jdbcUrl,
+                                         @Value("${simulator.max-connections}") int maxConnections) {
+        JdbcConnectionPool dataSource = JdbcConnectionPool.create(jdbcUrl, "sa", "");
+        dataSource.setMaxConnections(maxConnections);
+        dataSource.setLoginTimeout(30);
+        DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("simulator/upay-h2.sql")), dataSource);
+        return dataSource;
+    }
+
+    @Bean
+    public SqlSessionFactory sqlSessionFactory(DataSource dataSource) throws Exception {
+        // 与template.properties中的Mybatis配置保持一致
+        org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration();
+        configuration.setCacheEnabled(true);
+        configuration.setMultipleResultSetsEnabled(true);
+        configuration.setUseColumnLabel(true);
+        configuration.setDefaultStatementTimeout(25000);
+
+        Resource[] mappers = new Resource[MAPPERS.length];
+        for (int i = 0; i < MAPPERS.length; i++) {
+            mappers[i] = new ClassPathResource(MAPPERS[i]);
+        }
+        SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setMapperLocations(mappers);
+        return factoryBean.getObject();
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(DataSource dataSource) {
+        return new DataSourceTransactionManager(dataSource);
+    }
+
+    @Bean
+    public KeyGeneratorManager keyGeneratorManager() {
+        return new KeyGeneratorManager();
+    }
+
+    @Bean
+    public SegmentKeyManager segmentKeyManager() {
+        return new SegmentKeyManager();
+    }
+
+    @Bean
+    public IAccountBucketService accountBucketService() {
+        return new AccountBucketServiceImpl();
+    }
+
+    @Bean
+    public IFundAccountService fundAccountService() {
+        return new FundAccountServiceImpl();
+    }
+
+    /**
+     * 资金流引擎实现模式与配置项upay.fund-engine.mode一致
+     */
+    @Bean
+    public IFundStreamEngine fundStreamEngine(@Value("${upay.fund-engine.mode:default}") String mode) {
+        switch (mode) {
+            case "default":
+                return new DefaultFundStreamEngine();
+            case "delta":
+                return new DeltaFundStreamEngine();
+            default:
+                throw new IllegalArgumentException("Unknown fund engine mode: " + mode);
+        }
+    }
+
+    @Bean
+    public static CasFailureCounter casFailureCounter() {
+        return new CasFailureCounter();
+    }
+}
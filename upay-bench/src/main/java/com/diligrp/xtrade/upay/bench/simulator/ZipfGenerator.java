@@ -0,0 +1,33 @@
+package com.diligrp.xtrade.upay.bench.simulator;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Zipf分布随机数生成器：返回[0, n)，排名越靠前的值出现概率越高，概率与1/(rank^exponent)成正比
+ */
+public class ZipfGenerator {
+
+    private final double[] cumulative;
+
+    public ZipfGenerator(int n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Invalid zipf size: " + n);
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    public int next(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        index = index >= 0 ? index : -index - 1;
+        return Math.min(index, cumulative.length - 1);
+    }
+}
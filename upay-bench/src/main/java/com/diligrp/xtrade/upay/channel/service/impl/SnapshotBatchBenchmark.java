@@ -0,0 +1,87 @@
+package com.diligrp.xtrade.upay.channel.service.impl;
+
+import com.diligrp.xtrade.upay.bench.dao.InMemoryAccountSnapshotDao;
+import com.diligrp.xtrade.upay.channel.model.DailySnapshot;
+import org.apache.ibatis.session.ResultContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 账户余额快照批量处理器基准测试：模拟Mybatis流式查询逐条回调并按批次插入快照数据
+ *
+ * 与BatchResultHandler处于同一包中以访问包级可见的处理器
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBatchBenchmark {
+
+    private static final int ROWS = 10000;
+
+    private final InMemoryAccountSnapshotDao accountSnapshotDao = new InMemoryAccountSnapshotDao();
+
+    private final LocalDate snapshotOn = LocalDate.now().minusDays(1);
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long handleResults() {
+        AccountSnapshotServiceImpl.BatchResultHandler handler =
+            new AccountSnapshotServiceImpl.BatchResultHandler(accountSnapshotDao, snapshotOn);
+        SnapshotResultContext context = new SnapshotResultContext();
+        for (int i = 0; i < ROWS; i++) {
+            DailySnapshot snapshot = new DailySnapshot();
+            snapshot.setAccountId(100000L + i);
+            snapshot.setBalance(10000L + i);
+            snapshot.setFrozenAmount(0L);
+            context.next(snapshot);
+            handler.handleResult(context);
+        }
+        handler.flush();
+        return accountSnapshotDao.snapshots();
+    }
+
+    private static class SnapshotResultContext implements ResultContext<DailySnapshot> {
+
+        private DailySnapshot snapshot;
+
+        private int count;
+
+        void next(DailySnapshot snapshot) {
+            this.snapshot = snapshot;
+            this.count++;
+        }
+
+        @Override
+        public DailySnapshot getResultObject() {
+            return snapshot;
+        }
+
+        @Override
+        public int getResultCount() {
+            return count;
+        }
+
+        @Override
+        public boolean isStopped() {
+            return false;
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+}
@@ -0,0 +1,47 @@
+-- --------------------------------------------------------------------
+-- 资金流引擎竞争模拟器使用的H2数据库表（MySQL兼容模式），表结构与scripts/upay.sql一致
+-- --------------------------------------------------------------------
+DROP TABLE IF EXISTS `upay_account_fund`;
+CREATE TABLE `upay_account_fund` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `account_id` BIGINT NOT NULL,
+  `balance` BIGINT NOT NULL,
+  `frozen_amount` BIGINT NOT NULL,
+  `vouch_amount` BIGINT NOT NULL,
+  `buckets` INTEGER NOT NULL DEFAULT 0,
+  `version` INTEGER NOT NULL,
+  `created_time` DATETIME,
+  `modified_time` DATETIME,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_account_fund_accountId` (`account_id`)
+);
+
+DROP TABLE IF EXISTS `upay_account_bucket`;
+CREATE TABLE `upay_account_bucket` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `account_id` BIGINT NOT NULL,
+  `bucket_no` INTEGER NOT NULL,
+  `balance` BIGINT NOT NULL,
+  `version` INTEGER NOT NULL,
+  `created_time` DATETIME,
+  `modified_time` DATETIME,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_account_bucket_accountId` (`account_id`, `bucket_no`)
+);
+
+DROP TABLE IF EXISTS `upay_fund_statement`;
+CREATE TABLE `upay_fund_statement` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT,
+  `payment_id` VARCHAR(40) NOT NULL,
+  `account_id` BIGINT NOT NULL,
+  `child_id` BIGINT,
+  `trade_type` TINYINT NOT NULL,
+  `action` TINYINT NOT NULL,
+  `balance` BIGINT NOT NULL,
+  `amount` BIGINT NOT NULL,
+  `type` INT NOT NULL,
+  `type_name` VARCHAR(80),
+  `description` VARCHAR(128),
+  `created_time` DATETIME,
+  PRIMARY KEY (`id`)
+);
@@ -3,11 +3,13 @@ package com.diligrp.xtrade.upay.boss.component;
 import com.diligrp.xtrade.shared.domain.ServiceRequest;
 import com.diligrp.xtrade.shared.sapi.CallableComponent;
 import com.diligrp.xtrade.shared.util.AssertUtils;
+import com.diligrp.xtrade.upay.boss.domain.AccountBuckets;
 import com.diligrp.xtrade.upay.core.domain.ApplicationPermit;
 import com.diligrp.xtrade.upay.core.domain.MerchantPermit;
 import com.diligrp.xtrade.upay.core.domain.RegisterApplication;
 import com.diligrp.xtrade.upay.core.domain.RegisterMerchant;
 import com.diligrp.xtrade.upay.core.service.IAccessPermitService;
+import com.diligrp.xtrade.upay.core.service.IAccountBucketService;
 
 import javax.annotation.Resource;
 
@@ -21,6 +23,9 @@ public class AccessPermitComponent {
     @Resource
     private IAccessPermitService accessPermitService;
 
+    @Resource
+    private IAccountBucketService accountBucketService;
+
     /**
      * 注册商户: 创建接入商户(分配mchId)、创建商户账户（收益账户、担保账户和押金账户等）并分配商户公私钥
      */
@@ -55,4 +60,14 @@ public class AccessPermitComponent {
 
         return accessPermitService.registerApplication(application);
     }
+
+    /**
+     * 拆分账户资金分桶: 已注册商户的热点账户（收益账户、担保账户和押金账户等）拆分为多个资金分桶
+     */
+    public void accountBuckets(ServiceRequest<AccountBuckets> request) {
+        AccountBuckets accountBuckets = request.getData();
+        AssertUtils.notNull(accountBuckets.getAccountId(), "accountId missed");
+        AssertUtils.notNull(accountBuckets.getBuckets(), "buckets missed");
+        accountBucketService.createAccountBuckets(accountBuckets.getAccountId(), accountBuckets.getBuckets());
+    }
 }
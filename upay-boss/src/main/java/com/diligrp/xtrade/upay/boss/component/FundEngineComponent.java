@@ -0,0 +1,52 @@
+package com.diligrp.xtrade.upay.boss.component;
+
+import com.diligrp.xtrade.shared.domain.ServiceRequest;
+import com.diligrp.xtrade.shared.sapi.CallableComponent;
+import com.diligrp.xtrade.shared.util.AssertUtils;
+import com.diligrp.xtrade.upay.boss.domain.AccountContention;
+import com.diligrp.xtrade.upay.boss.domain.AccountId;
+import com.diligrp.xtrade.upay.boss.domain.AccountLockMode;
+import com.diligrp.xtrade.upay.boss.domain.ListHotAccount;
+import com.diligrp.xtrade.upay.core.service.IFundStreamEngine;
+import com.diligrp.xtrade.upay.core.type.LockMode;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 资金流引擎运维服务组件
+ *
+ * 只允许通过支付管理后台访问，用于查看资金流引擎运行状态
+ */
+@CallableComponent(id = "payment.spi.engine")
+public class FundEngineComponent {
+
+    // 单次查询的最大热点账户数量
+    private static final int MAX_HOT_ACCOUNTS = 200;
+
+    @Resource
+    private IFundStreamEngine fundStreamEngine;
+
+    /**
+     * 查询账户当前的资金修改锁模式
+     */
+    public AccountLockMode lockMode(ServiceRequest<AccountId> request) {
+        AccountId accountId = request.getData();
+        AssertUtils.notNull(accountId.getAccountId(), "accountId missed");
+        LockMode lockMode = fundStreamEngine.lockMode(accountId.getAccountId());
+        return AccountLockMode.of(accountId.getAccountId(), lockMode.getCode(), lockMode.getName());
+    }
+
+    /**
+     * 查询本节点近期乐观锁冲突最多的热点账户，按冲突次数降序排列
+     */
+    public List<AccountContention> hotAccounts(ServiceRequest<ListHotAccount> request) {
+        ListHotAccount listHotAccount = request.getData();
+        AssertUtils.notNull(listHotAccount.getTop(), "top missed");
+        AssertUtils.isTrue(listHotAccount.getTop() > 0 && listHotAccount.getTop() <= MAX_HOT_ACCOUNTS, "invalid top");
+        return fundStreamEngine.hotAccounts(listHotAccount.getTop()).stream().map(account -> AccountContention.of(
+            account.getAccountId(), account.getConflicts(), account.getConflictError(), account.getSubmits(),
+            account.getLockMode().getCode(), account.getLockMode().getName())).collect(Collectors.toList());
+    }
+}
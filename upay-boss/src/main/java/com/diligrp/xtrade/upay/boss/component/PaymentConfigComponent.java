@@ -0,0 +1,30 @@
+package com.diligrp.xtrade.upay.boss.component;
+
+import com.diligrp.xtrade.shared.domain.ServiceRequest;
+import com.diligrp.xtrade.shared.sapi.CallableComponent;
+import com.diligrp.xtrade.shared.util.AssertUtils;
+import com.diligrp.xtrade.upay.boss.domain.ModifyConfig;
+import com.diligrp.xtrade.upay.core.service.IPaymentConfigService;
+
+import javax.annotation.Resource;
+
+/**
+ * 支付服务参数配置组件
+ *
+ * 只允许通过支付管理后台访问（payment.spi.前缀，支付网关拒绝访问），配置修改后所有节点的配置缓存随之失效
+ */
+@CallableComponent(id = "payment.spi.config")
+public class PaymentConfigComponent {
+    @Resource
+    private IPaymentConfigService paymentConfigService;
+
+    /**
+     * 修改数据字典配置值
+     */
+    public void modify(ServiceRequest<ModifyConfig> request) {
+        ModifyConfig config = request.getData();
+        AssertUtils.notNull(config.getId(), "id missed");
+        AssertUtils.notEmpty(config.getValue(), "value missed");
+        paymentConfigService.modifyDataDictionary(config.getId(), config.getValue());
+    }
+}
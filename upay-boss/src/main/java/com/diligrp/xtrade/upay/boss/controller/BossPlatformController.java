@@ -3,15 +3,20 @@ package com.diligrp.xtrade.upay.boss.controller;
 import com.diligrp.xtrade.shared.domain.Message;
 import com.diligrp.xtrade.shared.domain.RequestContext;
 import com.diligrp.xtrade.shared.exception.ServiceAccessException;
+import com.diligrp.xtrade.shared.sapi.ICallableServiceEngine;
 import com.diligrp.xtrade.shared.sapi.ICallableServiceManager;
 import com.diligrp.xtrade.shared.util.AssertUtils;
 import com.diligrp.xtrade.shared.util.DateUtils;
 import com.diligrp.xtrade.shared.util.ObjectUtils;
+import com.diligrp.xtrade.upay.boss.util.AsyncDispatcher;
 import com.diligrp.xtrade.upay.boss.util.Constants;
 import com.diligrp.xtrade.upay.boss.util.HttpUtils;
 import com.diligrp.xtrade.upay.channel.service.IAccountSnapshotService;
 import com.diligrp.xtrade.upay.core.ErrorCode;
 import com.diligrp.xtrade.upay.core.exception.PaymentServiceException;
+import com.diligrp.xtrade.upay.core.type.TaskPool;
+import com.diligrp.xtrade.upay.core.util.AsyncTaskExecutor;
+import com.diligrp.xtrade.upay.core.util.PayloadCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -19,12 +24,9 @@ import org.springframework.web.bind.annotation.RestController;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.time.LocalDate;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 支付管理后台控制器
@@ -39,33 +41,31 @@ public class BossPlatformController {
     private ICallableServiceManager callableServiceManager;
 
     @Resource
-    private IAccountSnapshotService accountSnapshotService;
+    private ICallableServiceEngine callableServiceEngine;
+
+    @Resource
+    private AsyncDispatcher asyncDispatcher;
 
-    private ExecutorService executorService = new ThreadPoolExecutor(1, 1, 30,
-            TimeUnit.SECONDS, new SynchronousQueue<>(), new ThreadPoolExecutor.AbortPolicy());
+    @Resource
+    private IAccountSnapshotService accountSnapshotService;
 
+    /**
+     * 服务调用按服务隔离分发到管理后台线程池异步执行，后台批量操作不占用Tomcat工作线程和支付网关线程池
+     */
     @RequestMapping(value = "/boss.do")
-    public Message<?> gateway(HttpServletRequest request) {
+    public void gateway(HttpServletRequest request, HttpServletResponse response) {
         try {
             String payload = HttpUtils.httpBody(request);
             LOG.debug("boss request received, http body: {}", payload);
             AssertUtils.notEmpty(payload, "boss request payload missed");
 
             RequestContext context = HttpUtils.requestContext(request);
-            checkAccessPermission(context);
-            return callableServiceManager.callService(context, payload);
-        } catch (IllegalArgumentException iex) {
-            LOG.error(iex.getMessage());
-            return Message.failure(ErrorCode.ILLEGAL_ARGUMENT_ERROR, iex.getMessage());
-        } catch (ServiceAccessException sex) {
-            LOG.error("boss service not available exception", sex);
-            return Message.failure(ErrorCode.SERVICE_NOT_AVAILABLE, sex.getMessage());
-        } catch (PaymentServiceException pex) {
-            LOG.error("boss service process exception", pex);
-            return Message.failure(pex.getCode(), pex.getMessage());
+            String service = checkAccessPermission(context);
+            asyncDispatcher.dispatch(request, TaskPool.BOSS, "service:" + service,
+                () -> callableServiceManager.callService(context, payload), this::failure,
+                message -> HttpUtils.sendResponse(request, response, PayloadCodec.toJsonBytes(message), 0));
         } catch (Throwable ex) {
-            LOG.error("boss service unknown exception", ex);
-            return Message.failure(ErrorCode.SYSTEM_UNKNOWN_ERROR, ex.getMessage());
+            HttpUtils.sendResponse(request, response, PayloadCodec.toJsonBytes(failure(ex)), 0);
         }
     }
 
@@ -77,10 +77,10 @@ public class BossPlatformController {
             String dayOn = context.getString("snapshotOn");
             LocalDate snapshotOn = ObjectUtils.isEmpty(dayOn) ?
                 LocalDate.now().minusDays(1) : DateUtils.parseDate(dayOn, DateUtils.YYYYMMDD);
-            // 快照线程池采用单线程实现(指定Rejected策略为AbortPolicy, 采用SynchronousQueue作为任务队列)；
+            // 快照线程池采用单线程实现(任务队列已满时拒绝任务, 不排队)；
             // 确保一台虚拟机某一时刻只能运行一个快照任务，由于服务层采用Snapshot Guard限制了同一天只能有一个快照任务，
             // 因此无须使用分布式锁限制全局只能运行一个快照任务
-            executorService.execute(() -> {
+            AsyncTaskExecutor.executor(TaskPool.SNAPSHOT).execute(() -> {
                 accountSnapshotService.makeAccountSnapshot(snapshotOn);
             });
 
@@ -96,11 +96,36 @@ public class BossPlatformController {
         }
     }
 
-    private void checkAccessPermission(RequestContext context) {
+    /**
+     * 服务调用异常转换为调用结果
+     */
+    private Message<?> failure(Throwable ex) {
+        if (ex instanceof IllegalArgumentException) {
+            LOG.error(ex.getMessage());
+            return Message.failure(ErrorCode.ILLEGAL_ARGUMENT_ERROR, ex.getMessage());
+        } else if (ex instanceof ServiceAccessException) {
+            LOG.error("boss service not available exception", ex);
+            return Message.failure(ErrorCode.SERVICE_NOT_AVAILABLE, ex.getMessage());
+        } else if (ex instanceof PaymentServiceException) {
+            LOG.error("boss service process exception", ex);
+            return Message.failure(((PaymentServiceException) ex).getCode(), ex.getMessage());
+        }
+        LOG.error("boss service unknown exception", ex);
+        return Message.failure(ErrorCode.SYSTEM_UNKNOWN_ERROR, ex.getMessage());
+    }
+
+    /**
+     * 检查服务访问权限并返回服务名，服务需已注册（服务名作为隔离键）
+     */
+    private String checkAccessPermission(RequestContext context) {
         String service = context.getString(Constants.PARAM_SERVICE);
         AssertUtils.notEmpty(service, "service missed");
-        if (!service.startsWith(Constants.PARAM_PERMIT_SERVICE)) {
+        if (!service.startsWith(Constants.PARAM_PERMIT_SERVICE) && !service.startsWith(Constants.PARAM_SPI_SERVICE)) {
             throw new ServiceAccessException(ErrorCode.UNAUTHORIZED_ACCESS_ERROR, "未授权的服务访问");
         }
+        if (callableServiceEngine.callableServiceEndpoint(service) == null) {
+            throw new ServiceAccessException(ErrorCode.SERVICE_NOT_AVAILABLE, String.format("Callable service {%s} unavailable", service));
+        }
+        return service;
     }
 }
\ No newline at end of file
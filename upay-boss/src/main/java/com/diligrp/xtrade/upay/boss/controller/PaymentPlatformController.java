@@ -1,14 +1,17 @@
 package com.diligrp.xtrade.upay.boss.controller;
 
 import com.diligrp.xtrade.shared.domain.Message;
-import com.diligrp.xtrade.shared.domain.MessageEnvelop;
 import com.diligrp.xtrade.shared.domain.RequestContext;
+import com.diligrp.xtrade.shared.domain.ServiceRequest;
 import com.diligrp.xtrade.shared.exception.MessageEnvelopException;
 import com.diligrp.xtrade.shared.exception.ServiceAccessException;
-import com.diligrp.xtrade.shared.sapi.ICallableServiceManager;
+import com.diligrp.xtrade.shared.sapi.CallableServiceEndpoint;
+import com.diligrp.xtrade.shared.sapi.ICallableServiceEngine;
 import com.diligrp.xtrade.shared.util.AssertUtils;
-import com.diligrp.xtrade.shared.util.JsonUtils;
 import com.diligrp.xtrade.shared.util.ObjectUtils;
+import com.diligrp.xtrade.upay.boss.domain.BatchCall;
+import com.diligrp.xtrade.upay.boss.util.AdmissionController;
+import com.diligrp.xtrade.upay.boss.util.AsyncDispatcher;
 import com.diligrp.xtrade.upay.boss.util.Constants;
 import com.diligrp.xtrade.upay.boss.util.HttpUtils;
 import com.diligrp.xtrade.upay.core.ErrorCode;
@@ -16,14 +19,26 @@ import com.diligrp.xtrade.upay.core.domain.ApplicationPermit;
 import com.diligrp.xtrade.upay.core.exception.PaymentServiceException;
 import com.diligrp.xtrade.upay.core.service.IAccessPermitService;
 import com.diligrp.xtrade.upay.core.service.IPaymentConfigService;
+import com.diligrp.xtrade.upay.core.type.TaskPool;
+import com.diligrp.xtrade.upay.core.util.PayloadBuffer;
+import com.diligrp.xtrade.upay.core.util.PayloadCodec;
+import com.diligrp.xtrade.upay.core.util.PaymentMetrics;
+import com.diligrp.xtrade.upay.core.util.SignatureUtils;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 支付服务控制器
@@ -32,10 +47,12 @@ import javax.servlet.http.HttpServletResponse;
 @RequestMapping("/payment/api")
 public class PaymentPlatformController {
 
+    private static final String METRIC_REPLY = "upay.gateway.reply";
+
     private Logger LOG = LoggerFactory.getLogger(this.getClass());
 
     @Resource
-    private ICallableServiceManager callableServiceManager;
+    private ICallableServiceEngine callableServiceEngine;
 
     @Resource
     private IAccessPermitService accessPermitService;
@@ -43,15 +60,41 @@ public class PaymentPlatformController {
     @Resource
     private IPaymentConfigService paymentConfigService;
 
+    @Resource
+    private AsyncDispatcher asyncDispatcher;
+
+    @Resource
+    private AdmissionController admissionController;
+
+    // 应答数据压缩阈值-字节，小于等于0时不压缩
+    @Value("${upay.gateway.gzip-threshold:8192}")
+    private int gzipThreshold;
+
+    // 批量调用每批最大服务调用数
+    @Value("${upay.gateway.batch.max-calls:500}")
+    private int batchMaxCalls;
+
+    // 批量调用并行执行的服务调用数
+    @Value("${upay.gateway.batch.concurrency:8}")
+    private int batchConcurrency;
+
+    // 批量调用异步处理超时时间-毫秒
+    @Value("${upay.gateway.batch.timeout:120000}")
+    private long batchTimeout;
+
+    /**
+     * 数据读取、接入许可检查、验签、服务参数反序列化和接入限额检查在请求线程中执行（请求数据缓冲区为线程私有），
+     * 服务调用按商户隔离分发到支付网关线程池异步执行，执行线程写回应答；超过应用或服务接入限额时立即返回ACCESS_LIMITED
+     */
     @RequestMapping(value = "/gateway.do")
     public void gateway(HttpServletRequest request, HttpServletResponse response) {
-        Message<?> result = null;
+        Message<?> result;
         ApplicationPermit application = null;
         boolean signCheck = false;
 
         try {
-            String payload = HttpUtils.httpBody(request);
-            LOG.debug("payment request received, http body: {}", payload);
+            // 请求数据按字节读取一次，验签和反序列化直接使用原始字节
+            PayloadBuffer payload = HttpUtils.httpPayload(request);
 
             RequestContext context = HttpUtils.requestContext(request);
             String service = context.getString(Constants.PARAM_SERVICE);
@@ -59,59 +102,240 @@ public class PaymentPlatformController {
             Long mchId = context.getLong(Constants.PARAM_MCHID);
             String accessToken = context.getString(Constants.PARAM_ACCESS_TOKEN);
             String signature = context.getString(Constants.PARAM_SIGNATURE);
-            String charset = context.getString(Constants.PARAM_CHARSET);
+            String charsetName = context.getString(Constants.PARAM_CHARSET);
+            Charset charset = Charset.forName(ObjectUtils.isEmpty(charsetName) ? Constants.CHARSET_UTF8 : charsetName);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("payment request received, http body: {}", payload.toString(charset));
+            }
 
             AssertUtils.notNull(appId, "appId missed");
             AssertUtils.notNull(mchId, "mchId missed");
             AssertUtils.notEmpty(service, "service missed");
-            AssertUtils.notEmpty(payload, "payment request payload missed");
+            AssertUtils.isTrue(!payload.isEmpty(), "payment request payload missed");
 
-            MessageEnvelop envelop = MessageEnvelop.of(appId, service, accessToken, payload, signature, charset);
-            application = checkAccessPermission(context, mchId, envelop);
+            application = checkAccessPermission(context, mchId, appId, accessToken);
             // 获取"接口数据签名验签"系统配置
             signCheck = paymentConfigService.dataSignSwitch(application.getMerchant().getCode());
             if (signCheck) {
-                envelop.unpackEnvelop(application.getPublicKey());
+                unpackPayload(payload, signature, application);
+            }
+            CallableServiceEndpoint<Object> endpoint = endpoint(service);
+            Object data = PayloadCodec.fromJsonBytes(payload, charset, endpoint.getRequiredType());
+            AsyncDispatcher.ServiceCall call = serviceCall(context, endpoint, data);
+            ApplicationPermit permit = application;
+            boolean sign = signCheck;
+            AdmissionController.Permit admission = admissionController.acquire(appId, service);
+            try {
+                asyncDispatcher.dispatch(request, TaskPool.GATEWAY, "merchant:" + mchId, 0, call, this::failure,
+                    message -> sendReply(request, response, message, permit, sign), admission::release);
+            } catch (RuntimeException ex) {
+                admission.release();
+                throw ex;
+            }
+            return;
+        } catch (Throwable ex) {
+            result = failure(ex);
+        }
+        sendReply(request, response, result, application, signCheck);
+    }
+
+    /**
+     * 批量服务调用：请求数据为服务调用数组[{"service": "...", "data": {...}}, ...]，整批数据签名验签一次、接入许可检查一次；
+     * 批量调用按商户隔离分发到支付网关线程池，每个服务调用在批量调用线程池中按配置的并行数执行并占用商户的隔离许可，
+     * 每个服务调用使用独立的数据库事务，单个调用失败不影响其他调用；应答数据为按请求顺序排列的调用结果数组，整批签名一次。
+     * 接入限额按整批检查，应用和服务按调用次数获取令牌，超过限额时整批返回ACCESS_LIMITED
+     */
+    @RequestMapping(value = "/batch.do")
+    public void batch(HttpServletRequest request, HttpServletResponse response) {
+        Message<?> result;
+        ApplicationPermit application = null;
+        boolean signCheck = false;
+
+        try {
+            PayloadBuffer payload = HttpUtils.httpPayload(request);
+
+            RequestContext context = HttpUtils.requestContext(request);
+            Long appId = context.getLong(Constants.PARAM_APPID);
+            Long mchId = context.getLong(Constants.PARAM_MCHID);
+            String accessToken = context.getString(Constants.PARAM_ACCESS_TOKEN);
+            String signature = context.getString(Constants.PARAM_SIGNATURE);
+            String charsetName = context.getString(Constants.PARAM_CHARSET);
+            Charset charset = Charset.forName(ObjectUtils.isEmpty(charsetName) ? Constants.CHARSET_UTF8 : charsetName);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("payment batch request received, http body: {}", payload.toString(charset));
+            }
+
+            AssertUtils.notNull(appId, "appId missed");
+            AssertUtils.notNull(mchId, "mchId missed");
+            AssertUtils.isTrue(!payload.isEmpty(), "payment request payload missed");
+
+            application = checkAccessPermission(context, mchId, appId, accessToken);
+            signCheck = paymentConfigService.dataSignSwitch(application.getMerchant().getCode());
+            if (signCheck) {
+                unpackPayload(payload, signature, application);
+            }
+            BatchCall[] batchCalls = PayloadCodec.fromJsonBytes(payload, charset, BatchCall[].class);
+            AssertUtils.isTrue(batchCalls != null && batchCalls.length > 0, "batch calls missed");
+            AssertUtils.isTrue(batchCalls.length <= batchMaxCalls, "too many batch calls, max " + batchMaxCalls);
+
+            // 只统计可访问服务的调用次数，未注册服务和管理服务的调用直接返回失败结果
+            Map<String, Integer> services = new LinkedHashMap<>();
+            for (BatchCall batchCall : batchCalls) {
+                String service = batchCall.getService();
+                if (!ObjectUtils.isEmpty(service) && !isAdminService(service)
+                    && callableServiceEngine.callableServiceEndpoint(service) != null) {
+                    services.merge(service, 1, Integer::sum);
+                }
             }
-            result = callableServiceManager.callService(context, envelop);
-        } catch (IllegalArgumentException iex) {
-            LOG.error(iex.getMessage());
-            result = Message.failure(ErrorCode.ILLEGAL_ARGUMENT_ERROR, iex.getMessage());
-        } catch (ServiceAccessException sex) {
-            LOG.error("Payment service not available exception", sex);
-            result = Message.failure(ErrorCode.SERVICE_NOT_AVAILABLE, sex.getMessage());
-        } catch (MessageEnvelopException mex) {
-            LOG.error("Payment service data verify exception", mex);
-            result = Message.failure(ErrorCode.UNAUTHORIZED_ACCESS_ERROR, mex.getMessage());
-        } catch (PaymentServiceException pex) {
-            LOG.error("Payment service process exception", pex);
-            result = Message.failure(pex.getCode(), pex.getMessage());
+            AdmissionController.Permit admission = admissionController.acquireBatch(appId, services);
+            try {
+                List<AsyncDispatcher.ServiceCall> calls = new ArrayList<>(batchCalls.length);
+                for (BatchCall batchCall : batchCalls) {
+                    calls.add(batchCall(context, batchCall));
+                }
+                ApplicationPermit permit = application;
+                boolean sign = signCheck;
+                String key = "merchant:" + mchId;
+                asyncDispatcher.dispatch(request, TaskPool.GATEWAY, key, batchTimeout,
+                    () -> Message.success(asyncDispatcher.invokeAll(TaskPool.BATCH, key, calls, batchConcurrency, this::failure)),
+                    this::failure, message -> sendReply(request, response, message, permit, sign), admission::release);
+            } catch (RuntimeException ex) {
+                admission.release();
+                throw ex;
+            }
+            return;
         } catch (Throwable ex) {
-            LOG.error("Payment service unknown exception", ex);
-            result = Message.failure(ErrorCode.SYSTEM_UNKNOWN_ERROR, "系统未知异常，请联系系统管理员");
+            result = failure(ex);
+        }
+        sendReply(request, response, result, application, signCheck);
+    }
+
+    /**
+     * 创建批量调用中的单个服务调用，服务不存在或参数错误时该调用直接返回失败结果，不影响其他调用
+     */
+    private AsyncDispatcher.ServiceCall batchCall(RequestContext context, BatchCall batchCall) {
+        try {
+            AssertUtils.notEmpty(batchCall.getService(), "service missed");
+            CallableServiceEndpoint<Object> endpoint = endpoint(batchCall.getService());
+            Object data = batchCall.getData() == null || batchCall.getData().isNull() ? null :
+                PayloadCodec.fromJsonNode(batchCall.getData(), endpoint.getRequiredType());
+            // 服务组件可能修改请求上下文，每个服务调用使用独立的上下文
+            RequestContext callContext = new RequestContext();
+            callContext.putAll(context);
+            callContext.put(Constants.PARAM_SERVICE, batchCall.getService());
+            return serviceCall(callContext, endpoint, data);
+        } catch (Exception ex) {
+            Message<?> result = failure(ex);
+            return () -> result;
+        }
+    }
+
+    /**
+     * 服务调用异常转换为调用结果
+     */
+    private Message<?> failure(Throwable ex) {
+        if (ex instanceof IllegalArgumentException) {
+            LOG.error(ex.getMessage());
+            return Message.failure(ErrorCode.ILLEGAL_ARGUMENT_ERROR, ex.getMessage());
+        } else if (ex instanceof ServiceAccessException) {
+            LOG.error("Payment service not available exception", ex);
+            return Message.failure(ErrorCode.SERVICE_NOT_AVAILABLE, ex.getMessage());
+        } else if (ex instanceof MessageEnvelopException) {
+            LOG.error("Payment service data verify exception", ex);
+            return Message.failure(ErrorCode.UNAUTHORIZED_ACCESS_ERROR, ex.getMessage());
+        } else if (ex instanceof PaymentServiceException && ((PaymentServiceException) ex).getCode() == ErrorCode.ACCESS_LIMITED) {
+            // 限流拒绝在过载时大量出现，不输出异常堆栈
+            LOG.warn(ex.getMessage());
+            return Message.failure(ErrorCode.ACCESS_LIMITED, ex.getMessage());
+        } else if (ex instanceof PaymentServiceException) {
+            LOG.error("Payment service process exception", ex);
+            return Message.failure(((PaymentServiceException) ex).getCode(), ex.getMessage());
         }
+        LOG.error("Payment service unknown exception", ex);
+        return Message.failure(ErrorCode.SYSTEM_UNKNOWN_ERROR, "系统未知异常，请联系系统管理员");
+    }
 
+    /**
+     * 应答数据序列化一次（UTF-8字节），签名和写回直接使用应答缓冲区
+     */
+    private void sendReply(HttpServletRequest request, HttpServletResponse response, Message<?> result,
+                           ApplicationPermit application, boolean signCheck) {
+        Timer.Sample sample = PaymentMetrics.start();
+        PayloadBuffer reply = PayloadCodec.toJsonBytes(result);
         // 处理数据签名: 忽略签名失败，签名失败时调用方会验签失败
-        MessageEnvelop reply = MessageEnvelop.of(null, JsonUtils.toJsonString(result));
         try {
             if (signCheck) {
-                reply.packEnvelop(application.getMerchant().getPrivateKey());
-                response.addHeader(Constants.PARAM_SIGNATURE, reply.getSignature());
+                String signature = SignatureUtils.sign(application, reply.array(), 0, reply.length());
+                response.addHeader(Constants.PARAM_SIGNATURE, signature);
             }
         } catch (Exception ex) {
             LOG.error("Payment service data sign exception", ex.getMessage());
         }
-        HttpUtils.sendResponse(response, reply.getPayload());
+        HttpUtils.sendResponse(request, response, reply, gzipThreshold);
+        PaymentMetrics.summary(METRIC_REPLY + ".bytes", reply.length());
+        PaymentMetrics.stop(sample, METRIC_REPLY, null);
+    }
+
+    /**
+     * 按应用签名方式使用接入许可中已解析的密钥验证请求原始字节数据的签名，RSA验签逻辑与MessageEnvelop.unpackEnvelop一致
+     */
+    private void unpackPayload(PayloadBuffer payload, String signature, ApplicationPermit application) {
+        AssertUtils.notEmpty(signature, "signature missed");
+        boolean result;
+        try {
+            result = SignatureUtils.verify(application, payload.array(), 0, payload.length(), signature);
+        } catch (Exception ex) {
+            throw new MessageEnvelopException("数据拆包失败", ex);
+        }
+        if (!result) {
+            throw new MessageEnvelopException(ErrorCode.UNAUTHORIZED_ACCESS_ERROR, "数据拆包异常：验签失败");
+        }
+    }
+
+    /**
+     * 获取服务组件，与ICallableServiceManager.callService逻辑一致；管理服务只允许通过支付管理后台访问
+     */
+    @SuppressWarnings("unchecked")
+    private CallableServiceEndpoint<Object> endpoint(String service) {
+        if (isAdminService(service)) {
+            throw new ServiceAccessException(ErrorCode.UNAUTHORIZED_ACCESS_ERROR, "未授权的服务访问");
+        }
+        CallableServiceEndpoint<Object> endpoint = (CallableServiceEndpoint<Object>) callableServiceEngine.callableServiceEndpoint(service);
+        if (endpoint == null) {
+            throw new ServiceAccessException(ErrorCode.SERVICE_NOT_AVAILABLE, String.format("Callable service {%s} unavailable", service));
+        }
+        return endpoint;
+    }
+
+    /**
+     * 判断是否为管理服务：接入许可注册服务和支付管理后台服务
+     */
+    private boolean isAdminService(String service) {
+        return service.startsWith(Constants.PARAM_PERMIT_SERVICE) || service.startsWith(Constants.PARAM_SPI_SERVICE);
+    }
+
+    /**
+     * 创建服务组件调用，服务参数已在当前线程反序列化
+     */
+    private AsyncDispatcher.ServiceCall serviceCall(RequestContext context, CallableServiceEndpoint<Object> endpoint,
+                                                    Object data) {
+        ServiceRequest<Object> request = new ServiceRequest<>();
+        request.setContext(context);
+        request.setData(data);
+        return () -> {
+            Object result = endpoint.call(request);
+            return result instanceof Message ? (Message<?>) result : Message.success(result);
+        };
     }
 
     /**
      * 检查接口访问权限，验证应用accessToken
      */
-    private ApplicationPermit checkAccessPermission(RequestContext context, Long mchId, MessageEnvelop envelop) {
-        ApplicationPermit application = accessPermitService.loadApplicationPermit(mchId, envelop.getAppId());
+    private ApplicationPermit checkAccessPermission(RequestContext context, Long mchId, Long appId, String accessToken) {
+        ApplicationPermit application = accessPermitService.loadApplicationPermit(mchId, appId);
 
         // 校验应用访问权限, 暂时不校验商户状态
-        if (!ObjectUtils.equals(envelop.getAccessToken(), application.getAccessToken())) {
+        if (!ObjectUtils.equals(accessToken, application.getAccessToken())) {
             throw new ServiceAccessException(ErrorCode.UNAUTHORIZED_ACCESS_ERROR, "未授权的服务访问");
         }
         context.put(ApplicationPermit.class.getName(), application);
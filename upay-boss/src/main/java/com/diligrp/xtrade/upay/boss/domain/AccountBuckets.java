@@ -0,0 +1,27 @@
+package com.diligrp.xtrade.upay.boss.domain;
+
+/**
+ * 账户资金分桶接口层模型
+ */
+public class AccountBuckets {
+    // 主资金账号ID
+    private Long accountId;
+    // 分桶数量
+    private Integer buckets;
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public Integer getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(Integer buckets) {
+        this.buckets = buckets;
+    }
+}
@@ -0,0 +1,79 @@
+package com.diligrp.xtrade.upay.boss.domain;
+
+/**
+ * 热点账户资金修改竞争模型
+ */
+public class AccountContention {
+    // 主账号ID
+    private Long accountId;
+    // 近期乐观锁冲突次数
+    private Long conflicts;
+    // 冲突次数误差上限
+    private Long conflictError;
+    // 近期资金事务提交次数
+    private Long submits;
+    // 锁模式
+    private Integer mode;
+    // 锁模式名称
+    private String modeName;
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public Long getConflicts() {
+        return conflicts;
+    }
+
+    public void setConflicts(Long conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    public Long getConflictError() {
+        return conflictError;
+    }
+
+    public void setConflictError(Long conflictError) {
+        this.conflictError = conflictError;
+    }
+
+    public Long getSubmits() {
+        return submits;
+    }
+
+    public void setSubmits(Long submits) {
+        this.submits = submits;
+    }
+
+    public Integer getMode() {
+        return mode;
+    }
+
+    public void setMode(Integer mode) {
+        this.mode = mode;
+    }
+
+    public String getModeName() {
+        return modeName;
+    }
+
+    public void setModeName(String modeName) {
+        this.modeName = modeName;
+    }
+
+    public static AccountContention of(Long accountId, Long conflicts, Long conflictError, Long submits,
+                                       Integer mode, String modeName) {
+        AccountContention contention = new AccountContention();
+        contention.setAccountId(accountId);
+        contention.setConflicts(conflicts);
+        contention.setConflictError(conflictError);
+        contention.setSubmits(submits);
+        contention.setMode(mode);
+        contention.setModeName(modeName);
+        return contention;
+    }
+}
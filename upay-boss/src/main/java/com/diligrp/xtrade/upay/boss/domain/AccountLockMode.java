@@ -0,0 +1,45 @@
+package com.diligrp.xtrade.upay.boss.domain;
+
+/**
+ * 账户资金修改锁模式模型
+ */
+public class AccountLockMode {
+    // 账号ID
+    private Long accountId;
+    // 锁模式
+    private Integer mode;
+    // 锁模式名称
+    private String modeName;
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public Integer getMode() {
+        return mode;
+    }
+
+    public void setMode(Integer mode) {
+        this.mode = mode;
+    }
+
+    public String getModeName() {
+        return modeName;
+    }
+
+    public void setModeName(String modeName) {
+        this.modeName = modeName;
+    }
+
+    public static AccountLockMode of(Long accountId, Integer mode, String modeName) {
+        AccountLockMode lockMode = new AccountLockMode();
+        lockMode.setAccountId(accountId);
+        lockMode.setMode(mode);
+        lockMode.setModeName(modeName);
+        return lockMode;
+    }
+}
@@ -0,0 +1,29 @@
+package com.diligrp.xtrade.upay.boss.domain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * 批量服务调用接口层模型
+ */
+public class BatchCall {
+    // 服务名，与支付网关服务参数一致
+    private String service;
+    // 服务参数，按服务组件的参数类型转换
+    private JsonNode data;
+
+    public String getService() {
+        return service;
+    }
+
+    public void setService(String service) {
+        this.service = service;
+    }
+
+    public JsonNode getData() {
+        return data;
+    }
+
+    public void setData(JsonNode data) {
+        this.data = data;
+    }
+}
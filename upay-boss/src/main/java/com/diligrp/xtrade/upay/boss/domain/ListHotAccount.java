@@ -0,0 +1,17 @@
+package com.diligrp.xtrade.upay.boss.domain;
+
+/**
+ * 查询热点账户
+ */
+public class ListHotAccount {
+    // 返回账户数量
+    private Integer top = 20;
+
+    public Integer getTop() {
+        return top;
+    }
+
+    public void setTop(Integer top) {
+        this.top = top;
+    }
+}
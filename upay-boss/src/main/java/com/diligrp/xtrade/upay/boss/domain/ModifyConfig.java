@@ -0,0 +1,27 @@
+package com.diligrp.xtrade.upay.boss.domain;
+
+/**
+ * 修改数据字典配置接口层模型
+ */
+public class ModifyConfig {
+    // 数据字典ID
+    private Long id;
+    // 参数配置值
+    private String value;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+}
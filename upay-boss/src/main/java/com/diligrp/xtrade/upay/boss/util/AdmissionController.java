@@ -0,0 +1,346 @@
+package com.diligrp.xtrade.upay.boss.util;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.diligrp.xtrade.upay.core.ErrorCode;
+import com.diligrp.xtrade.upay.core.dao.IDataDictionaryDao;
+import com.diligrp.xtrade.upay.core.exception.PaymentServiceException;
+import com.diligrp.xtrade.upay.core.model.DataDictionary;
+import com.diligrp.xtrade.upay.core.util.Constants;
+import com.diligrp.xtrade.upay.core.util.PaymentMetrics;
+import com.diligrp.xtrade.upay.core.util.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 接入控制器：按应用和服务限制调用速率及并发调用数
+ *
+ * 限额配置在数据字典中，应用限额分组为AppLimitCfg（参数编码为appId），服务限额分组为ServiceLimitCfg（参数编码为服务名），
+ * 参数值格式：每秒调用数,突发调用数,并发调用数（@see RateLimiter.Limit），未配置的应用和服务使用默认限额，默认限额为空时不限制；
+ * 数据字典定时重新加载，修改限额不影响执行中的调用。接入检查在网关分发服务调用前执行，全程无锁，超过限额时立即返回ACCESS_LIMITED。
+ * 自适应模式下定时检查数据库连接池平均等待时间和资金引擎乐观锁冲突率，任一超过阈值时按比例降低所有限额（乘性减小），
+ * 恢复正常后逐步提高到配置的限额（加性增大）；限额比例通过监控指标upay.admission.factor输出，拒绝次数通过upay.admission.rejected输出
+ */
+@Component("admissionController")
+public class AdmissionController {
+
+    private static final String METRIC_REJECTED = "upay.admission.rejected";
+
+    private static final String METRIC_CAS = "upay.fund.engine.cas";
+
+    // 过载时限额比例的减小系数
+    private static final double DECREASE_RATIO = 0.7;
+
+    // 恢复正常时限额比例每次增加的值
+    private static final double INCREASE_STEP = 0.05;
+
+    // 计算乐观锁冲突率的最少修改次数，避免样本过少时误判
+    private static final long MIN_CAS_SAMPLES = 20;
+
+    private Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    @Resource
+    private IDataDictionaryDao dataDictionaryDao;
+
+    @Resource
+    private DataSource dataSource;
+
+    // 是否启用接入控制
+    @Value("${upay.admission.enable:true}")
+    private boolean enable;
+
+    // 未配置应用的默认限额，为空时不限制
+    @Value("${upay.admission.default-app-limit:}")
+    private String defaultAppLimit;
+
+    // 未配置服务的默认限额，为空时不限制
+    @Value("${upay.admission.default-service-limit:}")
+    private String defaultServiceLimit;
+
+    // 是否启用自适应限额
+    @Value("${upay.admission.adaptive.enable:true}")
+    private boolean adaptiveEnable;
+
+    // 数据库连接池平均等待时间阈值-毫秒
+    @Value("${upay.admission.adaptive.max-wait:50}")
+    private long maxWaitMillis;
+
+    // 资金引擎乐观锁冲突率阈值
+    @Value("${upay.admission.adaptive.max-conflict-rate:0.2}")
+    private double maxConflictRate;
+
+    // 限额比例下限
+    @Value("${upay.admission.adaptive.min-factor:0.2}")
+    private double minFactor;
+
+    private final Limits apps = new Limits("app");
+
+    private final Limits services = new Limits("service");
+
+    // 所有限额的比例(0, 1]
+    private volatile double factor = 1.0;
+
+    private DruidDataSource druidDataSource;
+
+    private long lastWaitCount;
+
+    private long lastWaitMillis;
+
+    private double lastCasCount;
+
+    private double lastConflictCount;
+
+    @PostConstruct
+    public void init() {
+        apps.defaultLimit = RateLimiter.Limit.parse(defaultAppLimit);
+        services.defaultLimit = RateLimiter.Limit.parse(defaultServiceLimit);
+        try {
+            if (dataSource.isWrapperFor(DruidDataSource.class)) {
+                druidDataSource = dataSource.unwrap(DruidDataSource.class);
+            }
+        } catch (Exception ex) {
+            LOG.warn("Druid datasource unavailable, adaptive admission ignores connection wait time", ex);
+        }
+        Gauge.builder("upay.admission.factor", this, controller -> controller.factor).register(PaymentMetrics.registry());
+        if (enable) {
+            refreshLimits();
+        }
+    }
+
+    /**
+     * 单个服务调用的接入检查，超过限额时抛出PaymentServiceException(ACCESS_LIMITED)；
+     * 返回的接入许可必须在调用结束或被拒绝后释放
+     */
+    public Permit acquire(Long appId, String service) {
+        return acquire(appId, Collections.singletonMap(service, 1), true);
+    }
+
+    /**
+     * 批量调用的接入检查：应用和服务分别获取调用次数的令牌（服务名-调用次数），批量调用只占用应用的一个并发数，
+     * 批量调用中各服务调用的并发数由批量调用并行数限制，不检查服务并发限额
+     */
+    public Permit acquireBatch(Long appId, Map<String, Integer> calls) {
+        return acquire(appId, calls, false);
+    }
+
+    private Permit acquire(Long appId, Map<String, Integer> calls, boolean serviceConcurrency) {
+        if (!enable) {
+            return Permit.NONE;
+        }
+
+        double factor = this.factor;
+        Permit permit = new Permit();
+        RateLimiter appLimiter = apps.limiter(String.valueOf(appId));
+        if (appLimiter != null) {
+            if (!appLimiter.tryEnter(factor)) {
+                throw rejected(permit, apps, "concurrency", appId);
+            }
+            permit.entered.add(appLimiter);
+        }
+
+        List<RateLimiter> serviceLimiters = new ArrayList<>(calls.size());
+        for (String service : calls.keySet()) {
+            RateLimiter limiter = services.limiter(service);
+            serviceLimiters.add(limiter);
+            if (serviceConcurrency && limiter != null) {
+                if (!limiter.tryEnter(factor)) {
+                    throw rejected(permit, services, "concurrency", service);
+                }
+                permit.entered.add(limiter);
+            }
+        }
+
+        // 先获取服务令牌再获取应用令牌，任一限额检查失败时退还已获取的令牌，被拒绝的调用不消耗应用和其他服务的限额
+        int index = 0;
+        for (Map.Entry<String, Integer> entry : calls.entrySet()) {
+            RateLimiter limiter = serviceLimiters.get(index);
+            if (limiter != null && !limiter.tryAcquire(entry.getValue(), factor)) {
+                refund(calls, serviceLimiters, index, factor);
+                throw rejected(permit, services, "rate", entry.getKey());
+            }
+            index++;
+        }
+        int total = calls.values().stream().mapToInt(Integer::intValue).sum();
+        if (appLimiter != null && !appLimiter.tryAcquire(total, factor)) {
+            refund(calls, serviceLimiters, serviceLimiters.size(), factor);
+            throw rejected(permit, apps, "rate", appId);
+        }
+        return permit;
+    }
+
+    /**
+     * 退还前count个服务已获取的令牌
+     */
+    private void refund(Map<String, Integer> calls, List<RateLimiter> serviceLimiters, int count, double factor) {
+        int index = 0;
+        for (Integer permits : calls.values()) {
+            if (index >= count) {
+                break;
+            }
+            RateLimiter limiter = serviceLimiters.get(index++);
+            if (limiter != null) {
+                limiter.refund(permits, factor);
+            }
+        }
+    }
+
+    private PaymentServiceException rejected(Permit permit, Limits limits, String reason, Object key) {
+        permit.release();
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Service call rejected, {} {} limit exceeded: {}", limits.scope, reason, key);
+        }
+        limits.rejected(reason).increment();
+        return new PaymentServiceException(ErrorCode.ACCESS_LIMITED, "访问超过限额，请稍后重试");
+    }
+
+    /**
+     * 定时重新加载数据字典中的限额配置，配置格式错误时忽略该配置
+     */
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${upay.admission.refresh-interval:60000}")
+    public void refreshLimits() {
+        if (!enable) {
+            return;
+        }
+        try {
+            apps.refresh(dataDictionaryDao.findDataDictionaries(null, Constants.APP_LIMIT_GROUP));
+            services.refresh(dataDictionaryDao.findDataDictionaries(null, Constants.SERVICE_LIMIT_GROUP));
+        } catch (Exception ex) {
+            LOG.error("Refresh admission limits failed", ex);
+        }
+    }
+
+    /**
+     * 定时根据数据库连接池平均等待时间和资金引擎乐观锁冲突率调整限额比例
+     */
+    @Scheduled(initialDelay = 10000, fixedDelayString = "${upay.admission.adaptive.interval:1000}")
+    public void adaptLimits() {
+        if (!enable || !adaptiveEnable) {
+            return;
+        }
+
+        boolean overloaded = false;
+        if (druidDataSource != null) {
+            long waitCount = druidDataSource.getNotEmptyWaitCount();
+            long waitMillis = druidDataSource.getNotEmptyWaitMillis();
+            long waits = waitCount - lastWaitCount;
+            if (waits > 0 && (waitMillis - lastWaitMillis) / waits > maxWaitMillis) {
+                overloaded = true;
+            }
+            lastWaitCount = waitCount;
+            lastWaitMillis = waitMillis;
+        }
+
+        double casCount = 0, conflictCount = 0;
+        for (Counter counter : PaymentMetrics.registry().find(METRIC_CAS).counters()) {
+            casCount += counter.count();
+            if ("conflict".equals(counter.getId().getTag(PaymentMetrics.TAG_RESULT))) {
+                conflictCount += counter.count();
+            }
+        }
+        double cas = casCount - lastCasCount;
+        if (cas >= MIN_CAS_SAMPLES && (conflictCount - lastConflictCount) / cas > maxConflictRate) {
+            overloaded = true;
+        }
+        lastCasCount = casCount;
+        lastConflictCount = conflictCount;
+
+        double current = this.factor;
+        double next = overloaded ? Math.max(minFactor, current * DECREASE_RATIO) : Math.min(1.0, current + INCREASE_STEP);
+        if (next != current) {
+            if (overloaded) {
+                LOG.warn("System overloaded, admission limits lowered to {}%", Math.round(next * 100));
+            }
+            this.factor = next;
+        }
+    }
+
+    /**
+     * 一组限额（应用或服务），未配置限额的限流器在首次访问时按默认限额创建，调用方需保证键取值有限（已授权应用、已注册服务）
+     */
+    private class Limits {
+        private final String scope;
+        private final ConcurrentMap<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+        private final Map<String, Counter> rejections = new HashMap<>();
+        private volatile Map<String, RateLimiter.Limit> configs = Collections.emptyMap();
+        private volatile RateLimiter.Limit defaultLimit;
+
+        Limits(String scope) {
+            this.scope = scope;
+            for (String reason : new String[] {"rate", "concurrency"}) {
+                rejections.put(reason, PaymentMetrics.registry().counter(METRIC_REJECTED, "scope", scope, "reason", reason));
+            }
+        }
+
+        RateLimiter limiter(String key) {
+            RateLimiter limiter = limiters.get(key);
+            if (limiter != null) {
+                return limiter;
+            }
+            RateLimiter.Limit limit = configs.getOrDefault(key, defaultLimit);
+            return limit == null ? null : limiters.computeIfAbsent(key, k -> new RateLimiter(limit));
+        }
+
+        Counter rejected(String reason) {
+            return rejections.get(reason);
+        }
+
+        /**
+         * 更新已有限流器的限额，删除不再限制的限流器（执行中的调用仍由接入许可释放）
+         */
+        void refresh(List<DataDictionary> dictionaries) {
+            Map<String, RateLimiter.Limit> newConfigs = new HashMap<>();
+            for (DataDictionary dictionary : dictionaries) {
+                try {
+                    RateLimiter.Limit limit = RateLimiter.Limit.parse(dictionary.getValue());
+                    if (limit != null) {
+                        newConfigs.put(dictionary.getCode(), limit);
+                    }
+                } catch (IllegalArgumentException ex) {
+                    LOG.error("Invalid {} limit config: {}={}", scope, dictionary.getCode(), dictionary.getValue());
+                }
+            }
+            configs = newConfigs;
+            for (Map.Entry<String, RateLimiter> entry : limiters.entrySet()) {
+                RateLimiter.Limit limit = newConfigs.getOrDefault(entry.getKey(), defaultLimit);
+                if (limit == null) {
+                    limiters.remove(entry.getKey(), entry.getValue());
+                } else {
+                    entry.getValue().update(limit);
+                }
+            }
+        }
+    }
+
+    /**
+     * 接入许可，释放时结束已占用的并发数，重复释放无影响
+     */
+    public static class Permit {
+        private static final Permit NONE = new Permit();
+
+        private final List<RateLimiter> entered = new ArrayList<>(2);
+
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        public void release() {
+            if (!entered.isEmpty() && released.compareAndSet(false, true)) {
+                entered.forEach(RateLimiter::exit);
+            }
+        }
+    }
+}
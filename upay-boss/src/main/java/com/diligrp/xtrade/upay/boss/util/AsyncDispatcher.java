@@ -0,0 +1,234 @@
+package com.diligrp.xtrade.upay.boss.util;
+
+import com.diligrp.xtrade.shared.domain.Message;
+import com.diligrp.xtrade.upay.core.ErrorCode;
+import com.diligrp.xtrade.upay.core.type.TaskPool;
+import com.diligrp.xtrade.upay.core.util.AsyncTaskExecutor;
+import com.diligrp.xtrade.upay.core.util.PaymentMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.seata.core.context.RootContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 服务调用异步分发器
+ *
+ * 服务调用通过Servlet异步处理分发到有界线程池（见TaskPool）执行，Tomcat工作线程立即释放；每个隔离键（商户或服务）
+ * 执行中和排队的调用数不超过上限（舱壁隔离），因此单个商户的批量调用最多占用上限个线程和数据库连接，不影响其他商户。
+ * 隔离键调用数超过上限或线程池已满时直接返回服务繁忙（ErrorCode.SERVICE_BUSY），处理超时返回服务处理超时；
+ * 请求线程绑定的Seata全局事务XID传递到执行线程。分发结果通过监控指标upay.dispatch.*输出（标签pool）
+ */
+@Component("asyncDispatcher")
+public class AsyncDispatcher {
+
+    private static final String METRIC_DISPATCH = "upay.dispatch";
+
+    private static final String METRIC_REJECTED = "upay.dispatch.rejected";
+
+    private static final String METRIC_TIMEOUT = "upay.dispatch.timeout";
+
+    private Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    // 每个隔离键执行中和排队的最大调用数
+    @Value("${upay.dispatch.bulkhead.max-calls:8}")
+    private int maxCalls;
+
+    // 异步处理超时时间-毫秒
+    @Value("${upay.dispatch.timeout:30000}")
+    private long timeoutMillis;
+
+    private final ConcurrentMap<String, Semaphore> bulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * 异步执行服务调用，通过replier写回调用结果或异常转换后的结果；请求被拒绝时在当前线程写回服务繁忙
+     *
+     * 隔离键只允许使用取值有限且经过校验的数据（已授权的商户ID、已注册的服务），避免隔离键无限增长
+     */
+    public void dispatch(HttpServletRequest request, TaskPool pool, String key, ServiceCall call,
+                         Function<Throwable, Message<?>> errorHandler, Consumer<Message<?>> replier) {
+        dispatch(request, pool, key, 0, call, errorHandler, replier, null);
+    }
+
+    /**
+     * 使用指定的异步处理超时时间-毫秒（小于等于0时使用默认超时时间）异步执行服务调用，
+     * onRelease在调用执行结束或被拒绝时执行一次（比如：释放接入许可），可为null
+     */
+    public void dispatch(HttpServletRequest request, TaskPool pool, String key, long timeoutMillis, ServiceCall call,
+                         Function<Throwable, Message<?>> errorHandler, Consumer<Message<?>> replier, Runnable onRelease) {
+        String tag = pool.name().toLowerCase();
+        Semaphore semaphore = bulkheads.computeIfAbsent(key, k -> new Semaphore(maxCalls));
+        // 释放舱壁许可，同时执行调用方的释放操作
+        Runnable release = () -> {
+            semaphore.release();
+            if (onRelease != null) {
+                onRelease.run();
+            }
+        };
+        if (!semaphore.tryAcquire()) {
+            if (onRelease != null) {
+                onRelease.run();
+            }
+            LOG.warn("Service call rejected, too many calls in flight: {}", key);
+            PaymentMetrics.increment(METRIC_REJECTED, "pool", tag, "reason", "bulkhead");
+            replier.accept(Message.failure(ErrorCode.SERVICE_BUSY, "系统正忙，请稍后重试"));
+            return;
+        }
+
+        AsyncContext asyncContext;
+        try {
+            asyncContext = request.startAsync();
+            asyncContext.setTimeout(timeoutMillis > 0 ? timeoutMillis : this.timeoutMillis);
+        } catch (RuntimeException ex) {
+            release.run();
+            throw ex;
+        }
+        // 执行线程和超时回调只有一方写回应答，避免超时后写回已回收的应答对象
+        AtomicBoolean replied = new AtomicBoolean(false);
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                if (replied.compareAndSet(false, true)) {
+                    LOG.error("Service call timeout: {}", key);
+                    PaymentMetrics.increment(METRIC_TIMEOUT, "pool", tag);
+                    complete(asyncContext, replier, Message.failure(ErrorCode.SERVICE_TIMEOUT, "服务处理超时"));
+                }
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        String xid = RootContext.getXID();
+        Timer.Sample sample = PaymentMetrics.start();
+        try {
+            AsyncTaskExecutor.executor(pool).execute(() -> {
+                Message<?> result;
+                try {
+                    result = invoke(call, xid, errorHandler);
+                } finally {
+                    release.run();
+                }
+                PaymentMetrics.stop(sample, METRIC_DISPATCH, null, "pool", tag);
+                if (replied.compareAndSet(false, true)) {
+                    complete(asyncContext, replier, result);
+                }
+            });
+        } catch (RejectedExecutionException rex) {
+            release.run();
+            LOG.warn("Service call rejected, task pool is full: {}", key);
+            PaymentMetrics.increment(METRIC_REJECTED, "pool", tag, "reason", "pool");
+            if (replied.compareAndSet(false, true)) {
+                complete(asyncContext, replier, Message.failure(ErrorCode.SERVICE_BUSY, "系统正忙，请稍后重试"));
+            }
+        }
+    }
+
+    /**
+     * 在指定线程池中并行执行一组服务调用并等待全部完成，按调用顺序返回每个调用的结果；
+     * 同时执行的调用数不超过concurrency，线程池已满时该调用返回服务繁忙，其他调用继续执行。
+     *
+     * 当前线程须已持有隔离键的许可（由dispatch分发），每个调用在线程池中执行时同样占用隔离键的许可，
+     * 隔离键许可不足时在当前线程执行该调用，因此同一商户的批量调用占用的线程数也不超过舱壁上限
+     */
+    public List<Message<?>> invokeAll(TaskPool pool, String key, List<ServiceCall> calls, int concurrency,
+                                      Function<Throwable, Message<?>> errorHandler) throws InterruptedException {
+        Message<?>[] results = new Message<?>[calls.size()];
+        Semaphore permits = new Semaphore(concurrency);
+        Semaphore semaphore = bulkheads.computeIfAbsent(key, k -> new Semaphore(maxCalls));
+        String xid = RootContext.getXID();
+        Executor executor = AsyncTaskExecutor.executor(pool);
+        for (int i = 0; i < calls.size(); i++) {
+            permits.acquire();
+            int index = i;
+            if (!semaphore.tryAcquire()) {
+                // 当前线程已绑定Seata全局事务XID
+                try {
+                    results[index] = invoke(calls.get(index), null, errorHandler);
+                } finally {
+                    permits.release();
+                }
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        results[index] = invoke(calls.get(index), xid, errorHandler);
+                    } finally {
+                        semaphore.release();
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException rex) {
+                semaphore.release();
+                permits.release();
+                PaymentMetrics.increment(METRIC_REJECTED, "pool", pool.name().toLowerCase(), "reason", "pool");
+                results[index] = Message.failure(ErrorCode.SERVICE_BUSY, "系统正忙，请稍后重试");
+            }
+        }
+        // 获取所有许可即所有调用执行完成，许可释放前写入的结果对当前线程可见
+        permits.acquire(concurrency);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 在当前线程执行服务调用，绑定请求线程的Seata全局事务XID
+     */
+    private Message<?> invoke(ServiceCall call, String xid, Function<Throwable, Message<?>> errorHandler) {
+        if (xid != null) {
+            RootContext.bind(xid);
+        }
+        try {
+            return call.call();
+        } catch (Throwable ex) {
+            return errorHandler.apply(ex);
+        } finally {
+            if (xid != null) {
+                RootContext.unbind();
+            }
+        }
+    }
+
+    /**
+     * 服务调用，异常由分发器的异常处理转换为调用结果
+     */
+    @FunctionalInterface
+    public interface ServiceCall {
+        Message<?> call() throws Throwable;
+    }
+
+    private void complete(AsyncContext asyncContext, Consumer<Message<?>> replier, Message<?> result) {
+        try {
+            replier.accept(result);
+        } catch (Exception ex) {
+            LOG.error("Failed to write service call result back", ex);
+        } finally {
+            asyncContext.complete();
+        }
+    }
+}
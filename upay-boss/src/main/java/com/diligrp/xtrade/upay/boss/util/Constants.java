@@ -21,4 +21,6 @@ public final class Constants {
     public final static String CONTENT_TYPE = "application/json;charset=UTF-8";
 
     public final static String PARAM_PERMIT_SERVICE = "payment.permit.register";
+
+    public final static String PARAM_SPI_SERVICE = "payment.spi.";
 }
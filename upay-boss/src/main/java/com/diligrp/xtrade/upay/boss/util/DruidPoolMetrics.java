@@ -0,0 +1,52 @@
+package com.diligrp.xtrade.upay.boss.util;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Druid数据库连接池监控指标：活跃连接数、空闲连接数、等待获取连接的线程数及累计等待次数
+ *
+ * 数据源可能被Seata代理，需通过unwrap获取Druid数据源
+ */
+@Component
+public class DruidPoolMetrics implements MeterBinder {
+
+    private Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    @Resource
+    private DataSource dataSource;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        DruidDataSource druidDataSource;
+        try {
+            if (!dataSource.isWrapperFor(DruidDataSource.class)) {
+                return;
+            }
+            druidDataSource = dataSource.unwrap(DruidDataSource.class);
+        } catch (SQLException ex) {
+            LOG.warn("Druid datasource metrics unavailable", ex);
+            return;
+        }
+
+        gauge(registry, "upay.datasource.active", druidDataSource, DruidDataSource::getActiveCount);
+        gauge(registry, "upay.datasource.idle", druidDataSource, DruidDataSource::getPoolingCount);
+        gauge(registry, "upay.datasource.max", druidDataSource, DruidDataSource::getMaxActive);
+        gauge(registry, "upay.datasource.wait.threads", druidDataSource, DruidDataSource::getWaitThreadCount);
+        gauge(registry, "upay.datasource.wait.count", druidDataSource, DruidDataSource::getNotEmptyWaitCount);
+    }
+
+    private void gauge(MeterRegistry registry, String name, DruidDataSource dataSource, ToDoubleFunction<DruidDataSource> f) {
+        Gauge.builder(name, dataSource, f).register(registry);
+    }
+}
@@ -1,14 +1,16 @@
 package com.diligrp.xtrade.upay.boss.util;
 
 import com.diligrp.xtrade.shared.domain.RequestContext;
+import com.diligrp.xtrade.upay.core.util.PayloadBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.util.Enumeration;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * HTTP工具类
@@ -17,13 +19,24 @@ public final class HttpUtils {
 
     private static Logger LOG = LoggerFactory.getLogger(HttpUtils.class);
 
+    private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+
+    private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+
+    private static final String HEADER_VARY = "Vary";
+
+    private static final String ENCODING_GZIP = "gzip";
+
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
     public static String httpBody(HttpServletRequest request) {
         StringBuilder payload = new StringBuilder();
         try {
-            String line;
-            BufferedReader reader = request.getReader();
-            while ((line = reader.readLine()) != null) {
-                payload.append(line);
+            int count;
+            char[] buffer = new char[1024];
+            Reader reader = request.getReader();
+            while ((count = reader.read(buffer)) >= 0) {
+                payload.append(buffer, 0, count);
             }
         } catch (IOException iex) {
             LOG.error("Failed to extract http body", iex);
@@ -32,6 +45,13 @@ public final class HttpUtils {
         return payload.toString();
     }
 
+    /**
+     * 按字节读取HTTP请求数据到当前线程的缓冲区，缓冲区数据只在当前请求处理期间有效
+     */
+    public static PayloadBuffer httpPayload(HttpServletRequest request) throws IOException {
+        return PayloadBuffer.read(request.getInputStream(), request.getContentLength());
+    }
+
     public static final void sendResponse(HttpServletResponse response, String payload) {
         try {
             response.setContentType(Constants.CONTENT_TYPE);
@@ -44,6 +64,35 @@ public final class HttpUtils {
         }
     }
 
+    /**
+     * 应答缓冲区数据直接写回，数据长度达到压缩阈值且客户端支持gzip时压缩（阈值小于等于0时不压缩）；
+     * 数据签名针对压缩前的数据，客户端解压后验签
+     */
+    public static void sendResponse(HttpServletRequest request, HttpServletResponse response, PayloadBuffer payload,
+                                    int gzipThreshold) {
+        try {
+            response.setContentType(Constants.CONTENT_TYPE);
+            if (gzipThreshold > 0 && payload.length() >= gzipThreshold && acceptGzip(request)) {
+                response.setHeader(HEADER_CONTENT_ENCODING, ENCODING_GZIP);
+                response.addHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING);
+                GZIPOutputStream out = new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_SIZE);
+                payload.writeTo(out);
+                out.finish();
+            } else {
+                response.setContentLength(payload.length());
+                payload.writeTo(response.getOutputStream());
+            }
+            response.flushBuffer();
+        } catch (IOException iex) {
+            LOG.error("Failed to write data packet back");
+        }
+    }
+
+    private static boolean acceptGzip(HttpServletRequest request) {
+        String encoding = request.getHeader(HEADER_ACCEPT_ENCODING);
+        return encoding != null && encoding.toLowerCase().contains(ENCODING_GZIP);
+    }
+
     public static RequestContext requestContext(HttpServletRequest request) {
         RequestContext context = new RequestContext();
         Enumeration<String> headers = request.getHeaderNames();
@@ -1,18 +1,18 @@
 package com.diligrp.xtrade.upay.channel.domain;
 
 import com.diligrp.xtrade.shared.util.AssertUtils;
-import com.diligrp.xtrade.upay.core.domain.FundActivity;
 import com.diligrp.xtrade.upay.core.domain.FundTransaction;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Optional;
 
 /**
  * 账户/余额渠道领域模型
  */
 public class AccountChannel {
+    // 资金流初始容量，满足绝大部分业务（交易资金和佣金）无需扩容
+    private static final int INITIAL_ACTIVITIES = 4;
     // 支付ID
     private String paymentId;
     // 资金账号ID
@@ -51,8 +51,12 @@ public class AccountChannel {
         private int tradeType;
         // 冻结金额 - 正数时为资金冻结, 负数时为资金解冻
         private long frozenAmount = 0;
-        // 资金流
-        private List<FundActivity> funds = new ArrayList<>();
+        // 资金流数量
+        private int activities = 0;
+        // 资金流金额、资金类型和资金描述，按下标一一对应
+        private long[] amounts = new long[INITIAL_ACTIVITIES];
+        private int[] types = new int[INITIAL_ACTIVITIES];
+        private String[] typeNames = new String[INITIAL_ACTIVITIES];
         // 发生时间
         private LocalDateTime when;
 
@@ -64,13 +68,13 @@ public class AccountChannel {
         @Override
         public void income(long amount, int type, String typeName) {
             AssertUtils.isTrue(amount > 0, "Invalid amount");
-            funds.add(FundActivity.of(amount, type, typeName));
+            addActivity(amount, type, typeName);
         }
 
         @Override
         public void outgo(long amount, int type, String typeName) {
             AssertUtils.isTrue(amount > 0, "Invalid amount");
-            funds.add(FundActivity.of(-amount, type, typeName));
+            addActivity(-amount, type, typeName);
         }
 
         @Override
@@ -87,14 +91,27 @@ public class AccountChannel {
 
         @Override
         public Optional<FundTransaction> fundTransaction() {
-            if (!funds.isEmpty()) {
+            if (activities > 0) {
                 AssertUtils.notEmpty(paymentId, "paymentId missed");
             } else if (frozenAmount == 0) {
                 return Optional.ofNullable(null);
             }
 
-            FundActivity[] fundActivities = funds.toArray(new FundActivity[funds.size()]);
-            return Optional.of(FundTransaction.of(paymentId, accountId, parentId, tradeType, frozenAmount, fundActivities, when));
+            return Optional.of(FundTransaction.of(paymentId, accountId, parentId, tradeType, frozenAmount,
+                amounts, types, typeNames, activities, when));
+        }
+
+        private void addActivity(long amount, int type, String typeName) {
+            if (activities == amounts.length) {
+                int capacity = activities << 1;
+                amounts = Arrays.copyOf(amounts, capacity);
+                types = Arrays.copyOf(types, capacity);
+                typeNames = Arrays.copyOf(typeNames, capacity);
+            }
+            amounts[activities] = amount;
+            types[activities] = type;
+            typeNames[activities] = typeName;
+            activities ++;
         }
     }
 }
\ No newline at end of file
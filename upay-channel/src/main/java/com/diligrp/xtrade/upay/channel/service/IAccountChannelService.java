@@ -8,6 +8,8 @@ import com.diligrp.xtrade.upay.core.domain.TransactionStatus;
 import com.diligrp.xtrade.upay.core.model.AccountFund;
 import com.diligrp.xtrade.upay.core.model.FundAccount;
 
+import java.util.List;
+
 /**
  * 账户/余额渠道服务接口
  */
@@ -27,6 +29,11 @@ public interface IAccountChannelService {
      */
     TransactionStatus submit(IFundTransaction transaction);
 
+    /**
+     * 批量提交同一业务的多个资金事务，按提交顺序返回每个资金事务的事务状态
+     */
+    List<TransactionStatus> submitAll(List<IFundTransaction> transactions);
+
     /**
      * 冻结平台账号
      */
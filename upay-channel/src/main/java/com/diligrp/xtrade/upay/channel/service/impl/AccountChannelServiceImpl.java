@@ -21,12 +21,16 @@ import com.diligrp.xtrade.upay.core.service.IFundAccountService;
 import com.diligrp.xtrade.upay.core.service.IFundStreamEngine;
 import com.diligrp.xtrade.upay.core.type.AccountState;
 import com.diligrp.xtrade.upay.core.util.AccountStateMachine;
+import com.diligrp.xtrade.upay.core.util.CircuitBreaker;
+import com.diligrp.xtrade.upay.core.util.ExpiringCounters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -41,6 +45,8 @@ public class AccountChannelServiceImpl implements IAccountChannelService {
 
     private final static int PASSWORD_ERROR_EXPIRE = 60 * 60 * 24 * 2;
 
+    private final static int LOCAL_ERRORS_MAX_SIZE = 100000;
+
     @Resource
     private IFundStreamEngine fundStreamEngine;
 
@@ -53,6 +59,12 @@ public class AccountChannelServiceImpl implements IAccountChannelService {
     @Resource
     private IRedisSystemService redisSystemService;
 
+    @Resource
+    private CircuitBreaker redisCircuitBreaker;
+
+    // Redis熔断或异常时本节点的密码错误次数（多节点部署时为近似值）
+    private final ExpiringCounters localErrors = new ExpiringCounters(LOCAL_ERRORS_MAX_SIZE);
+
     /**
      * {@inheritDoc}
      *
@@ -84,6 +96,21 @@ public class AccountChannelServiceImpl implements IAccountChannelService {
         return fundStreamEngine.submit(fundTransaction);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * 底层按主账号顺序修改账户资金并一次插入所有资金流水，任一资金事务没有资金变动将抛出异常
+     */
+    @Override
+    public List<TransactionStatus> submitAll(List<IFundTransaction> transactions) {
+        List<FundTransaction> fundTransactions = new ArrayList<>(transactions.size());
+        for (IFundTransaction transaction : transactions) {
+            fundTransactions.add(transaction.fundTransaction().orElseThrow(
+                () -> new PaymentChannelException(ErrorCode.ILLEGAL_ARGUMENT_ERROR, "无效资金事务")));
+        }
+        return fundStreamEngine.submitAll(fundTransactions);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -202,25 +229,18 @@ public class AccountChannelServiceImpl implements IAccountChannelService {
     }
 
     /**
-     * Redis缓存获取某个账号密码错误次数，缓存系统失败则返回-1不限制密码错误次数
+     * Redis缓存获取某个账号密码错误次数，Redis熔断或程序异常时使用本节点密码错误次数
      */
     private Long incAndGetErrors(String cachedKey) {
-        try {
-            return redisSystemService.incAndGet(cachedKey, PASSWORD_ERROR_EXPIRE);
-        } catch (Exception ex) {
-            LOG.error("Failed to incAndGet password error times", ex);
-        }
-        return -1L;
+        return redisCircuitBreaker.execute(() -> redisSystemService.incAndGet(cachedKey, PASSWORD_ERROR_EXPIRE),
+            () -> localErrors.incAndGet(cachedKey, PASSWORD_ERROR_EXPIRE));
     }
 
     /**
-     * Redis缓存删除某个账号密码错误次数
+     * Redis缓存和本节点删除某个账号密码错误次数，Redis熔断时只删除本节点密码错误次数
      */
     private void removeCachedErrors(String cachedKey) {
-        try {
-            redisSystemService.remove(cachedKey);
-        } catch (Exception ex) {
-            LOG.error("Failed to incAndGet password error times", ex);
-        }
+        localErrors.remove(cachedKey);
+        redisCircuitBreaker.run(() -> redisSystemService.remove(cachedKey));
     }
 }
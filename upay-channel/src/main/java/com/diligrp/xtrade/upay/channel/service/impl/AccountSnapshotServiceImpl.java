@@ -85,7 +85,7 @@ public class AccountSnapshotServiceImpl implements IAccountSnapshotService {
         params.put("lastSnapshotOn", lastSnapshotOn);
         params.put("startOn", lastSnapshotOn.plusDays(1));
         params.put("endOn", snapshotOn.plusDays(1));
-        BatchResultHandler resultHandler = new BatchResultHandler(snapshotOn);
+        BatchResultHandler resultHandler = new BatchResultHandler(accountSnapshotDao, snapshotOn);
         sqlSessionTemplate.select(MAPPER_STATEMENT, params, resultHandler);
         resultHandler.flush();
         guard.success();
@@ -93,9 +93,14 @@ public class AccountSnapshotServiceImpl implements IAccountSnapshotService {
         accountSnapshotDao.updateSnapshotGuardState(guard);
     }
 
-    private class BatchResultHandler implements ResultHandler<DailySnapshot> {
+    /**
+     * 快照数据批量处理器，包级可见便于基准测试
+     */
+    static class BatchResultHandler implements ResultHandler<DailySnapshot> {
         // 批量数量
         private static final int BATCH_SIZE = 4000;
+        // 快照数据访问层
+        private IAccountSnapshotDao accountSnapshotDao;
         // 批量数据缓存
         private List<DailySnapshot> snapshots = new ArrayList<>(BATCH_SIZE);
         // 快照日期
@@ -103,7 +108,8 @@ public class AccountSnapshotServiceImpl implements IAccountSnapshotService {
         // 插入时间
         private LocalDateTime when;
 
-        public BatchResultHandler(LocalDate snapshotOn) {
+        public BatchResultHandler(IAccountSnapshotDao accountSnapshotDao, LocalDate snapshotOn) {
+            this.accountSnapshotDao = accountSnapshotDao;
             this.snapshotOn = snapshotOn;
             this.when = LocalDateTime.now();
         }
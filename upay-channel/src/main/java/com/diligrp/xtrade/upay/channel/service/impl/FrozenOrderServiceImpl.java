@@ -2,7 +2,6 @@ package com.diligrp.xtrade.upay.channel.service.impl;
 
 import com.diligrp.xtrade.shared.domain.PageMessage;
 import com.diligrp.xtrade.shared.sequence.IKeyGenerator;
-import com.diligrp.xtrade.shared.sequence.KeyGeneratorManager;
 import com.diligrp.xtrade.upay.channel.dao.IFrozenOrderDao;
 import com.diligrp.xtrade.upay.channel.domain.AccountChannel;
 import com.diligrp.xtrade.upay.channel.domain.FreezeFundDto;
@@ -24,7 +23,7 @@ import com.diligrp.xtrade.upay.core.model.FundAccount;
 import com.diligrp.xtrade.upay.core.service.IFundAccountService;
 import com.diligrp.xtrade.upay.core.type.SequenceKey;
 import com.diligrp.xtrade.upay.core.util.AccountStateMachine;
-import com.diligrp.xtrade.upay.core.util.AsyncTaskExecutor;
+import com.diligrp.xtrade.upay.core.util.SegmentKeyManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -48,7 +47,7 @@ public class FrozenOrderServiceImpl implements IFrozenOrderService {
     private IFundAccountDao fundAccountDao;
 
     @Resource
-    private KeyGeneratorManager keyGeneratorManager;
+    private SegmentKeyManager segmentKeyManager;
 
     @Resource
     private IAccountChannelService accountChannelService;
@@ -78,9 +77,9 @@ public class FrozenOrderServiceImpl implements IFrozenOrderService {
         TransactionStatus status = accountChannelService.submit(transaction);
 
         // 创建冻结资金订单
-        IKeyGenerator keyGenerator = keyGeneratorManager.getKeyGenerator(SequenceKey.FROZEN_ID);
-        // 异步执行避免Seata回滚造成ID重复
-        long frozenId = AsyncTaskExecutor.submit(() -> keyGenerator.nextId());
+        IKeyGenerator keyGenerator = segmentKeyManager.getKeyGenerator(SequenceKey.FROZEN_ID);
+        // 号段ID在后台独立事务中预取，避免Seata回滚造成ID重复
+        long frozenId = keyGenerator.nextId();
         FrozenOrder frozenOrder = FrozenOrder.builder().frozenId(frozenId).paymentId(null).accountId(request.getAccountId())
             .name(account.getName()).type(request.getType()).amount(request.getAmount())
             .extension(request.getExtension()).state(FrozenState.FROZEN.getCode()).description(request.getDescription())
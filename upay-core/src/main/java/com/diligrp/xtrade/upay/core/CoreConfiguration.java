@@ -1,9 +1,14 @@
 package com.diligrp.xtrade.upay.core;
 
 import com.diligrp.xtrade.shared.mybatis.MybatisMapperSupport;
+import com.diligrp.xtrade.upay.core.util.AsyncTaskLifecycle;
+import com.diligrp.xtrade.upay.core.util.CircuitBreaker;
 import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 核心模块SpringBoot集成配置
@@ -11,5 +16,24 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 @ComponentScan("com.diligrp.xtrade.upay.core")
 @MapperScan(basePackages =  {"com.diligrp.xtrade.upay.core.dao"}, markerInterface = MybatisMapperSupport.class)
+@EnableScheduling
 public class CoreConfiguration {
-}
\ No newline at end of file
+
+    /**
+     * 支付网关路径上Redis调用（数据字典缓存、密码错误次数）共享的熔断器
+     */
+    @Bean("redisCircuitBreaker")
+    public CircuitBreaker redisCircuitBreaker(@Value("${upay.redis-breaker.failure-threshold:5}") int failureThreshold,
+                                              @Value("${upay.redis-breaker.slow-call:200}") long slowCallMillis,
+                                              @Value("${upay.redis-breaker.open-duration:10000}") long openMillis) {
+        return new CircuitBreaker("redis", failureThreshold, slowCallMillis, openMillis);
+    }
+
+    /**
+     * 容器关闭时在数据源关闭前停止异步任务线程池并等待已提交任务执行完成
+     */
+    @Bean("asyncTaskLifecycle")
+    public AsyncTaskLifecycle asyncTaskLifecycle() {
+        return new AsyncTaskLifecycle();
+    }
+}
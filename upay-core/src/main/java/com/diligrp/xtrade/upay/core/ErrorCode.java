@@ -20,6 +20,12 @@ public class ErrorCode {
     public static final int SERVICE_NOT_AVAILABLE = 501001;
     // 访问未授权
     public static final int UNAUTHORIZED_ACCESS_ERROR = 501002;
+    // 服务繁忙-线程池或舱壁已满，请求被拒绝
+    public static final int SERVICE_BUSY = 501003;
+    // 服务处理超时
+    public static final int SERVICE_TIMEOUT = 501004;
+    // 访问超过限额-应用或服务的调用速率、并发数超过接入限额
+    public static final int ACCESS_LIMITED = 501005;
     // 交易不支持
     public static final int TRADE_NOT_SUPPORTED = 502001;
     // 不支持的支付渠道
@@ -0,0 +1,32 @@
+package com.diligrp.xtrade.upay.core.dao;
+
+import com.diligrp.xtrade.shared.mybatis.MybatisMapperSupport;
+import com.diligrp.xtrade.upay.core.model.AccountBucket;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 账户资金分桶数据访问层
+ */
+@Repository("accountBucketDao")
+public interface IAccountBucketDao extends MybatisMapperSupport {
+    void insertAccountBuckets(List<AccountBucket> buckets);
+
+    List<AccountBucket> findAccountBuckets(Long accountId);
+
+    /**
+     * 查询所有资金分桶，用于加载分桶账户列表
+     */
+    List<AccountBucket> listAccountBuckets();
+
+    /**
+     * 汇总账户所有分桶余额，账户无资金分桶时返回0
+     */
+    long sumBucketBalance(Long accountId);
+
+    /**
+     * 原子修改分桶余额：bucket.balance为增量（正值 负值），修改后分桶余额不能为负数
+     */
+    int increaseBucketBalance(AccountBucket bucket);
+}
@@ -1,6 +1,7 @@
 package com.diligrp.xtrade.upay.core.dao;
 
 import com.diligrp.xtrade.shared.mybatis.MybatisMapperSupport;
+import com.diligrp.xtrade.upay.core.domain.FundDeltaDto;
 import com.diligrp.xtrade.upay.core.model.AccountFund;
 import org.springframework.stereotype.Repository;
 
@@ -15,5 +16,26 @@ public interface IAccountFundDao extends MybatisMapperSupport {
 
     Optional<AccountFund> findAccountFundById(Long accountId);
 
+    /**
+     * 查询并锁定账户资金(SELECT ... FOR UPDATE)，须在事务中调用
+     */
+    Optional<AccountFund> lockAccountFundById(Long accountId);
+
     int compareAndSetVersion(AccountFund accountFund);
+
+    /**
+     * 原子累加账户余额：accountFund.balance为增量，用于将资金分桶余额合并至账户资金
+     */
+    int increaseAccountBalance(AccountFund accountFund);
+
+    /**
+     * 修改账户资金分桶数量标记：资金流引擎根据已读取或锁定的账户资金判断是否需要合并资金分桶
+     */
+    int updateAccountBuckets(AccountFund accountFund);
+
+    /**
+     * 带余额校验条件的原子增量修改账户资金，校验顺序与资金流引擎一致：解冻-资金交易-冻结；
+     * 返回0表示账户不存在或余额校验失败
+     */
+    int increaseAccountFund(FundDeltaDto delta);
 }
@@ -25,11 +25,16 @@ public interface IDataDictionaryDao extends MybatisMapperSupport {
      */
     DataDictionary findDataDictionaryByCode(@Param("code") String code, @Param("groupCode") String groupCode);
 
+    /**
+     * 根据ID查询数据字典配置
+     */
+    DataDictionary findDataDictionaryById(Long id);
+
     /**
      * 根据编码查询数据字典列表
      *
-     * @param code - 参数编码，必填
-     * @param groupCode - 分组编码，非必填
+     * @param code - 参数编码，非必填，为空时查询分组下所有参数
+     * @param groupCode - 分组编码，非必填，参数编码和分组编码都为空时查询所有数据字典
      * @return List<DataDictionary> - 数据字典列表
      */
     List<DataDictionary> findDataDictionaries(@Param("code") String code, @Param("groupCode") String groupCode);
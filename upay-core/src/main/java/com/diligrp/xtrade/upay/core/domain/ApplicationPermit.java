@@ -1,78 +1,121 @@
 package com.diligrp.xtrade.upay.core.domain;
 
+import com.diligrp.xtrade.upay.core.type.SignScheme;
+
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
 /**
  * 应用接入许可
+ *
+ * 接入许可为缓存共享的不可变对象，解析后的密钥随接入许可缓存
  */
 public class ApplicationPermit {
     // 应用ID
-    private Long appId;
+    private final Long appId;
     // 授权Token
-    private String accessToken;
+    private final String accessToken;
+    // 签名方式
+    private final Integer signScheme;
+    // HMAC签名密钥
+    private final String secretKey;
     // 应用私钥
-    private String privateKey;
+    private final String privateKey;
     // 应用公钥
-    private String publicKey;
+    private final String publicKey;
     // 商户信息
-    private MerchantPermit merchant;
+    private final MerchantPermit merchant;
+    // 解析后的应用密钥
+    private final KeyMaterial keys;
 
-    public Long getAppId() {
-        return appId;
+    private ApplicationPermit(Long appId, String accessToken, Integer signScheme, String secretKey, String privateKey,
+                              String publicKey, MerchantPermit merchant, KeyMaterial keys) {
+        this.appId = appId;
+        this.accessToken = accessToken;
+        this.signScheme = signScheme;
+        this.secretKey = secretKey;
+        this.privateKey = privateKey;
+        this.publicKey = publicKey;
+        this.merchant = merchant;
+        this.keys = keys;
     }
 
-    public void setAppId(Long appId) {
-        this.appId = appId;
+    public Long getAppId() {
+        return appId;
     }
 
     public String getAccessToken() {
         return accessToken;
     }
 
-    public void setAccessToken(String accessToken) {
-        this.accessToken = accessToken;
+    public Integer getSignScheme() {
+        return signScheme;
     }
 
-    public String getPrivateKey() {
-        return privateKey;
+    public String getSecretKey() {
+        return secretKey;
     }
 
-    public void setPrivateKey(String privateKey) {
-        this.privateKey = privateKey;
+    public String getPrivateKey() {
+        return privateKey;
     }
 
     public String getPublicKey() {
         return publicKey;
     }
 
-    public void setPublicKey(String publicKey) {
-        this.publicKey = publicKey;
-    }
-
     public MerchantPermit getMerchant() {
         return merchant;
     }
 
-    public void setMerchant(MerchantPermit merchant) {
-        this.merchant = merchant;
+    /**
+     * 应用签名方式，未知签名方式按RSA处理
+     */
+    public SignScheme signScheme() {
+        return signScheme == null ? SignScheme.RSA : SignScheme.getType(signScheme).orElse(SignScheme.RSA);
     }
 
-    public static ApplicationPermit of(Long appId, String accessToken, String privateKey, String publicKey, MerchantPermit merchant) {
-        ApplicationPermit permit = new ApplicationPermit();
-        permit.setAppId(appId);
-        permit.setAccessToken(accessToken);
-        permit.setPrivateKey(privateKey);
-        permit.setPublicKey(publicKey);
-        permit.setMerchant(merchant);
+    /**
+     * 解析后的应用HMAC密钥，用于HMAC签名方式的验签和签名
+     */
+    public SecretKey secretKey() throws GeneralSecurityException {
+        return keys.secretKey();
+    }
 
-        return permit;
+    /**
+     * 解析后的应用私钥
+     */
+    public PrivateKey privateKey() throws GeneralSecurityException {
+        return keys.privateKey();
     }
 
-    public static ApplicationPermit of(Long appId, String accessToken, String privateKey, String publicKey) {
-        ApplicationPermit permit = new ApplicationPermit();
-        permit.setAppId(appId);
-        permit.setAccessToken(accessToken);
-        permit.setPrivateKey(privateKey);
-        permit.setPublicKey(publicKey);
+    /**
+     * 解析后的应用公钥，用于验证应用请求数据签名
+     */
+    public PublicKey publicKey() throws GeneralSecurityException {
+        return keys.publicKey();
+    }
 
-        return permit;
+    /**
+     * 返回关联指定商户的应用接入许可，当前对象不变，共享已解析的密钥
+     */
+    public ApplicationPermit withMerchant(MerchantPermit merchant) {
+        return new ApplicationPermit(appId, accessToken, signScheme, secretKey, privateKey, publicKey, merchant, keys);
+    }
+
+    public static ApplicationPermit of(Long appId, String accessToken, Integer signScheme, String secretKey,
+                                       String privateKey, String publicKey) {
+        return new ApplicationPermit(appId, accessToken, signScheme, secretKey, privateKey, publicKey, null,
+            new KeyMaterial(secretKey, privateKey, publicKey));
+    }
+
+    public static ApplicationPermit of(Long appId, String accessToken, String privateKey, String publicKey, MerchantPermit merchant) {
+        return of(appId, accessToken, SignScheme.RSA.getCode(), null, privateKey, publicKey).withMerchant(merchant);
+    }
+
+    public static ApplicationPermit of(Long appId, String accessToken, String privateKey, String publicKey) {
+        return of(appId, accessToken, SignScheme.RSA.getCode(), null, privateKey, publicKey);
     }
 }
@@ -0,0 +1,70 @@
+package com.diligrp.xtrade.upay.core.domain;
+
+import java.time.LocalDateTime;
+
+/**
+ * 账户资金增量修改数据传输对象
+ */
+public class FundDeltaDto {
+    // 资金账号ID
+    private Long accountId;
+    // 余额增量-分(正值 负值)
+    private Long amount;
+    // 冻结金额增量-分(冻结为正值 解冻为负值)
+    private Long frozenAmount;
+    // 是否资金交易, 资金交易需校验可用余额
+    private boolean fundTransaction;
+    // 修改时间
+    private LocalDateTime modifiedTime;
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public Long getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Long amount) {
+        this.amount = amount;
+    }
+
+    public Long getFrozenAmount() {
+        return frozenAmount;
+    }
+
+    public void setFrozenAmount(Long frozenAmount) {
+        this.frozenAmount = frozenAmount;
+    }
+
+    public boolean isFundTransaction() {
+        return fundTransaction;
+    }
+
+    public void setFundTransaction(boolean fundTransaction) {
+        this.fundTransaction = fundTransaction;
+    }
+
+    public LocalDateTime getModifiedTime() {
+        return modifiedTime;
+    }
+
+    public void setModifiedTime(LocalDateTime modifiedTime) {
+        this.modifiedTime = modifiedTime;
+    }
+
+    public static FundDeltaDto of(Long accountId, Long amount, Long frozenAmount, boolean fundTransaction,
+                                  LocalDateTime modifiedTime) {
+        FundDeltaDto delta = new FundDeltaDto();
+        delta.setAccountId(accountId);
+        delta.setAmount(amount);
+        delta.setFrozenAmount(frozenAmount);
+        delta.setFundTransaction(fundTransaction);
+        delta.setModifiedTime(modifiedTime);
+        return delta;
+    }
+}
@@ -4,6 +4,9 @@ import java.time.LocalDateTime;
 
 /**
  * 资金事务模型
+ *
+ * 资金明细使用平行数组存储（金额、资金类型、资金描述按下标一一对应），并在创建时一次遍历汇总收支金额，
+ * 资金流引擎处理时无需创建FundActivity对象，也无需多次遍历资金明细
  */
 public class FundTransaction {
     // 支付ID
@@ -16,8 +19,22 @@ public class FundTransaction {
     private int type;
     // 冻结或解冻金额
     private long frozenAmount;
-    // 资金明细
-    private FundActivity[] activities;
+    // 资金明细数量
+    private int activities;
+    // 资金明细金额 - 分（正数或负数）
+    private long[] amounts;
+    // 资金明细资金类型
+    private int[] types;
+    // 资金明细资金描述
+    private String[] typeNames;
+    // 资金收支总额
+    private long totalAmount;
+    // 资金收入总额
+    private long incomeAmount;
+    // 收入明细数量
+    private int incomes;
+    // 支出明细数量
+    private int outgoes;
     // 发生时间
     private LocalDateTime when;
 
@@ -61,12 +78,84 @@ public class FundTransaction {
         this.frozenAmount = frozenAmount;
     }
 
+    /**
+     * 获取资金明细对象，每次调用都将重新创建对象，资金流引擎请使用下标访问方法
+     */
     public FundActivity[] getActivities() {
-        return activities;
+        FundActivity[] fundActivities = new FundActivity[activities];
+        for (int i = 0; i < activities; i++) {
+            fundActivities[i] = FundActivity.of(amounts[i], types[i], typeNames[i]);
+        }
+        return fundActivities;
     }
 
     public void setActivities(FundActivity[] activities) {
+        int size = activities == null ? 0 : activities.length;
+        long[] amounts = new long[size];
+        int[] types = new int[size];
+        String[] typeNames = new String[size];
+        for (int i = 0; i < size; i++) {
+            amounts[i] = activities[i].getAmount();
+            types[i] = activities[i].getType();
+            typeNames[i] = activities[i].getTypeName();
+        }
+        setActivities(amounts, types, typeNames, size);
+    }
+
+    /**
+     * 设置资金明细并汇总收支金额，数组由调用方移交给资金事务，调用方不应再修改
+     */
+    public void setActivities(long[] amounts, int[] types, String[] typeNames, int activities) {
+        this.amounts = amounts;
+        this.types = types;
+        this.typeNames = typeNames;
         this.activities = activities;
+        this.totalAmount = 0;
+        this.incomeAmount = 0;
+        this.incomes = 0;
+        this.outgoes = 0;
+        for (int i = 0; i < activities; i++) {
+            long amount = amounts[i];
+            totalAmount += amount;
+            if (amount > 0) {
+                incomeAmount += amount;
+                incomes ++;
+            } else if (amount < 0) {
+                outgoes ++;
+            }
+        }
+    }
+
+    public int getActivitySize() {
+        return activities;
+    }
+
+    public long getAmount(int index) {
+        return amounts[index];
+    }
+
+    public int getActivityType(int index) {
+        return types[index];
+    }
+
+    public String getTypeName(int index) {
+        return typeNames[index];
+    }
+
+    public long getTotalAmount() {
+        return totalAmount;
+    }
+
+    public long getIncomeAmount() {
+        return incomeAmount;
+    }
+
+    public int getIncomes() {
+        return incomes;
+    }
+
+    public int getOutgoes() {
+        return outgoes;
     }
 
     public LocalDateTime getWhen() {
@@ -86,7 +175,14 @@ public class FundTransaction {
     }
 
     public boolean isFundTransaction() {
-        return activities != null && activities.length > 0;
+        return activities > 0;
+    }
+
+    /**
+     * 纯收入资金事务：无冻结解冻且所有资金活动金额均不为负数
+     */
+    public boolean isIncomeTransaction() {
+        return !isFrozenTransacton() && !isUnfrozenTransaction() && isFundTransaction() && outgoes == 0;
     }
 
     public static FundTransaction of(String paymentId, long accountId, Long parentId, int type, long frozenAmount,
@@ -101,4 +197,17 @@ public class FundTransaction {
         transaction.setWhen(when);
         return transaction;
     }
+
+    public static FundTransaction of(String paymentId, long accountId, Long parentId, int type, long frozenAmount,
+                                     long[] amounts, int[] types, String[] typeNames, int activities, LocalDateTime when) {
+        FundTransaction transaction = new FundTransaction();
+        transaction.setPaymentId(paymentId);
+        transaction.setAccountId(accountId);
+        transaction.setParentId(parentId);
+        transaction.setType(type);
+        transaction.setFrozenAmount(frozenAmount);
+        transaction.setActivities(amounts, types, typeNames, activities);
+        transaction.setWhen(when);
+        return transaction;
+    }
 }
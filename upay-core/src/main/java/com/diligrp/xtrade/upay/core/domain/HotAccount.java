@@ -0,0 +1,69 @@
+package com.diligrp.xtrade.upay.core.domain;
+
+import com.diligrp.xtrade.upay.core.type.LockMode;
+
+/**
+ * 热点账户统计结果：近期乐观锁冲突次数和资金事务提交次数均为衰减后的估算值
+ */
+public class HotAccount {
+    // 主账号ID
+    private Long accountId;
+    // 乐观锁冲突次数
+    private Long conflicts;
+    // 冲突次数误差上限
+    private Long conflictError;
+    // 资金事务提交次数
+    private Long submits;
+    // 当前锁模式
+    private LockMode lockMode;
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public Long getConflicts() {
+        return conflicts;
+    }
+
+    public void setConflicts(Long conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    public Long getConflictError() {
+        return conflictError;
+    }
+
+    public void setConflictError(Long conflictError) {
+        this.conflictError = conflictError;
+    }
+
+    public Long getSubmits() {
+        return submits;
+    }
+
+    public void setSubmits(Long submits) {
+        this.submits = submits;
+    }
+
+    public LockMode getLockMode() {
+        return lockMode;
+    }
+
+    public void setLockMode(LockMode lockMode) {
+        this.lockMode = lockMode;
+    }
+
+    public static HotAccount of(Long accountId, Long conflicts, Long conflictError, Long submits, LockMode lockMode) {
+        HotAccount hotAccount = new HotAccount();
+        hotAccount.setAccountId(accountId);
+        hotAccount.setConflicts(conflicts);
+        hotAccount.setConflictError(conflictError);
+        hotAccount.setSubmits(submits);
+        hotAccount.setLockMode(lockMode);
+        return hotAccount;
+    }
+}
@@ -0,0 +1,63 @@
+package com.diligrp.xtrade.upay.core.domain;
+
+import com.diligrp.xtrade.upay.core.util.SignatureUtils;
+
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+/**
+ * 接入许可的公私钥，首次使用时解析并保存解析结果，缓存的接入许可无需每次请求重新解析密钥
+ */
+class KeyMaterial {
+    // Base64编码的HMAC密钥
+    private final String secretKey;
+    // Base64编码的私钥
+    private final String privateKey;
+    // Base64编码的公钥
+    private final String publicKey;
+    // 解析后的密钥，并发首次解析时结果相同
+    private volatile SecretKey parsedSecretKey;
+    private volatile PrivateKey parsedPrivateKey;
+    private volatile PublicKey parsedPublicKey;
+
+    KeyMaterial(String secretKey, String privateKey, String publicKey) {
+        this.secretKey = secretKey;
+        this.privateKey = privateKey;
+        this.publicKey = publicKey;
+    }
+
+    SecretKey secretKey() throws GeneralSecurityException {
+        SecretKey key = parsedSecretKey;
+        if (key == null) {
+            if (secretKey == null) {
+                throw new GeneralSecurityException("secretKey missed");
+            }
+            parsedSecretKey = key = SignatureUtils.getSecretKey(secretKey);
+        }
+        return key;
+    }
+
+    PrivateKey privateKey() throws GeneralSecurityException {
+        PrivateKey key = parsedPrivateKey;
+        if (key == null) {
+            if (privateKey == null) {
+                throw new GeneralSecurityException("privateKey missed");
+            }
+            parsedPrivateKey = key = SignatureUtils.getPrivateKey(privateKey);
+        }
+        return key;
+    }
+
+    PublicKey publicKey() throws GeneralSecurityException {
+        PublicKey key = parsedPublicKey;
+        if (key == null) {
+            if (publicKey == null) {
+                throw new GeneralSecurityException("publicKey missed");
+            }
+            parsedPublicKey = key = SignatureUtils.getPublicKey(publicKey);
+        }
+        return key;
+    }
+}
@@ -1,90 +1,88 @@
 package com.diligrp.xtrade.upay.core.domain;
 
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
 /**
  * 商户接入许可
+ *
+ * 接入许可为缓存共享的不可变对象，解析后的密钥随接入许可缓存
  */
 public class MerchantPermit {
     // 商户ID
-    private Long mchId;
+    private final Long mchId;
     // 商户编码
-    private String code;
+    private final String code;
     // 收益账户
-    private Long profitAccount;
+    private final Long profitAccount;
     // 担保账户
-    private Long vouchAccount;
+    private final Long vouchAccount;
     // 押金账户
-    private Long pledgeAccount;
+    private final Long pledgeAccount;
     // 商户私钥
-    private String privateKey;
+    private final String privateKey;
     // 商户公钥
-    private String publicKey;
+    private final String publicKey;
+    // 解析后的商户公私钥
+    private final KeyMaterial keys;
 
-    public Long getMchId() {
-        return mchId;
+    private MerchantPermit(Long mchId, String code, Long profitAccount, Long vouchAccount, Long pledgeAccount,
+                           String privateKey, String publicKey) {
+        this.mchId = mchId;
+        this.code = code;
+        this.profitAccount = profitAccount;
+        this.vouchAccount = vouchAccount;
+        this.pledgeAccount = pledgeAccount;
+        this.privateKey = privateKey;
+        this.publicKey = publicKey;
+        this.keys = new KeyMaterial(null, privateKey, publicKey);
     }
 
-    public void setMchId(Long mchId) {
-        this.mchId = mchId;
+    public Long getMchId() {
+        return mchId;
     }
 
     public String getCode() {
         return code;
     }
 
-    public void setCode(String code) {
-        this.code = code;
-    }
-
     public Long getProfitAccount() {
         return profitAccount;
     }
 
-    public void setProfitAccount(Long profitAccount) {
-        this.profitAccount = profitAccount;
-    }
-
     public Long getVouchAccount() {
         return vouchAccount;
     }
 
-    public void setVouchAccount(Long vouchAccount) {
-        this.vouchAccount = vouchAccount;
-    }
-
     public Long getPledgeAccount() {
         return pledgeAccount;
     }
 
-    public void setPledgeAccount(Long pledgeAccount) {
-        this.pledgeAccount = pledgeAccount;
-    }
-
     public String getPrivateKey() {
         return privateKey;
     }
 
-    public void setPrivateKey(String privateKey) {
-        this.privateKey = privateKey;
-    }
-
     public String getPublicKey() {
         return publicKey;
     }
 
-    public void setPublicKey(String publicKey) {
-        this.publicKey = publicKey;
+    /**
+     * 解析后的商户私钥，用于应答数据签名
+     */
+    public PrivateKey privateKey() throws GeneralSecurityException {
+        return keys.privateKey();
+    }
+
+    /**
+     * 解析后的商户公钥
+     */
+    public PublicKey publicKey() throws GeneralSecurityException {
+        return keys.publicKey();
     }
 
     public static MerchantPermit of(Long mchId, String code, Long profitAccount, Long vouchAccount, Long pledgeAccount,
                                     String privateKey, String publicKey) {
-        MerchantPermit permit = new MerchantPermit();
-        permit.setMchId(mchId);
-        permit.setCode(code);
-        permit.setProfitAccount(profitAccount);
-        permit.setVouchAccount(vouchAccount);
-        permit.setPledgeAccount(pledgeAccount);
-        permit.setPrivateKey(privateKey);
-        permit.setPublicKey(publicKey);
-        return permit;
+        return new MerchantPermit(mchId, code, profitAccount, vouchAccount, pledgeAccount, privateKey, publicKey);
     }
 }
@@ -12,6 +12,8 @@ public class RegisterApplication {
     private String name;
     // 授权Token
     private String accessToken;
+    // 签名方式，为空时使用RSA签名
+    private Integer signScheme;
 
     public Long getAppId() {
         return appId;
@@ -44,4 +46,12 @@ public class RegisterApplication {
     public void setAccessToken(String accessToken) {
         this.accessToken = accessToken;
     }
+
+    public Integer getSignScheme() {
+        return signScheme;
+    }
+
+    public void setSignScheme(Integer signScheme) {
+        this.signScheme = signScheme;
+    }
 }
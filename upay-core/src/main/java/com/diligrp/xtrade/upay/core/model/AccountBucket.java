@@ -0,0 +1,93 @@
+package com.diligrp.xtrade.upay.core.model;
+
+import com.diligrp.xtrade.shared.domain.BaseDo;
+
+import java.time.LocalDateTime;
+
+/**
+ * 账户资金分桶数据模型
+ *
+ * 热点主账户拆分为多个资金分桶，收入类资金事务只修改某个分桶余额，分桶余额定期合并至账户资金
+ */
+public class AccountBucket extends BaseDo {
+    // 账号ID
+    private Long accountId;
+    // 分桶编号
+    private Integer bucketNo;
+    // 分桶余额-分
+    private Long balance;
+    // 数据版本号
+    private Integer version;
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public Integer getBucketNo() {
+        return bucketNo;
+    }
+
+    public void setBucketNo(Integer bucketNo) {
+        this.bucketNo = bucketNo;
+    }
+
+    public Long getBalance() {
+        return balance;
+    }
+
+    public void setBalance(Long balance) {
+        this.balance = balance;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    public static Builder builder() {
+        return new AccountBucket().new Builder();
+    }
+
+    public class Builder {
+        public Builder accountId(Long accountId) {
+            AccountBucket.this.accountId = accountId;
+            return this;
+        }
+
+        public Builder bucketNo(Integer bucketNo) {
+            AccountBucket.this.bucketNo = bucketNo;
+            return this;
+        }
+
+        public Builder balance(Long balance) {
+            AccountBucket.this.balance = balance;
+            return this;
+        }
+
+        public Builder version(Integer version) {
+            AccountBucket.this.version = version;
+            return this;
+        }
+
+        public Builder createdTime(LocalDateTime createdTime) {
+            AccountBucket.this.createdTime = createdTime;
+            return this;
+        }
+
+        public Builder modifiedTime(LocalDateTime modifiedTime) {
+            AccountBucket.this.modifiedTime = modifiedTime;
+            return this;
+        }
+
+        public AccountBucket build() {
+            return AccountBucket.this;
+        }
+    }
+}
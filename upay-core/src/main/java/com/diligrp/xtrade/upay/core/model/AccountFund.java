@@ -16,6 +16,8 @@ public class AccountFund extends BaseDo {
     private Long frozenAmount;
     // 担保金额-分
     private Long vouchAmount;
+    // 资金分桶数量，0表示未拆分资金分桶
+    private Integer buckets;
     // 数据版本号
     private Integer version;
 
@@ -51,6 +53,14 @@ public class AccountFund extends BaseDo {
         this.vouchAmount = vouchAmount;
     }
 
+    public Integer getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(Integer buckets) {
+        this.buckets = buckets;
+    }
+
     public Integer getVersion() {
         return version;
     }
@@ -84,6 +94,11 @@ public class AccountFund extends BaseDo {
             return this;
         }
 
+        public Builder buckets(Integer buckets) {
+            AccountFund.this.buckets = buckets;
+            return this;
+        }
+
         public Builder version(Integer version) {
             AccountFund.this.version = version;
             return this;
@@ -16,6 +16,10 @@ public class Application extends BaseDo {
     private String name;
     // 授权Token
     private String accessToken;
+    // 签名方式
+    private Integer signScheme;
+    // HMAC签名密钥
+    private String secretKey;
     // 应用私钥
     private String privateKey;
     // 应用公钥
@@ -53,6 +57,22 @@ public class Application extends BaseDo {
         this.accessToken = accessToken;
     }
 
+    public Integer getSignScheme() {
+        return signScheme;
+    }
+
+    public void setSignScheme(Integer signScheme) {
+        this.signScheme = signScheme;
+    }
+
+    public String getSecretKey() {
+        return secretKey;
+    }
+
+    public void setSecretKey(String secretKey) {
+        this.secretKey = secretKey;
+    }
+
     public String getPrivateKey() {
         return privateKey;
     }
@@ -94,6 +114,16 @@ public class Application extends BaseDo {
             return this;
         }
 
+        public Builder signScheme(Integer signScheme) {
+            Application.this.signScheme = signScheme;
+            return this;
+        }
+
+        public Builder secretKey(String secretKey) {
+            Application.this.secretKey = secretKey;
+            return this;
+        }
+
         public Builder privateKey(String privateKey) {
             Application.this.privateKey = privateKey;
             return this;
@@ -19,6 +19,11 @@ public interface IAccessPermitService {
      */
     ApplicationPermit loadApplicationPermit(Long mchId, Long appId);
 
+    /**
+     * 获取商户接入许可
+     */
+    MerchantPermit loadMerchantPermit(Long mchId);
+
     /**
      * 注册商户: 创建接入商户(分配mchId)、创建商户账户（收益账户、担保账户和押金账户等）并分配商户公私钥
      */
@@ -0,0 +1,36 @@
+package com.diligrp.xtrade.upay.core.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * 账户资金分桶服务接口
+ *
+ * 热点主账户拆分成多个资金分桶后，收入类资金事务只累加某个分桶余额，账户余额为账户资金余额与分桶余额之和
+ */
+public interface IAccountBucketService {
+    /**
+     * 将主资金账户拆分为指定数量的资金分桶
+     */
+    void createAccountBuckets(Long accountId, int buckets);
+
+    /**
+     * 判断账户是否为分桶账户：本节点缓存的分桶账户列表，新拆分的账户可能延迟一个刷新周期，只用于收入类资金事务
+     */
+    boolean isBucketAccount(Long accountId);
+
+    /**
+     * 按支付ID哈希选择资金分桶并累加收入金额
+     */
+    void increaseBucketBalance(Long accountId, String paymentId, long amount, LocalDateTime when);
+
+    /**
+     * 汇总账户所有资金分桶余额
+     */
+    long sumBucketBalance(Long accountId);
+
+    /**
+     * 在当前事务中锁定账户资金，并将账户所有资金分桶余额合并至账户资金；返回是否合并了分桶余额（账户资金是否被修改），
+     * 账户无资金分桶时返回false且不锁定账户资金
+     */
+    boolean mergeAccountBuckets(Long accountId);
+}
@@ -36,10 +36,15 @@ public interface IFundAccountService {
     FundAccount findFundAccountById(Long accountId);
 
     /**
-     * 根据账号ID查询账户资金
+     * 根据账号ID查询账户资金，分桶账户的余额为账户资金余额与所有分桶余额之和
      */
     AccountFund findAccountFundById(Long accountId);
 
+    /**
+     * 根据账号ID查询账户资金记录（不含分桶余额），用于资金流引擎乐观锁修改账户资金
+     */
+    AccountFund loadAccountFund(Long accountId);
+
     /**
      * 重置账户交易密码
      */
@@ -1,7 +1,11 @@
 package com.diligrp.xtrade.upay.core.service;
 
 import com.diligrp.xtrade.upay.core.domain.FundTransaction;
+import com.diligrp.xtrade.upay.core.domain.HotAccount;
 import com.diligrp.xtrade.upay.core.domain.TransactionStatus;
+import com.diligrp.xtrade.upay.core.type.LockMode;
+
+import java.util.List;
 
 /**
  * 资金流引擎接口
@@ -11,4 +15,19 @@ public interface IFundStreamEngine {
      * 提交资金事务: 操作资金余额和添加资金流水、冻结和解冻资金
      */
     TransactionStatus submit(FundTransaction transaction);
+
+    /**
+     * 批量提交同一业务的多个资金事务（比如：买家付款、卖家收款和商户收益），按提交顺序返回每个资金事务的事务状态
+     */
+    List<TransactionStatus> submitAll(List<FundTransaction> transactions);
+
+    /**
+     * 查询账户当前的资金修改锁模式
+     */
+    LockMode lockMode(Long accountId);
+
+    /**
+     * 查询近期乐观锁冲突最多的前top个主账户，按冲突次数降序排列
+     */
+    List<HotAccount> hotAccounts(int top);
 }
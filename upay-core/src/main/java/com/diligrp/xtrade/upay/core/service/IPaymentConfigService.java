@@ -27,4 +27,12 @@ public interface IPaymentConfigService {
      * @return 参数配置值
      */
     String loadSystemGlobalConf(String code);
-}
\ No newline at end of file
+
+    /**
+     * 修改数据字典配置值，所有节点的配置缓存随之失效
+     *
+     * @param id - 必填, 数据字典ID
+     * @param value - 必填, 参数配置值
+     */
+    void modifyDataDictionary(Long id, String value);
+}
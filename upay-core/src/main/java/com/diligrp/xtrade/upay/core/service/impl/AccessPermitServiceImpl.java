@@ -1,6 +1,7 @@
 package com.diligrp.xtrade.upay.core.service.impl;
 
 import com.diligrp.xtrade.shared.exception.ServiceAccessException;
+import com.diligrp.xtrade.shared.redis.JedisDataSource;
 import com.diligrp.xtrade.shared.security.RsaCipher;
 import com.diligrp.xtrade.upay.core.ErrorCode;
 import com.diligrp.xtrade.upay.core.dao.IMerchantDao;
@@ -13,18 +14,29 @@ import com.diligrp.xtrade.upay.core.exception.PaymentServiceException;
 import com.diligrp.xtrade.upay.core.model.Application;
 import com.diligrp.xtrade.upay.core.model.Merchant;
 import com.diligrp.xtrade.upay.core.service.IAccessPermitService;
+import com.diligrp.xtrade.upay.core.service.IAccountBucketService;
 import com.diligrp.xtrade.upay.core.service.IFundAccountService;
 import com.diligrp.xtrade.upay.core.type.AccountType;
+import com.diligrp.xtrade.upay.core.type.SignScheme;
 import com.diligrp.xtrade.upay.core.type.UseFor;
+import com.diligrp.xtrade.upay.core.util.LoadingCache;
+import com.diligrp.xtrade.upay.core.util.PermitCacheInvalidator;
+import com.diligrp.xtrade.upay.core.util.SignatureUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import java.time.LocalDateTime;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 支付平台接入许可服务
@@ -32,91 +44,99 @@ import java.util.concurrent.ConcurrentHashMap;
 @Service("accessPermitService")
 public class AccessPermitServiceImpl implements IAccessPermitService {
 
+    private static final String CACHE_APPLICATION = "application";
+
+    private static final String CACHE_MERCHANT = "merchant";
+
+    private Logger LOG = LoggerFactory.getLogger(this.getClass());
+
     @Resource
     private IMerchantDao merchantDao;
 
     @Resource
     private IFundAccountService fundAccountService;
 
-    private Map<Long, ApplicationPermit> applications = new ConcurrentHashMap<>();
+    @Resource
+    private IAccountBucketService accountBucketService;
+
+    @Autowired(required = false)
+    private JedisDataSource jedisDataSource;
+
+    // 商户账户资金分桶数量，小于2时不拆分资金分桶
+    @Value("${upay.account-bucket.merchant-buckets:0}")
+    private int merchantAccountBuckets;
+
+    // 接入许可缓存过期时间-毫秒
+    @Value("${upay.permit-cache.ttl:300000}")
+    private long permitCacheTtl;
+
+    // 未注册的商户和应用缓存过期时间-毫秒
+    @Value("${upay.permit-cache.negative-ttl:30000}")
+    private long permitCacheNegativeTtl;
+
+    private LoadingCache<Long, ApplicationEntry> applications;
+
+    private LoadingCache<Long, MerchantPermit> merchants;
+
+    private PermitCacheInvalidator permitCacheInvalidator;
 
-    private Map<Long, MerchantPermit> merchants = new ConcurrentHashMap<>();
+    @PostConstruct
+    public void init() {
+        applications = new LoadingCache<>(CACHE_APPLICATION, appId -> merchantDao.findApplicationById(appId)
+            .map(app -> new ApplicationEntry(app.getMchId(), ApplicationPermit.of(app.getAppId(), app.getAccessToken(),
+                app.getSignScheme(), app.getSecretKey(), app.getPrivateKey(), app.getPublicKey()))),
+            permitCacheTtl, permitCacheNegativeTtl);
+        merchants = new LoadingCache<>(CACHE_MERCHANT, mchId -> merchantDao.findMerchantById(mchId)
+            .map(mer -> MerchantPermit.of(mer.getMchId(), mer.getCode(), mer.getProfitAccount(), mer.getVouchAccount(),
+                mer.getPledgeAccount(), mer.getPrivateKey(), mer.getPublicKey())), permitCacheTtl, permitCacheNegativeTtl);
+
+        if (jedisDataSource == null) {
+            LOG.warn("Permit cache invalidation across nodes disabled: jedis not configured");
+        }
+        permitCacheInvalidator = new PermitCacheInvalidator(jedisDataSource);
+        permitCacheInvalidator.register(CACHE_APPLICATION, applications);
+        permitCacheInvalidator.register(CACHE_MERCHANT, merchants);
+        permitCacheInvalidator.start();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        permitCacheInvalidator.close();
+    }
 
     /**
      * {@inheritDoc}
      *
      * 接口适用场景：应用直接归属于商户，根据应用ID即可获取应用所属商户信息(收益账户)
      *
-     * 由于商户和应用信息一旦创建基本上不会修改，因此可以缓存在本地JVM中；
-     * 如后期需要限制商户状态，则只能缓存在REDIS中，商户状态更新时同步更新缓存
+     * 商户和应用信息缓存在本地JVM中，缓存过期前后台提前刷新；修改商户或注册应用时通过Redis发布订阅通知所有节点失效缓存，
+     * 通知丢失时其他节点最多在缓存过期时间后获取到新数据
      */
     @Override
     public ApplicationPermit loadApplicationPermit(Long appId) {
-        ApplicationPermit permit = applications.get(appId);
-        if (permit == null) {
-            synchronized (applications) {
-                if ((permit = applications.get(appId)) == null) {
-                    Optional<Application> application = merchantDao.findApplicationById(appId);
-                    permit = application.map(app -> {
-                        MerchantPermit merchant = merchantDao.findMerchantById(app.getMchId())
-                            .map(mer -> MerchantPermit.of(mer.getMchId(), mer.getCode(), mer.getProfitAccount(),
-                                mer.getVouchAccount(), mer.getPledgeAccount(), mer.getPrivateKey(), mer.getPublicKey()))
-                            .orElseThrow(() -> new ServiceAccessException(ErrorCode.OBJECT_NOT_FOUND, "商户信息未注册"));
-                        return ApplicationPermit.of(app.getAppId(), app.getAccessToken(), app.getPrivateKey(),
-                            app.getPublicKey(), merchant);
-                    }).orElseThrow(() -> new ServiceAccessException(ErrorCode.OBJECT_NOT_FOUND, "应用信息未注册"));
-                    applications.put(appId, permit);
-                }
-            }
-        }
-        return permit;
-
-        /*Optional<Application> application = merchantDao.findApplicationById(appId);
-        return application.map(app -> {
-            MerchantPermit merchant = merchantDao.findMerchantById(app.getMchId()).map(mer -> MerchantPermit.of(
-                mer.getMchId(), mer.getCode(), mer.getProfitAccount(), mer.getVouchAccount(), mer.getPledgeAccount(),
-                mer.getPrivateKey(), mer.getPublicKey()))
-                .orElseThrow(() -> new ServiceAccessException(ErrorCode.OBJECT_NOT_FOUND, "商户信息未注册"));
-            return ApplicationPermit.of(app.getAppId(), app.getAccessToken(), app.getPrivateKey(), app.getPublicKey(), merchant);
-        }).orElseThrow(() -> new ServiceAccessException(ErrorCode.OBJECT_NOT_FOUND, "应用信息未注册"));*/
+        ApplicationEntry application = applications.get(appId)
+            .orElseThrow(() -> new ServiceAccessException(ErrorCode.OBJECT_NOT_FOUND, "应用信息未注册"));
+        return application.permit.withMerchant(loadMerchantPermit(application.mchId));
     }
 
     /**
      * {@inheritDoc}
      *
      * 接口适用场景：应用不归属于商户，应用与商户无直接关系，根据应用ID无法获取商户信息(收益账户)
-     *
-     * 由于商户和应用信息一旦创建基本上不会修改，因此可以缓存在本地JVM中；
-     * 如后期需要限制商户状态，则只能缓存在REDIS中，商户状态更新时同步更新缓存
      */
     @Override
     public ApplicationPermit loadApplicationPermit(Long mchId, Long appId) {
-        ApplicationPermit application = applications.get(appId);
-        if (application == null) {
-            synchronized (applications) {
-                if ((application = applications.get(appId)) == null) {
-                    application = merchantDao.findApplicationById(appId).map(app -> ApplicationPermit.of(app.getAppId(),
-                            app.getAccessToken(), app.getPrivateKey(), app.getPublicKey()))
-                        .orElseThrow(() -> new ServiceAccessException(ErrorCode.OBJECT_NOT_FOUND, "应用信息未注册"));
-                    applications.put(appId, application);
-                }
-            }
-        }
+        ApplicationEntry application = applications.get(appId)
+            .orElseThrow(() -> new ServiceAccessException(ErrorCode.OBJECT_NOT_FOUND, "应用信息未注册"));
+        return application.permit.withMerchant(loadMerchantPermit(mchId));
+    }
 
-        MerchantPermit merchant = merchants.get(mchId);
-        if (merchant == null) {
-            synchronized (merchants) {
-                if ((merchant = merchants.get(mchId)) == null) {
-                    merchant = merchantDao.findMerchantById(mchId)
-                        .map(mer -> MerchantPermit.of(mer.getMchId(), mer.getCode(), mer.getProfitAccount(),
-                            mer.getVouchAccount(), mer.getPledgeAccount(), mer.getPrivateKey(), mer.getPublicKey()))
-                        .orElseThrow(() -> new ServiceAccessException(ErrorCode.OBJECT_NOT_FOUND, "商户信息未注册"));
-                    merchants.put(mchId, merchant);
-                }
-            }
-        }
-        application.setMerchant(merchant);
-        return application;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MerchantPermit loadMerchantPermit(Long mchId) {
+        return merchants.get(mchId).orElseThrow(() -> new ServiceAccessException(ErrorCode.OBJECT_NOT_FOUND, "商户信息未注册"));
     }
 
     /**
@@ -144,6 +164,12 @@ public class AccessPermitServiceImpl implements IAccessPermitService {
             .useFor(UseFor.FOR_PLEDGE.getCode()).code(null).name(request.getName()).gender(null).mobile(request.getMobile())
             .email(null).idCode(null).address(request.getAddress()).password(request.getPassword()).build();
         long pledgeId = fundAccountService.createFundAccount(request.getMchId(), pledgeAccount);
+        // 商户账户为热点账户，按配置拆分资金分桶
+        if (merchantAccountBuckets > 1) {
+            accountBucketService.createAccountBuckets(profileId, merchantAccountBuckets);
+            accountBucketService.createAccountBuckets(vouchId, merchantAccountBuckets);
+            accountBucketService.createAccountBuckets(pledgeId, merchantAccountBuckets);
+        }
 
         String[] keyPair = null;
         try {
@@ -156,6 +182,7 @@ public class AccessPermitServiceImpl implements IAccessPermitService {
             .contact(request.getContact()).mobile(request.getMobile()).privateKey(keyPair[0]).publicKey(keyPair[1])
             .state(1).createdTime(now).build();
         merchantDao.insertMerchant(merchant);
+        invalidateAfterCompletion(CACHE_MERCHANT, request.getMchId());
         return MerchantPermit.of(request.getMchId(), request.getCode(), profileId, vouchId, pledgeId, keyPair[0], keyPair[1]);
     }
 
@@ -171,6 +198,7 @@ public class AccessPermitServiceImpl implements IAccessPermitService {
         Merchant merchant = Merchant.builder().mchId(request.getMchId()).code(request.getCode()).name(request.getName())
             .address(request.getAddress()).contact(request.getContact()).mobile(request.getMobile()).modifiedTime(now).build();
         merchantDao.updateMerchant(merchant);
+        invalidateAfterCompletion(CACHE_MERCHANT, request.getMchId());
     }
 
     /**
@@ -184,6 +212,9 @@ public class AccessPermitServiceImpl implements IAccessPermitService {
         Optional<Application> applicationOpt = merchantDao.findApplicationById(request.getAppId());
         applicationOpt.ifPresent(application -> new PaymentServiceException(ErrorCode.OBJECT_ALREADY_EXISTS, "接入应用已存在"));
 
+        SignScheme signScheme = request.getSignScheme() == null ? SignScheme.RSA : SignScheme.getType(request.getSignScheme())
+            .orElseThrow(() -> new PaymentServiceException(ErrorCode.ILLEGAL_ARGUMENT_ERROR, "不支持的签名方式"));
+
         LocalDateTime now = LocalDateTime.now();
         String[] keyPair;
         try {
@@ -191,11 +222,46 @@ public class AccessPermitServiceImpl implements IAccessPermitService {
         } catch (Exception ex) {
             throw new PaymentServiceException("生成应用接口安全密钥失败", ex);
         }
+        // HMAC签名方式分配应用密钥，RSA密钥对仍然生成以便应用切换签名方式
+        String secretKey = signScheme == SignScheme.HMAC_SHA256 ? SignatureUtils.generateSecretKey() : null;
 
         Application application = Application.builder().appId(request.getAppId()).mchId(request.getMchId())
-            .name(request.getName()).accessToken(request.getAccessToken()).privateKey(keyPair[0]).publicKey(keyPair[1])
-            .createdTime(now).build();
+            .name(request.getName()).accessToken(request.getAccessToken()).signScheme(signScheme.getCode())
+            .secretKey(secretKey).privateKey(keyPair[0]).publicKey(keyPair[1]).createdTime(now).build();
         merchantDao.insertApplication(application);
-        return ApplicationPermit.of(request.getAppId(), request.getAccessToken(), keyPair[0], keyPair[1], null);
+        invalidateAfterCompletion(CACHE_APPLICATION, request.getAppId());
+        return ApplicationPermit.of(request.getAppId(), request.getAccessToken(), signScheme.getCode(), secretKey,
+            keyPair[0], keyPair[1]);
+    }
+
+    /**
+     * 立即失效本节点缓存并通知所有节点失效缓存；存在事务时事务结束后再失效和通知，
+     * 避免事务提交前并发加载的旧数据（或不存在的数据）留在缓存中
+     */
+    private void invalidateAfterCompletion(String cacheName, Long key) {
+        permitCacheInvalidator.invalidate(cacheName, key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    permitCacheInvalidator.publish(cacheName, key);
+                }
+            });
+        } else {
+            permitCacheInvalidator.publish(cacheName, key);
+        }
+    }
+
+    /**
+     * 缓存的应用接入许可及应用所属商户，接入许可不关联商户信息
+     */
+    private static class ApplicationEntry {
+        private final Long mchId;
+        private final ApplicationPermit permit;
+
+        ApplicationEntry(Long mchId, ApplicationPermit permit) {
+            this.mchId = mchId;
+            this.permit = permit;
+        }
     }
 }
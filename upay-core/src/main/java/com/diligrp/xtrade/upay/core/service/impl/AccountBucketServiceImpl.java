@@ -0,0 +1,200 @@
+package com.diligrp.xtrade.upay.core.service.impl;
+
+import com.diligrp.xtrade.upay.core.ErrorCode;
+import com.diligrp.xtrade.upay.core.dao.IAccountBucketDao;
+import com.diligrp.xtrade.upay.core.dao.IAccountFundDao;
+import com.diligrp.xtrade.upay.core.exception.FundAccountException;
+import com.diligrp.xtrade.upay.core.model.AccountBucket;
+import com.diligrp.xtrade.upay.core.model.AccountFund;
+import com.diligrp.xtrade.upay.core.service.IAccountBucketService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 账户资金分桶服务实现
+ *
+ * 分桶只记录收入，收入时原子累加分桶余额（不读取、不进行乐观锁重试）；合并时先锁定账户资金，再按读取到的分桶余额
+ * 原子扣减分桶并累加至账户资金，扣减条件保证分桶余额不为负数，因此多节点同时合并也不会重复合并资金。
+ * 本节点的分桶账户列表定时刷新，只用于收入类资金事务选择分桶（收入累加至账户资金或分桶余额结果相同），
+ * 支出、冻结类资金事务是否需要合并分桶以账户资金记录中的分桶数量标记为准
+ */
+@Service("accountBucketService")
+public class AccountBucketServiceImpl implements IAccountBucketService {
+
+    private static final int MAX_BUCKETS = 64;
+
+    private Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    @Resource
+    private IAccountBucketDao accountBucketDao;
+
+    @Resource
+    private IAccountFundDao accountFundDao;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    // 分桶账户及其分桶数量, 定时合并任务执行时刷新
+    private final Map<Long, Integer> bucketAccounts = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        try {
+            refreshBucketAccounts();
+        } catch (Exception ex) {
+            LOG.error("Load bucket accounts failed", ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
+    public void createAccountBuckets(Long accountId, int buckets) {
+        if (buckets < 2 || buckets > MAX_BUCKETS) {
+            throw new FundAccountException(ErrorCode.ILLEGAL_ARGUMENT_ERROR, "无效的资金分桶数量");
+        }
+        // 子账户无账户资金，只有主账户才能拆分资金分桶
+        accountFundDao.findAccountFundById(accountId).orElseThrow(
+            () -> new FundAccountException(ErrorCode.ACCOUNT_NOT_FOUND, "账号资金不存在"));
+        if (!accountBucketDao.findAccountBuckets(accountId).isEmpty()) {
+            throw new FundAccountException(ErrorCode.OBJECT_ALREADY_EXISTS, "账户资金分桶已存在");
+        }
+
+        LocalDateTime when = LocalDateTime.now();
+        List<AccountBucket> accountBuckets = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            accountBuckets.add(AccountBucket.builder().accountId(accountId).bucketNo(i).balance(0L)
+                .version(0).createdTime(when).build());
+        }
+        accountBucketDao.insertAccountBuckets(accountBuckets);
+        // 账户资金记录分桶数量，资金流引擎根据已读取的账户资金判断是否需要合并资金分桶
+        AccountFund accountFund = AccountFund.builder().accountId(accountId).buckets(buckets).build();
+        accountFund.setModifiedTime(when);
+        accountFundDao.updateAccountBuckets(accountFund);
+        bucketAccounts.put(accountId, buckets);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isBucketAccount(Long accountId) {
+        return bucketAccounts.containsKey(accountId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
+    public void increaseBucketBalance(Long accountId, String paymentId, long amount, LocalDateTime when) {
+        Integer buckets = bucketAccounts.get(accountId);
+        if (buckets == null) {
+            throw new FundAccountException(ErrorCode.OBJECT_NOT_FOUND, "账户资金分桶不存在");
+        }
+        int bucketNo = Math.floorMod(Objects.hashCode(paymentId), buckets);
+        AccountBucket bucket = AccountBucket.builder().accountId(accountId).bucketNo(bucketNo).balance(amount)
+            .modifiedTime(when).build();
+        if (accountBucketDao.increaseBucketBalance(bucket) == 0) {
+            throw new FundAccountException(ErrorCode.OBJECT_NOT_FOUND, "账户资金分桶不存在");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long sumBucketBalance(Long accountId) {
+        return accountBucketDao.sumBucketBalance(accountId);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * 合并加入调用方事务（包括Seata全局事务），与业务资金事务一同提交或回滚；无调用方事务时（比如：定时合并）新启事务。
+     * 先锁定账户资金再扣减分桶，同一账户的合并在数据库中串行执行，扣减未提交收入的分桶时等待其事务完成
+     */
+    @Override
+    public boolean mergeAccountBuckets(Long accountId) {
+        return transactionTemplate.execute(status -> {
+            List<AccountBucket> buckets = accountBucketDao.findAccountBuckets(accountId);
+            if (buckets.isEmpty()) {
+                return false;
+            }
+            bucketAccounts.putIfAbsent(accountId, buckets.size());
+
+            accountFundDao.lockAccountFundById(accountId).orElseThrow(
+                () -> new FundAccountException(ErrorCode.ACCOUNT_NOT_FOUND, "账号资金不存在"));
+            LocalDateTime when = LocalDateTime.now();
+            long totalAmount = 0;
+            for (AccountBucket bucket : buckets) {
+                if (bucket.getBalance() <= 0) {
+                    continue;
+                }
+                AccountBucket delta = AccountBucket.builder().accountId(accountId).bucketNo(bucket.getBucketNo())
+                    .balance(-bucket.getBalance()).modifiedTime(when).build();
+                if (accountBucketDao.increaseBucketBalance(delta) > 0) {
+                    totalAmount += bucket.getBalance();
+                }
+            }
+            if (totalAmount > 0) {
+                AccountFund accountFund = AccountFund.builder().accountId(accountId).balance(totalAmount).build();
+                accountFund.setModifiedTime(when);
+                accountFundDao.increaseAccountBalance(accountFund);
+            }
+            return totalAmount > 0;
+        });
+    }
+
+    /**
+     * 定时合并所有分桶账户的分桶余额，同时刷新本节点的分桶账户列表
+     */
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${upay.account-bucket.merge-interval:60000}")
+    public void mergeBucketAccounts() {
+        try {
+            refreshBucketAccounts();
+        } catch (Exception ex) {
+            LOG.error("Refresh bucket accounts failed", ex);
+            return;
+        }
+
+        for (Long accountId : bucketAccounts.keySet()) {
+            try {
+                mergeAccountBuckets(accountId);
+            } catch (Exception ex) {
+                LOG.error("Merge account buckets failed: accountId={}", accountId, ex);
+            }
+        }
+    }
+
+    private void refreshBucketAccounts() {
+        Map<Long, Integer> accounts = new HashMap<>();
+        accountBucketDao.listAccountBuckets().forEach(bucket -> accounts.merge(bucket.getAccountId(), 1, Integer::sum));
+        bucketAccounts.putAll(accounts);
+        bucketAccounts.keySet().retainAll(accounts.keySet());
+    }
+}
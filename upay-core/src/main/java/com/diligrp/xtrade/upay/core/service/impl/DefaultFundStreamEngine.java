@@ -3,42 +3,72 @@ package com.diligrp.xtrade.upay.core.service.impl;
 import com.diligrp.xtrade.upay.core.ErrorCode;
 import com.diligrp.xtrade.upay.core.dao.IAccountFundDao;
 import com.diligrp.xtrade.upay.core.dao.IFundStatementDao;
-import com.diligrp.xtrade.upay.core.domain.FundActivity;
 import com.diligrp.xtrade.upay.core.domain.FundTransaction;
+import com.diligrp.xtrade.upay.core.domain.HotAccount;
 import com.diligrp.xtrade.upay.core.domain.TransactionStatus;
 import com.diligrp.xtrade.upay.core.exception.FundAccountException;
 import com.diligrp.xtrade.upay.core.model.AccountFund;
 import com.diligrp.xtrade.upay.core.model.FundStatement;
+import com.diligrp.xtrade.upay.core.service.IAccountBucketService;
 import com.diligrp.xtrade.upay.core.service.IFundAccountService;
 import com.diligrp.xtrade.upay.core.service.IFundStreamEngine;
 import com.diligrp.xtrade.upay.core.type.ActionType;
+import com.diligrp.xtrade.upay.core.type.LockMode;
+import com.diligrp.xtrade.upay.core.util.AccountLockAdvisor;
+import com.diligrp.xtrade.upay.core.util.HotAccountTracker;
+import com.diligrp.xtrade.upay.core.util.PaymentMetrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 /**
  * 核心资金流引擎实现
+ *
+ * 通过配置项upay.fund-engine.mode选择资金流引擎的实现模式，未配置时使用此默认实现（乐观锁模式）
  */
 @Service("fundStreamEngine")
+@ConditionalOnProperty(name = "upay.fund-engine.mode", havingValue = "default", matchIfMissing = true)
 public class DefaultFundStreamEngine implements IFundStreamEngine {
 
-    private static final int RETRIES = 3;
+    protected static final int RETRIES = 3;
+    // 乐观锁重试退避时间基数-毫秒
+    private static final long BACKOFF_MILLIS = 5;
+    // 资金流引擎监控指标
+    protected static final String METRIC_SUBMIT = "upay.fund.engine.submit";
+    protected static final String METRIC_CAS = "upay.fund.engine.cas";
+    protected static final String METRIC_CAS_EXHAUSTED = "upay.fund.engine.cas.exhausted";
+    protected static final String METRIC_STATEMENTS = "upay.fund.engine.statements";
 
     @Resource
-    private IFundAccountService fundAccountService;
+    protected IFundAccountService fundAccountService;
 
     @Resource
-    private IAccountFundDao accountFundDao;
+    protected IAccountFundDao accountFundDao;
 
     @Resource
-    private IFundStatementDao fundStatementDao;
+    protected IFundStatementDao fundStatementDao;
+
+    @Resource
+    protected IAccountBucketService accountBucketService;
+
+    protected final AccountLockAdvisor lockAdvisor = new AccountLockAdvisor();
+
+    // 热点账户统计：乐观锁冲突次数和资金事务提交次数
+    protected final HotAccountTracker conflictTracker = new HotAccountTracker();
+
+    protected final HotAccountTracker submitTracker = new HotAccountTracker();
 
     /**
      * {@inheritDoc}
@@ -53,75 +83,313 @@ public class DefaultFundStreamEngine implements IFundStreamEngine {
     @Override
     @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
     public TransactionStatus submit(FundTransaction transaction) {
-        boolean success = true;
-        TransactionStatus status = null;
+        return submitAll(Collections.singletonList(transaction)).get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * 资金事务按主账号ID升序处理，同一主账号的多个资金事务合并为一次账户资金修改，所有资金流水一次批量插入；
+     * 固定的加锁顺序保证相同账户间的反向交易（比如：A付款给B的同时B付款给A）不会相互死锁
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
+    public List<TransactionStatus> submitAll(List<FundTransaction> transactions) {
+        Timer.Sample sample = PaymentMetrics.start();
+        Throwable error = null;
+        try {
+            return submitTransactions(transactions);
+        } catch (RuntimeException ex) {
+            error = ex;
+            throw ex;
+        } finally {
+            PaymentMetrics.stop(sample, METRIC_SUBMIT, error, "mode", engineMode());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LockMode lockMode(Long accountId) {
+        return lockAdvisor.lockMode(accountId);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * 使用有限内存的热点统计，冲突次数和提交次数均为近期估算值，统计数据只保存在本节点
+     */
+    @Override
+    public List<HotAccount> hotAccounts(int top) {
+        List<HotAccount> hotAccounts = new ArrayList<>();
+        for (HotAccountTracker.Entry entry : conflictTracker.topAccounts(top)) {
+            hotAccounts.add(HotAccount.of(entry.getAccountId(), entry.getCount(), entry.getError(),
+                submitTracker.count(entry.getAccountId()), lockMode(entry.getAccountId())));
+        }
+        return hotAccounts;
+    }
+
+    /**
+     * 资金流引擎实现模式，用作监控指标标签
+     */
+    protected String engineMode() {
+        return "default";
+    }
+
+    private List<TransactionStatus> submitTransactions(List<FundTransaction> transactions) {
         // 将子账号的交易操作主账号资金
-        Long masterAccountId = transaction.getParentId() == 0 ? transaction.getAccountId() : transaction.getParentId();
-        Long childAccountId = transaction.getParentId() == 0 ? null : transaction.getAccountId();
-        for (int retry = 0; retry < RETRIES; retry ++) {
-            // 新启事务查询账户资金及数据版本，避免数据库隔离级别和Mybatis缓存造成乐观锁重试机制无法生效
-            AccountFund accountFund = fundAccountService.findAccountFundById(masterAccountId);
-            status = TransactionStatus.of(accountFund.getAccountId(), accountFund.getBalance(), 0L,
-                accountFund.getFrozenAmount(), transaction.getFrozenAmount(), transaction.getWhen());
-            // 处理解冻资金transaction.getFrozenAmount()<0
-            if (transaction.isUnfrozenTransaction()) {
-                // 判断冻结余额是否充足
-                if (accountFund.getFrozenAmount() + transaction.getFrozenAmount() < 0) {
-                    throw new FundAccountException(ErrorCode.INSUFFICIENT_ACCOUNT_FUND, "账户冻结余额不足");
-                }
-                accountFund.setFrozenAmount(accountFund.getFrozenAmount() + transaction.getFrozenAmount());
-            }
-            // 处理资金交易
-            if (transaction.isFundTransaction()) {
-                long totalAmount = Arrays.stream(transaction.getActivities()).mapToLong(FundActivity::getAmount).sum();
-                long availableAmount = accountFund.getBalance() - accountFund.getFrozenAmount();
-                // 如果为资金支出(totalAmount<0)则判断账户余额是否充足
-                if (availableAmount + totalAmount < 0) {
-                    throw new FundAccountException(ErrorCode.INSUFFICIENT_ACCOUNT_FUND, "账户余额不足");
-                }
-                accountFund.setBalance(accountFund.getBalance() + totalAmount);
-                status.setAmount(totalAmount);
+        Map<Long, List<Integer>> accountLegs = new TreeMap<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            FundTransaction transaction = transactions.get(i);
+            Long masterAccountId = transaction.getParentId() == 0 ? transaction.getAccountId() : transaction.getParentId();
+            accountLegs.computeIfAbsent(masterAccountId, key -> new ArrayList<>()).add(i);
+        }
+
+        TransactionStatus[] statuses = new TransactionStatus[transactions.size()];
+        List<FundStatement> statements = new ArrayList<>();
+        for (Map.Entry<Long, List<Integer>> entry : accountLegs.entrySet()) {
+            Long masterAccountId = entry.getKey();
+            submitTracker.record(masterAccountId);
+            List<FundTransaction> legs = entry.getValue().stream().map(transactions::get).collect(Collectors.toList());
+            List<TransactionStatus> legStatuses;
+            if (accountBucketService.isBucketAccount(masterAccountId)
+                && legs.stream().allMatch(FundTransaction::isIncomeTransaction)) {
+                legStatuses = submitBucketTransaction(masterAccountId, legs);
+            } else {
+                legStatuses = submitAccountFund(masterAccountId, legs);
             }
-            // 处理冻结资金transaction.getFrozenAmount() > 0
-            if (transaction.isFrozenTransacton()) {
-                long availableAmount = accountFund.getBalance() - accountFund.getFrozenAmount();
-                // 判断账户余额是否充足
-                if (availableAmount - transaction.getFrozenAmount() < 0) {
-                    throw new FundAccountException(ErrorCode.INSUFFICIENT_ACCOUNT_FUND, "账户余额不足");
+
+            for (int i = 0; i < legs.size(); i++) {
+                FundTransaction transaction = legs.get(i);
+                TransactionStatus status = legStatuses.get(i);
+                if (transaction.isFundTransaction()) {
+                    statements.addAll(fundStatements(transaction, status));
                 }
-                accountFund.setFrozenAmount(accountFund.getFrozenAmount() + transaction.getFrozenAmount());
+                statuses[entry.getValue().get(i)] = status;
             }
+        }
+
+        if (!statements.isEmpty()) {
+            fundStatementDao.insertFundStatements(statements);
+        }
+        PaymentMetrics.summary(METRIC_STATEMENTS, statements.size(), "mode", engineMode());
+        return Arrays.asList(statuses);
+    }
+
+    /**
+     * 修改账户资金并返回每个资金事务的事务状态，同一主账号的多个资金事务按提交顺序依次计算期初余额
+     *
+     * 冷账户使用乐观锁并在数据并发修改时随机退避重试；乐观锁冲突频繁的热点账户自动切换为悲观锁模式，
+     * 在当前事务中使用SELECT ... FOR UPDATE锁定账户资金后修改，竞争消退后自动切回乐观锁模式
+     */
+    protected List<TransactionStatus> submitAccountFund(Long masterAccountId, List<FundTransaction> transactions) {
+        if (lockAdvisor.lockMode(masterAccountId) == LockMode.PESSIMISTIC) {
+            return submitAccountFundWithLock(masterAccountId, transactions);
+        }
 
-            accountFund.setModifiedTime(transaction.getWhen());
+        boolean success = true;
+        List<TransactionStatus> statuses = null;
+        for (int retry = 0; retry < RETRIES; retry ++) {
+            // 新启事务查询账户资金及数据版本，避免数据库隔离级别和Mybatis缓存造成乐观锁重试机制无法生效
+            AccountFund accountFund = fundAccountService.loadAccountFund(masterAccountId);
+            if (hasAccountBuckets(accountFund)) {
+                // 分桶账户须在当前事务中合并分桶余额，新启事务无法读取未提交的合并结果，因此使用悲观锁模式修改账户资金
+                return submitAccountFundWithLock(masterAccountId, transactions);
+            }
+            statuses = applyTransactions(accountFund, transactions);
             success = compareAndSetVersion(accountFund);
+            lockAdvisor.optimisticResult(masterAccountId, success);
+            casResult(masterAccountId, transactions.get(0), success);
             if (success) break;
+            backoff(retry);
         }
 
         if (!success) {
+            PaymentMetrics.increment(METRIC_CAS_EXHAUSTED, "tradeType", String.valueOf(transactions.get(0).getType()));
+            throw new FundAccountException(ErrorCode.DATA_CONCURRENT_UPDATED, "系统正忙，请稍后重试");
+        }
+        return statuses;
+    }
+
+    /**
+     * 悲观锁模式修改账户资金：当前事务持有账户资金行锁，数据版本修改不会失败；
+     * 账户资金的分桶标记表明账户已拆分资金分桶时，先在当前事务中合并分桶余额再修改账户资金
+     */
+    protected List<TransactionStatus> submitAccountFundWithLock(Long masterAccountId, List<FundTransaction> transactions) {
+        long startTime = System.nanoTime();
+        AccountFund accountFund = lockAccountFund(masterAccountId);
+        lockAdvisor.pessimisticResult(masterAccountId, System.nanoTime() - startTime);
+        if (hasAccountBuckets(accountFund) && accountBucketService.mergeAccountBuckets(masterAccountId)) {
+            accountFund = lockAccountFund(masterAccountId);
+        }
+        List<TransactionStatus> statuses = applyTransactions(accountFund, transactions);
+        if (!compareAndSetVersion(accountFund)) {
             throw new FundAccountException(ErrorCode.DATA_CONCURRENT_UPDATED, "系统正忙，请稍后重试");
         }
+        return statuses;
+    }
+
+    private AccountFund lockAccountFund(Long masterAccountId) {
+        return accountFundDao.lockAccountFundById(masterAccountId).orElseThrow(
+            () -> new FundAccountException(ErrorCode.ACCOUNT_NOT_FOUND, "账号资金不存在"));
+    }
+
+    /**
+     * 根据账户资金的分桶标记判断账户是否已拆分资金分桶，未拆分的账户无需查询或合并资金分桶
+     */
+    protected boolean hasAccountBuckets(AccountFund accountFund) {
+        return accountFund.getBuckets() > 0;
+    }
 
+    /**
+     * 记录乐观锁修改结果：监控指标按交易类型统计修改次数和冲突次数（不使用账号ID作为标签），
+     * 冲突账户由热点账户统计器跟踪
+     */
+    protected void casResult(Long masterAccountId, FundTransaction transaction, boolean success) {
+        if (!success) {
+            conflictTracker.record(masterAccountId);
+        }
+        PaymentMetrics.increment(METRIC_CAS, "tradeType", String.valueOf(transaction.getType()),
+            PaymentMetrics.TAG_RESULT, success ? PaymentMetrics.RESULT_SUCCESS : "conflict");
+    }
+
+    /**
+     * 乐观锁重试前随机退避，避免并发事务同时重试再次冲突
+     */
+    private void backoff(int retry) {
+        if (retry < RETRIES - 1) {
+            try {
+                Thread.sleep(1 + ThreadLocalRandom.current().nextLong(BACKOFF_MILLIS << retry));
+            } catch (InterruptedException iex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 分桶账户的收入类资金事务：原子累加某个资金分桶余额，不修改账户资金数据版本
+     *
+     * 资金流水期初余额取已提交的账户汇总余额（账户资金与分桶余额之和），并发收入时期初余额为近似值
+     */
+    protected List<TransactionStatus> submitBucketTransaction(Long masterAccountId, List<FundTransaction> transactions) {
+        AccountFund accountFund = fundAccountService.findAccountFundById(masterAccountId);
+        List<TransactionStatus> statuses = applyTransactions(accountFund, transactions);
+        for (int i = 0; i < transactions.size(); i++) {
+            FundTransaction transaction = transactions.get(i);
+            accountBucketService.increaseBucketBalance(masterAccountId, transaction.getPaymentId(),
+                statuses.get(i).getAmount(), transaction.getWhen());
+        }
+        return statuses;
+    }
+
+    /**
+     * 将同一主账号的多个资金事务依次应用到账户资金上，任一事务余额校验失败时抛出异常
+     */
+    protected List<TransactionStatus> applyTransactions(AccountFund accountFund, List<FundTransaction> transactions) {
+        List<TransactionStatus> statuses = new ArrayList<>(transactions.size());
+        for (FundTransaction transaction : transactions) {
+            statuses.add(applyTransaction(accountFund, transaction));
+        }
+        return statuses;
+    }
+
+    /**
+     * 将资金事务应用到账户资金上：校验余额并修改余额和冻结金额，返回以当前余额为期初余额的事务状态；
+     * 余额校验失败时抛出异常且不修改账户资金
+     */
+    protected TransactionStatus applyTransaction(AccountFund accountFund, FundTransaction transaction) {
+        TransactionStatus status = TransactionStatus.of(accountFund.getAccountId(), accountFund.getBalance(), 0L,
+            accountFund.getFrozenAmount(), transaction.getFrozenAmount(), transaction.getWhen());
+        long balance = accountFund.getBalance();
+        long frozenAmount = accountFund.getFrozenAmount();
+        // 处理解冻资金transaction.getFrozenAmount()<0
+        if (transaction.isUnfrozenTransaction()) {
+            // 判断冻结余额是否充足
+            if (frozenAmount + transaction.getFrozenAmount() < 0) {
+                throw new FundAccountException(ErrorCode.INSUFFICIENT_ACCOUNT_FUND, "账户冻结余额不足");
+            }
+            frozenAmount = frozenAmount + transaction.getFrozenAmount();
+        }
+        // 处理资金交易
         if (transaction.isFundTransaction()) {
-            // 生成资金交易明细，sorted(FundActivity::compare)目的是保证先产生收入明细后产生支出明细，
-            // 保证收支明细中期初余额不会为负数
-            AtomicLong balance = new AtomicLong(status.getBalance());
-            List<FundStatement> statements = Arrays.stream(transaction.getActivities())
-                .filter(activity -> activity.getAmount() != 0).sorted(FundActivity::compare)
-                .map(activity -> FundStatement.builder().paymentId(transaction.getPaymentId())
-                    .accountId(masterAccountId).childId(childAccountId).tradeType(transaction.getType())
-                    .action(ActionType.getByAmount(activity.getAmount()).getCode())
-                    .balance(balance.getAndAdd(activity.getAmount())).amount(activity.getAmount()).type(activity.getType())
-                    .typeName(activity.getTypeName()).description(null).createdTime(transaction.getWhen()).build())
-                .collect(Collectors.toList());
-            // 返回资金收支明细
-            status.ofStreams(statements.stream().map(stmt -> TransactionStatus.FundStream.of(stmt.getBalance(), stmt.getAmount(),
-                stmt.getType(), stmt.getTypeName())).collect(Collectors.toList()));
-            fundStatementDao.insertFundStatements(statements);
+            long totalAmount = transaction.getTotalAmount();
+            long availableAmount = balance - frozenAmount;
+            // 如果为资金支出(totalAmount<0)则判断账户余额是否充足
+            if (availableAmount + totalAmount < 0) {
+                throw new FundAccountException(ErrorCode.INSUFFICIENT_ACCOUNT_FUND, "账户余额不足");
+            }
+            balance = balance + totalAmount;
+            status.setAmount(totalAmount);
+        }
+        // 处理冻结资金transaction.getFrozenAmount() > 0
+        if (transaction.isFrozenTransacton()) {
+            long availableAmount = balance - frozenAmount;
+            // 判断账户余额是否充足
+            if (availableAmount - transaction.getFrozenAmount() < 0) {
+                throw new FundAccountException(ErrorCode.INSUFFICIENT_ACCOUNT_FUND, "账户余额不足");
+            }
+            frozenAmount = frozenAmount + transaction.getFrozenAmount();
         }
+
+        accountFund.setBalance(balance);
+        accountFund.setFrozenAmount(frozenAmount);
+        accountFund.setModifiedTime(transaction.getWhen());
         return status;
     }
 
-    private boolean compareAndSetVersion(AccountFund accountFund) {
+    /**
+     * 根据事务状态中的期初余额生成资金交易明细，同时将收支明细返回给事务状态
+     *
+     * 一次遍历资金明细生成收支明细：收入明细按顺序排在前面，支出明细按顺序排在收入明细之后（与FundActivity::compare
+     * 排序结果一致），支出明细的期初余额从"期初余额+收入总额"开始计算，保证收支明细中期初余额不会为负数
+     */
+    protected List<FundStatement> fundStatements(FundTransaction transaction, TransactionStatus status) {
+        Long masterAccountId = transaction.getParentId() == 0 ? transaction.getAccountId() : transaction.getParentId();
+        Long childAccountId = transaction.getParentId() == 0 ? null : transaction.getAccountId();
+        int size = transaction.getIncomes() + transaction.getOutgoes();
+        FundStatement[] statements = new FundStatement[size];
+        TransactionStatus.FundStream[] streams = new TransactionStatus.FundStream[size];
+        long incomeBalance = status.getBalance();
+        long outgoBalance = incomeBalance + transaction.getIncomeAmount();
+        int incomeIndex = 0, outgoIndex = transaction.getIncomes();
+        for (int i = 0; i < transaction.getActivitySize(); i++) {
+            long amount = transaction.getAmount(i);
+            int index;
+            long balance;
+            if (amount > 0) {
+                index = incomeIndex ++;
+                balance = incomeBalance;
+                incomeBalance += amount;
+            } else if (amount < 0) {
+                index = outgoIndex ++;
+                balance = outgoBalance;
+                outgoBalance += amount;
+            } else {
+                continue;
+            }
+
+            FundStatement statement = new FundStatement();
+            statement.setPaymentId(transaction.getPaymentId());
+            statement.setAccountId(masterAccountId);
+            statement.setChildId(childAccountId);
+            statement.setTradeType(transaction.getType());
+            statement.setAction(ActionType.getByAmount(amount).getCode());
+            statement.setBalance(balance);
+            statement.setAmount(amount);
+            statement.setType(transaction.getActivityType(i));
+            statement.setTypeName(transaction.getTypeName(i));
+            statement.setCreatedTime(transaction.getWhen());
+            statements[index] = statement;
+            streams[index] = TransactionStatus.FundStream.of(balance, amount, transaction.getActivityType(i),
+                transaction.getTypeName(i));
+        }
+        // 返回资金收支明细
+        status.ofStreams(Arrays.asList(streams));
+        return Arrays.asList(statements);
+    }
+
+    protected boolean compareAndSetVersion(AccountFund accountFund) {
         return accountFundDao.compareAndSetVersion(accountFund) > 0;
     }
 }
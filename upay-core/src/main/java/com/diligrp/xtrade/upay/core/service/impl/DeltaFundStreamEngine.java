@@ -0,0 +1,93 @@
+package com.diligrp.xtrade.upay.core.service.impl;
+
+import com.diligrp.xtrade.upay.core.ErrorCode;
+import com.diligrp.xtrade.upay.core.domain.FundDeltaDto;
+import com.diligrp.xtrade.upay.core.domain.FundTransaction;
+import com.diligrp.xtrade.upay.core.domain.TransactionStatus;
+import com.diligrp.xtrade.upay.core.exception.FundAccountException;
+import com.diligrp.xtrade.upay.core.model.AccountFund;
+import com.diligrp.xtrade.upay.core.type.LockMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量修改模式的资金流引擎实现，配置upay.fund-engine.mode=delta时启用
+ *
+ * 默认实现每次修改账户资金需新启事务（占用第二个数据库连接）查询账户资金，再进行乐观锁修改，并发冲突时重试；
+ * 增量模式使用一条带余额校验条件的UPDATE语句原子修改余额和冻结金额，修改成功后在当前事务中查询修改后的账户资金
+ * （当前事务已持有行锁，查询结果即修改后数据），倒推出期初余额用于事务状态和资金流水，每个资金事务只需1-2次数据库交互，
+ * 不占用额外的数据库连接，也不存在乐观锁重试；代价是账户行锁持有到当前事务提交。
+ * 分桶账户根据查询到的账户资金分桶标记在当前事务中合并分桶余额，未拆分资金分桶的账户不产生额外的数据库交互。
+ */
+@Service("fundStreamEngine")
+@ConditionalOnProperty(name = "upay.fund-engine.mode", havingValue = "delta")
+public class DeltaFundStreamEngine extends DefaultFundStreamEngine {
+
+    /**
+     * {@inheritDoc}
+     *
+     * 增量模式修改账户资金时始终持有账户资金行锁直到当前事务提交
+     */
+    @Override
+    public LockMode lockMode(Long accountId) {
+        return LockMode.PESSIMISTIC;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String engineMode() {
+        return "delta";
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * 同一主账号的多个资金事务依次执行增量修改，当前事务已持有行锁，后续修改不会被阻塞；
+     * 分桶账户只在第一个资金事务修改后合并分桶余额
+     */
+    @Override
+    protected List<TransactionStatus> submitAccountFund(Long masterAccountId, List<FundTransaction> transactions) {
+        List<TransactionStatus> statuses = new ArrayList<>(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            statuses.add(increaseAccountFund(masterAccountId, transactions.get(i), i == 0));
+        }
+        return statuses;
+    }
+
+    /**
+     * 增量修改账户资金，余额校验条件不满足时修改记录数为0，此时查询账户资金确定失败原因；
+     * 查询到的账户资金标记为分桶账户时合并分桶余额，余额校验失败的增量修改在合并后重新执行一次
+     */
+    private TransactionStatus increaseAccountFund(Long masterAccountId, FundTransaction transaction, boolean mergeBuckets) {
+        long amount = transaction.getTotalAmount();
+        FundDeltaDto delta = FundDeltaDto.of(masterAccountId, amount, transaction.getFrozenAmount(),
+            transaction.isFundTransaction(), transaction.getWhen());
+        int result = accountFundDao.increaseAccountFund(delta);
+        AccountFund accountFund = findAccountFund(masterAccountId);
+        if (mergeBuckets && hasAccountBuckets(accountFund) && accountBucketService.mergeAccountBuckets(masterAccountId)) {
+            if (result == 0) {
+                result = accountFundDao.increaseAccountFund(delta);
+            }
+            accountFund = findAccountFund(masterAccountId);
+        }
+        if (result == 0) {
+            // 抛出与默认实现一致的余额不足异常信息
+            applyTransaction(accountFund, transaction);
+            throw new FundAccountException(ErrorCode.INSUFFICIENT_ACCOUNT_FUND, "账户余额不足");
+        }
+
+        return TransactionStatus.of(accountFund.getAccountId(), accountFund.getBalance() - amount, amount,
+            accountFund.getFrozenAmount() - transaction.getFrozenAmount(), transaction.getFrozenAmount(),
+            transaction.getWhen());
+    }
+
+    private AccountFund findAccountFund(Long masterAccountId) {
+        return accountFundDao.findAccountFundById(masterAccountId).orElseThrow(
+            () -> new FundAccountException(ErrorCode.ACCOUNT_NOT_FOUND, "账号资金不存在"));
+    }
+}
\ No newline at end of file
@@ -1,8 +1,8 @@
 package com.diligrp.xtrade.upay.core.service.impl;
 
+import com.diligrp.xtrade.shared.redis.JedisDataSource;
 import com.diligrp.xtrade.shared.security.PasswordUtils;
 import com.diligrp.xtrade.shared.sequence.IKeyGenerator;
-import com.diligrp.xtrade.shared.sequence.KeyGeneratorManager;
 import com.diligrp.xtrade.shared.type.Gender;
 import com.diligrp.xtrade.shared.util.ObjectUtils;
 import com.diligrp.xtrade.upay.core.ErrorCode;
@@ -13,21 +13,36 @@ import com.diligrp.xtrade.upay.core.domain.RegisterAccount;
 import com.diligrp.xtrade.upay.core.exception.FundAccountException;
 import com.diligrp.xtrade.upay.core.model.AccountFund;
 import com.diligrp.xtrade.upay.core.model.FundAccount;
+import com.diligrp.xtrade.upay.core.service.IAccountBucketService;
 import com.diligrp.xtrade.upay.core.service.IFundAccountService;
 import com.diligrp.xtrade.upay.core.type.AccountState;
 import com.diligrp.xtrade.upay.core.type.AccountType;
 import com.diligrp.xtrade.upay.core.type.SequenceKey;
 import com.diligrp.xtrade.upay.core.type.UseFor;
 import com.diligrp.xtrade.upay.core.util.AccountStateMachine;
-import com.diligrp.xtrade.upay.core.util.AsyncTaskExecutor;
+import com.diligrp.xtrade.upay.core.util.FundAccountCache;
+import com.diligrp.xtrade.upay.core.util.IdentityMap;
+import com.diligrp.xtrade.upay.core.util.SegmentKeyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -43,7 +58,48 @@ public class FundAccountServiceImpl implements IFundAccountService {
     private IAccountFundDao accountFundDao;
 
     @Resource
-    private KeyGeneratorManager keyGeneratorManager;
+    private IAccountBucketService accountBucketService;
+
+    @Resource
+    private SegmentKeyManager segmentKeyManager;
+
+    @Autowired(required = false)
+    private JedisDataSource jedisDataSource;
+
+    // 是否启用资金账户本地缓存，需启用Jedis
+    @Value("${upay.account-cache.enable:false}")
+    private boolean accountCacheEnable;
+
+    @Value("${upay.account-cache.capacity:10000}")
+    private int accountCacheCapacity;
+
+    // 缓存过期时间-毫秒
+    @Value("${upay.account-cache.ttl:60000}")
+    private long accountCacheTtl;
+
+    private Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    // 资金账户本地缓存，未启用时为null
+    private FundAccountCache accountCache;
+
+    @PostConstruct
+    public void init() {
+        if (accountCacheEnable) {
+            if (jedisDataSource == null) {
+                LOG.warn("Fund account cache disabled: jedis not configured");
+                return;
+            }
+            accountCache = new FundAccountCache(jedisDataSource, accountCacheCapacity, accountCacheTtl);
+            accountCache.start();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (accountCache != null) {
+            accountCache.close();
+        }
+    }
 
     /**
      * {@inheritDoc}
@@ -61,9 +117,9 @@ public class FundAccountServiceImpl implements IFundAccountService {
         }
 
         LocalDateTime when = LocalDateTime.now();
-        IKeyGenerator keyGenerator = keyGeneratorManager.getKeyGenerator(SequenceKey.FUND_ACCOUNT);
-        // 异步执行避免Seata回滚造成ID重复
-        long accountId = AsyncTaskExecutor.submit(() -> keyGenerator.nextId());
+        IKeyGenerator keyGenerator = segmentKeyManager.getKeyGenerator(SequenceKey.FUND_ACCOUNT);
+        // 号段ID在后台独立事务中预取，避免Seata回滚造成ID重复
+        long accountId = keyGenerator.nextId();
         String secretKey = PasswordUtils.generateSecretKey();
         String password = PasswordUtils.encrypt(account.getPassword(), secretKey);
 
@@ -84,7 +140,7 @@ public class FundAccountServiceImpl implements IFundAccountService {
         // 子账户无须创建账户资金，共享主账户资金
         fundAccount.ifMasterAccount(act -> {
             AccountFund accountFund = AccountFund.builder().accountId(accountId).balance(0L).frozenAmount(0L)
-                .vouchAmount(0L).version(0).createdTime(when).build();
+                .vouchAmount(0L).buckets(0).version(0).createdTime(when).build();
             accountFundDao.insertAccountFund(accountFund);
         });
 
@@ -103,6 +159,7 @@ public class FundAccountServiceImpl implements IFundAccountService {
 
         AccountStateDto accountState = AccountStateDto.of(accountId, AccountState.FROZEN.getCode(),
             LocalDateTime.now(), accountOpt.get().getVersion());
+        invalidateAccountCache(accountId, accountOpt.get().getVersion() + 1);
         Integer result = fundAccountDao.compareAndSetState(accountState);
         if (result == 0) {
             throw new FundAccountException(ErrorCode.DATA_CONCURRENT_UPDATED, "系统正忙，请稍后重试");
@@ -121,6 +178,7 @@ public class FundAccountServiceImpl implements IFundAccountService {
 
         AccountStateDto accountState = AccountStateDto.of(accountId, AccountState.NORMAL.getCode(),
             LocalDateTime.now(), accountOpt.get().getVersion());
+        invalidateAccountCache(accountId, accountOpt.get().getVersion() + 1);
         Integer result = fundAccountDao.compareAndSetState(accountState);
         if (result == 0) {
             throw new FundAccountException(ErrorCode.DATA_CONCURRENT_UPDATED, "系统正忙，请稍后重试");
@@ -142,6 +200,8 @@ public class FundAccountServiceImpl implements IFundAccountService {
         }
         accountOpt.ifPresent(AccountStateMachine::unregisterAccountCheck);
         Optional<AccountFund> fundOpt = accountFundDao.findAccountFundById(accountId);
+        fundOpt.filter(fund -> fund.getBuckets() > 0)
+            .ifPresent(fund -> fund.setBalance(fund.getBalance() + accountBucketService.sumBucketBalance(accountId)));
         fundOpt.ifPresent(AccountStateMachine::unregisterFundCheck);
 
         // 不能注销存在子账号的资金账号
@@ -151,19 +211,42 @@ public class FundAccountServiceImpl implements IFundAccountService {
         });
         AccountStateDto accountState = AccountStateDto.of(accountId, AccountState.VOID.getCode(),
             LocalDateTime.now(), accountOpt.get().getVersion());
+        invalidateAccountCache(accountId, accountOpt.get().getVersion() + 1);
         Integer result = fundAccountDao.compareAndSetState(accountState);
         if (result == 0) {
             throw new FundAccountException(ErrorCode.DATA_CONCURRENT_UPDATED, "系统正忙，请稍后重试");
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * 同一事务中的资金账户只查询一次；启用资金账户缓存时优先查询本地缓存，当前事务中已修改的资金账户不使用缓存
+     */
     @Override
     public FundAccount findFundAccountById(Long accountId) {
-        Optional<FundAccount> accountOpt = fundAccountDao.findFundAccountById(accountId);
+        Optional<FundAccount> accountOpt = IdentityMap.find(FundAccount.class, accountId, () -> loadFundAccount(accountId));
         accountOpt.ifPresent(AccountStateMachine::voidAccountCheck);
         return accountOpt.orElseThrow(() -> new FundAccountException(ErrorCode.ACCOUNT_NOT_FOUND, "资金账号不存在"));
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * 查询账户资金时汇总资金分桶余额，新启事务保证读取到最新提交的账户资金和分桶余额；
+     * 根据账户资金记录中的分桶标记而非本节点的分桶账户列表判断，避免其他节点新拆分的分桶账户尚未刷新到本节点时漏算分桶余额
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
+    public AccountFund findAccountFundById(Long accountId) {
+        Optional<AccountFund> fundOpt = accountFundDao.findAccountFundById(accountId);
+        AccountFund accountFund = fundOpt.orElseThrow(() -> new FundAccountException(ErrorCode.ACCOUNT_NOT_FOUND, "账号资金不存在"));
+        if (accountFund.getBuckets() > 0) {
+            accountFund.setBalance(accountFund.getBalance() + accountBucketService.sumBucketBalance(accountId));
+        }
+        return accountFund;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -174,7 +257,7 @@ public class FundAccountServiceImpl implements IFundAccountService {
      */
     @Override
     @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
-    public AccountFund findAccountFundById(Long accountId) {
+    public AccountFund loadAccountFund(Long accountId) {
         Optional<AccountFund> fundOpt = accountFundDao.findAccountFundById(accountId);
         return fundOpt.orElseThrow(() -> new FundAccountException(ErrorCode.ACCOUNT_NOT_FOUND, "账号资金不存在"));
     }
@@ -195,6 +278,66 @@ public class FundAccountServiceImpl implements IFundAccountService {
         account.setLoginPwd(newPassword);
         account.setPassword(newPassword);
         account.setModifiedTime(LocalDateTime.now());
+        invalidateAccountCache(accountId, account.getVersion() + 1);
         fundAccountDao.updateFundAccount(account);
     }
+
+    private Optional<FundAccount> loadFundAccount(Long accountId) {
+        boolean cacheable = accountCache != null && !modifiedAccounts(false).containsKey(accountId);
+        Optional<FundAccount> accountOpt = cacheable ? accountCache.get(accountId) : Optional.empty();
+        if (!accountOpt.isPresent()) {
+            accountOpt = fundAccountDao.findFundAccountById(accountId);
+            if (cacheable) {
+                accountOpt.ifPresent(accountCache::put);
+            }
+        }
+        return accountOpt;
+    }
+
+    /**
+     * 修改资金账户前失效当前事务和本节点缓存，事务提交后通知所有节点失效缓存，事务回滚时移除本节点的失效记录
+     */
+    private void invalidateAccountCache(Long accountId, long version) {
+        IdentityMap.evict(FundAccount.class, accountId);
+        if (accountCache == null) {
+            return;
+        }
+        accountCache.invalidate(accountId, version);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            modifiedAccounts(true).put(accountId, version);
+        } else {
+            accountCache.publish(accountId, version);
+        }
+    }
+
+    /**
+     * 当前事务中已修改的资金账户及修改后的数据版本，事务完成后通知缓存失效并自动清除
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Long, Long> modifiedAccounts(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Long> accounts = (Map<Long, Long>) TransactionSynchronizationManager.getResource(this);
+        if (accounts == null) {
+            if (!create) {
+                return Collections.emptyMap();
+            }
+            Map<Long, Long> resource = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, resource);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(FundAccountServiceImpl.this);
+                    if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                        resource.forEach(accountCache::publish);
+                    } else {
+                        resource.keySet().forEach(accountCache::evict);
+                    }
+                }
+            });
+            accounts = resource;
+        }
+        return accounts;
+    }
 }
\ No newline at end of file
@@ -1,17 +1,32 @@
 package com.diligrp.xtrade.upay.core.service.impl;
 
 import com.diligrp.xtrade.shared.redis.IRedisSystemService;
+import com.diligrp.xtrade.shared.redis.JedisDataSource;
 import com.diligrp.xtrade.shared.util.AssertUtils;
 import com.diligrp.xtrade.shared.util.ObjectUtils;
+import com.diligrp.xtrade.upay.core.ErrorCode;
 import com.diligrp.xtrade.upay.core.dao.IDataDictionaryDao;
+import com.diligrp.xtrade.upay.core.exception.PaymentServiceException;
 import com.diligrp.xtrade.upay.core.model.DataDictionary;
 import com.diligrp.xtrade.upay.core.service.IPaymentConfigService;
+import com.diligrp.xtrade.upay.core.util.CircuitBreaker;
 import com.diligrp.xtrade.upay.core.util.Constants;
+import com.diligrp.xtrade.upay.core.util.DataDictionaryCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 支付服务参数配置服务实现
@@ -23,14 +38,58 @@ public class PaymentConfigServiceImpl implements IPaymentConfigService {
 
     private static final String PREFIX_CONFIG_KEY = "upay:dictionary:config:";
 
+    private static final String PREFIX_VERSION_KEY = "upay:dictionary:version:";
+
     private static final int CACHE_EXPIRE_TIME = 60 * 60;
 
+    // Redis不可用时本地降级缓存的过期时间-毫秒，本地降级缓存只在本节点失效
+    private static final long LOCAL_EXPIRE_MILLIS = 60 * 1000;
+
     @Resource
     private IDataDictionaryDao dataDictionaryDao;
 
     @Resource
     private IRedisSystemService redisSystemService;
 
+    @Autowired(required = false)
+    private JedisDataSource jedisDataSource;
+
+    @Resource
+    private CircuitBreaker redisCircuitBreaker;
+
+    // 是否启用数据字典本地缓存
+    @Value("${upay.config-cache.enable:true}")
+    private boolean configCacheEnable;
+
+    // 数据字典本地缓存全量刷新间隔-毫秒
+    @Value("${upay.config-cache.refresh-interval:300000}")
+    private long configCacheRefreshInterval;
+
+    // 数据字典本地缓存，未启用时为null
+    private DataDictionaryCache dictionaryCache;
+
+    // Redis熔断或异常时的本地降级缓存，避免每次查询数据库
+    private final ConcurrentMap<String, LocalConfig> localConfigs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (configCacheEnable) {
+            if (jedisDataSource == null) {
+                LOG.warn("Data dictionary cache invalidation disabled: jedis not configured");
+            }
+            dictionaryCache = new DataDictionaryCache(jedisDataSource,
+                groupCode -> dataDictionaryDao.findDataDictionaries(null, groupCode), configCacheRefreshInterval);
+            dictionaryCache.start();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (dictionaryCache != null) {
+            dictionaryCache.close();
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -39,15 +98,7 @@ public class PaymentConfigServiceImpl implements IPaymentConfigService {
     @Override
     public boolean dataSignSwitch(String groupCode) {
         AssertUtils.notEmpty(groupCode, "groupCode missed");
-        String cachedKey = PREFIX_CONFIG_KEY + groupCode + Constants.CHAR_UNDERSCORE + Constants.CONFIG_DATA_SIGN;
-        String value = loadCachedConfig(cachedKey);
-        if (ObjectUtils.isEmpty(value)) {
-            DataDictionary config = dataDictionaryDao.findDataDictionaryByCode(Constants.CONFIG_DATA_SIGN, groupCode);
-            if (config != null) {
-                value = config.getValue();
-                saveCachedConfig(cachedKey, value);
-            }
-        }
+        String value = loadConfig(groupCode, Constants.CONFIG_DATA_SIGN);
         return Constants.SWITCH_ON.equalsIgnoreCase(value);
     }
 
@@ -59,15 +110,7 @@ public class PaymentConfigServiceImpl implements IPaymentConfigService {
     @Override
     public boolean smsNotifySwitch(String groupCode) {
         AssertUtils.notEmpty(groupCode, "groupCode missed");
-        String cachedKey = PREFIX_CONFIG_KEY + groupCode + Constants.CHAR_UNDERSCORE + Constants.CONFIG_SMS_NOTIFY;
-        String value = loadCachedConfig(cachedKey);
-        if (ObjectUtils.isEmpty(value)) {
-            DataDictionary config = dataDictionaryDao.findDataDictionaryByCode(Constants.CONFIG_SMS_NOTIFY, groupCode);
-            if (config != null) {
-                value = config.getValue();
-                saveCachedConfig(cachedKey, value);
-            }
-        }
+        String value = loadConfig(groupCode, Constants.CONFIG_SMS_NOTIFY);
         return Constants.SWITCH_ON.equalsIgnoreCase(value);
     }
 
@@ -79,10 +122,47 @@ public class PaymentConfigServiceImpl implements IPaymentConfigService {
     @Override
     public String loadSystemGlobalConf(String code) {
         AssertUtils.notEmpty(code, "code missed");
-        String cachedKey = PREFIX_CONFIG_KEY + Constants.GLOBAL_CFG_GROUP + Constants.CHAR_UNDERSCORE + code;
+        return loadConfig(Constants.GLOBAL_CFG_GROUP, code);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * 事务提交后清除Redis缓存、分组版本号加一并通知所有节点重新加载该分组
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRED, rollbackFor = Exception.class)
+    public void modifyDataDictionary(Long id, String value) {
+        DataDictionary config = dataDictionaryDao.findDataDictionaryById(id);
+        if (config == null) {
+            throw new PaymentServiceException(ErrorCode.OBJECT_NOT_FOUND, "数据字典配置不存在");
+        }
+        dataDictionaryDao.updateDataDictionaryById(id, value);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    invalidateConfig(config.getGroupCode(), config.getCode());
+                }
+            });
+        } else {
+            invalidateConfig(config.getGroupCode(), config.getCode());
+        }
+    }
+
+    /**
+     * 优先查询本地缓存；本地缓存未启用或未加载完成时查询Redis缓存，Redis未命中时查询数据库
+     */
+    private String loadConfig(String groupCode, String code) {
+        if (dictionaryCache != null && dictionaryCache.loaded()) {
+            return dictionaryCache.get(groupCode, code);
+        }
+
+        String cachedKey = PREFIX_CONFIG_KEY + groupCode + Constants.CHAR_UNDERSCORE + code;
         String value = loadCachedConfig(cachedKey);
         if (ObjectUtils.isEmpty(value)) {
-            DataDictionary config = dataDictionaryDao.findDataDictionaryByCode(code, Constants.GLOBAL_CFG_GROUP);
+            DataDictionary config = dataDictionaryDao.findDataDictionaryByCode(code, groupCode);
             if (config != null) {
                 value = config.getValue();
                 saveCachedConfig(cachedKey, value);
@@ -92,25 +172,58 @@ public class PaymentConfigServiceImpl implements IPaymentConfigService {
     }
 
     /**
-     * Redis加载缓存的数据字典配置，程序异常时返回NULL
+     * 清除Redis缓存并通知所有节点，Redis异常或熔断时其他节点依赖本地缓存定时刷新
      */
-    private String loadCachedConfig(String cachedKey) {
+    private void invalidateConfig(String groupCode, String code) {
+        String cachedKey = PREFIX_CONFIG_KEY + groupCode + Constants.CHAR_UNDERSCORE + code;
+        localConfigs.remove(cachedKey);
+        if (redisCircuitBreaker.isOpen()) {
+            LOG.warn("Redis circuit breaker open, cached config invalidation skipped: {}", cachedKey);
+            if (dictionaryCache != null) {
+                dictionaryCache.refresh();
+            }
+            return;
+        }
+
         try {
-            return redisSystemService.getAndExpire(cachedKey, CACHE_EXPIRE_TIME);
+            redisSystemService.remove(cachedKey);
+            if (dictionaryCache != null) {
+                long version = redisSystemService.incAndGet(PREFIX_VERSION_KEY + groupCode);
+                dictionaryCache.publish(groupCode, version);
+            }
         } catch (Exception ex) {
-            LOG.error("Failed to load cached config", ex);
+            LOG.error("Failed to invalidate cached config", ex);
+            if (dictionaryCache != null) {
+                dictionaryCache.refresh();
+            }
         }
-        return null;
     }
 
     /**
-     * Redis缓存存储数据字典配置，忽略程序异常
+     * Redis加载缓存的数据字典配置，Redis熔断或程序异常时查询本地降级缓存，未命中时返回NULL
+     */
+    private String loadCachedConfig(String cachedKey) {
+        return redisCircuitBreaker.execute(() -> redisSystemService.getAndExpire(cachedKey, CACHE_EXPIRE_TIME), () -> {
+            LocalConfig config = localConfigs.get(cachedKey);
+            return config == null || config.expireTime < System.currentTimeMillis() ? null : config.value;
+        });
+    }
+
+    /**
+     * Redis缓存和本地降级缓存存储数据字典配置，Redis熔断时只存储本地降级缓存，忽略程序异常
      */
     private void saveCachedConfig(String cachedKey, String cachedValue) {
-        try {
-            redisSystemService.setAndExpire(cachedKey, cachedValue, CACHE_EXPIRE_TIME);
-        } catch (Exception ex) {
-            LOG.error("Failed to save cached config", ex);
+        localConfigs.put(cachedKey, new LocalConfig(cachedValue, System.currentTimeMillis() + LOCAL_EXPIRE_MILLIS));
+        redisCircuitBreaker.run(() -> redisSystemService.setAndExpire(cachedKey, cachedValue, CACHE_EXPIRE_TIME));
+    }
+
+    private static class LocalConfig {
+        private final String value;
+        private final long expireTime;
+
+        LocalConfig(String value, long expireTime) {
+            this.value = value;
+            this.expireTime = expireTime;
         }
     }
 }
@@ -0,0 +1,57 @@
+package com.diligrp.xtrade.upay.core.type;
+
+import com.diligrp.xtrade.shared.type.IEnumType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 账户资金修改锁模式列表
+ */
+public enum LockMode implements IEnumType {
+
+    OPTIMISTIC("乐观锁", 1),
+
+    PESSIMISTIC("悲观锁", 2);
+
+    private String name;
+    private int code;
+
+    LockMode(String name, int code) {
+        this.name = name;
+        this.code = code;
+    }
+
+    public static Optional<LockMode> getType(int code) {
+        Stream<LockMode> TYPES = Arrays.stream(LockMode.values());
+        return TYPES.filter(type -> type.getCode() == code).findFirst();
+    }
+
+    public static String getName(int code) {
+        Stream<LockMode> TYPES = Arrays.stream(LockMode.values());
+        Optional<String> result = TYPES.filter(mode -> mode.getCode() == code)
+                .map(LockMode::getName).findFirst();
+        return result.isPresent() ? result.get() : null;
+    }
+
+    public static List<LockMode> getTypeList() {
+        return Arrays.asList(LockMode.values());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getCode() {
+        return code;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
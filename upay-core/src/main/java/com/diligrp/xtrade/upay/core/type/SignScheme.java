@@ -0,0 +1,59 @@
+package com.diligrp.xtrade.upay.core.type;
+
+import com.diligrp.xtrade.shared.type.IEnumType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 接口数据签名方式：应用注册时选择，请求验签和应答签名使用相同方式
+ */
+public enum SignScheme implements IEnumType {
+
+    // 应用公钥验证请求签名，商户私钥签名应答数据
+    RSA("SHA1WithRSA", 1),
+
+    // 应用密钥签名请求和应答数据，计算开销远低于RSA
+    HMAC_SHA256("HmacSHA256", 2);
+
+    private String name;
+    private int code;
+
+    SignScheme(String name, int code) {
+        this.name = name;
+        this.code = code;
+    }
+
+    public static Optional<SignScheme> getType(int code) {
+        Stream<SignScheme> TYPES = Arrays.stream(SignScheme.values());
+        return TYPES.filter(type -> type.getCode() == code).findFirst();
+    }
+
+    public static String getName(int code) {
+        Stream<SignScheme> TYPES = Arrays.stream(SignScheme.values());
+        Optional<String> result = TYPES.filter(type -> type.getCode() == code)
+            .map(SignScheme::getName).findFirst();
+        return result.isPresent() ? result.get() : null;
+    }
+
+    public static List<SignScheme> getTypeList() {
+        return Arrays.asList(SignScheme.values());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getCode() {
+        return code;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
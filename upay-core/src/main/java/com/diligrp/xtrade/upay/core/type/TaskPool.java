@@ -0,0 +1,63 @@
+package com.diligrp.xtrade.upay.core.type;
+
+/**
+ * 异步任务线程池列表：按用途隔离线程池，某类任务阻塞时不影响其他任务
+ */
+public enum TaskPool {
+
+    // 号段ID后台预取，每个序列同一时刻最多一个预取任务
+    SEQUENCE("ID生成", 2, 2, 64),
+
+    // 缓存提前刷新，队列已满时放弃刷新，缓存过期后由请求线程同步加载
+    REFRESH("缓存刷新", 2, 2, 256),
+
+    // 支付网关服务调用，有界队列未满时线程池不会创建核心线程以外的线程，因此核心线程数即最大线程数；
+    // 所有可能访问数据库的线程池线程数之和（2+2+20+6+4+1=35）小于数据库连接池大小（maxActive=40），
+    // 剩余连接留给定时任务和乐观锁新启事务，避免异步任务占满数据库连接
+    GATEWAY("支付网关", 20, 20, 256),
+
+    // 批量服务调用中的单个调用，每个批量调用的并发数单独限制
+    BATCH("批量调用", 6, 6, 1024),
+
+    // 管理后台服务调用，与支付网关隔离，后台批量操作不影响支付网关
+    BOSS("管理后台", 4, 4, 64),
+
+    // 单线程且无排队，确保一台服务器同一时刻只运行一个快照任务
+    SNAPSHOT("快照", 1, 1, 0);
+
+    private String name;
+    // 核心线程数
+    private int coreThreads;
+    // 最大线程数，任务队列已满时创建
+    private int maxThreads;
+    // 任务队列容量，0表示不排队
+    private int queueCapacity;
+
+    TaskPool(String name, int coreThreads, int maxThreads, int queueCapacity) {
+        this.name = name;
+        this.coreThreads = coreThreads;
+        this.maxThreads = maxThreads;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCoreThreads() {
+        return coreThreads;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
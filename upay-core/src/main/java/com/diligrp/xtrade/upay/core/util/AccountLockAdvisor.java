@@ -0,0 +1,110 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import com.diligrp.xtrade.upay.core.type.LockMode;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 账户资金修改锁模式顾问
+ *
+ * 按账户统计乐观锁修改失败率（指数加权平均），失败率超过阈值的竞争账户切换为悲观锁（SELECT ... FOR UPDATE）模式；
+ * 悲观锁模式下行锁等待时间持续低于阈值一段时间后切回乐观锁模式。只有发生过乐观锁冲突的账户才会被跟踪，
+ * 跟踪账户数量超过上限时淘汰乐观锁模式下的低冲突账户，因此大量冷账户不会占用内存也不会承担行锁开销
+ */
+public class AccountLockAdvisor {
+    // 乐观锁失败率超过此阈值切换为悲观锁
+    private static final double PESSIMISTIC_THRESHOLD = 0.3;
+    // 失败率指数加权平均的权重
+    private static final double WEIGHT = 0.2;
+    // 悲观锁模式下行锁等待超过此时间视为仍存在竞争
+    private static final long CONTENDED_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    // 悲观锁模式下无竞争持续时间超过此值切回乐观锁
+    private static final long QUIET_NANOS = TimeUnit.SECONDS.toNanos(30);
+    // 最大跟踪账户数量
+    private static final int MAX_ACCOUNTS = 10000;
+
+    private final Map<Long, Contention> accounts = new ConcurrentHashMap<>();
+
+    /**
+     * 获取账户当前的锁模式，悲观锁模式下无竞争超过一定时间则切回乐观锁
+     */
+    public LockMode lockMode(Long accountId) {
+        Contention contention = accounts.get(accountId);
+        if (contention == null) {
+            return LockMode.OPTIMISTIC;
+        }
+        synchronized (contention) {
+            if (contention.mode == LockMode.PESSIMISTIC && System.nanoTime() - contention.lastContended > QUIET_NANOS) {
+                contention.mode = LockMode.OPTIMISTIC;
+                // 切回乐观锁后仍有冲突将很快再次切换为悲观锁
+                contention.failureRate = PESSIMISTIC_THRESHOLD / 2;
+            }
+            return contention.mode;
+        }
+    }
+
+    /**
+     * 记录一次乐观锁修改结果
+     */
+    public void optimisticResult(Long accountId, boolean success) {
+        Contention contention = success ? accounts.get(accountId) : contention(accountId);
+        if (contention == null) {
+            return;
+        }
+        synchronized (contention) {
+            contention.failureRate = contention.failureRate * (1 - WEIGHT) + (success ? 0 : WEIGHT);
+            if (contention.failureRate >= PESSIMISTIC_THRESHOLD) {
+                contention.mode = LockMode.PESSIMISTIC;
+                contention.lastContended = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * 记录一次悲观锁行锁等待时间
+     */
+    public void pessimisticResult(Long accountId, long waitNanos) {
+        if (waitNanos >= CONTENDED_WAIT_NANOS) {
+            Contention contention = accounts.get(accountId);
+            if (contention != null) {
+                contention.lastContended = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * 当前为悲观锁模式的账户列表
+     */
+    public Map<Long, LockMode> pessimisticAccounts() {
+        Map<Long, LockMode> result = new HashMap<>();
+        accounts.keySet().forEach(accountId -> {
+            if (lockMode(accountId) == LockMode.PESSIMISTIC) {
+                result.put(accountId, LockMode.PESSIMISTIC);
+            }
+        });
+        return result;
+    }
+
+    private Contention contention(Long accountId) {
+        Contention contention = accounts.get(accountId);
+        if (contention == null) {
+            if (accounts.size() >= MAX_ACCOUNTS) {
+                accounts.values().removeIf(c -> c.mode == LockMode.OPTIMISTIC && c.failureRate < PESSIMISTIC_THRESHOLD / 2);
+                if (accounts.size() >= MAX_ACCOUNTS) {
+                    return null;
+                }
+            }
+            contention = accounts.computeIfAbsent(accountId, key -> new Contention());
+        }
+        return contention;
+    }
+
+    private static class Contention {
+        private volatile LockMode mode = LockMode.OPTIMISTIC;
+        private volatile double failureRate = 0;
+        private volatile long lastContended = System.nanoTime();
+    }
+}
@@ -1,28 +1,98 @@
 package com.diligrp.xtrade.upay.core.util;
 
-import com.diligrp.xtrade.upay.core.ErrorCode;
-import com.diligrp.xtrade.upay.core.exception.PaymentServiceException;
+import com.diligrp.xtrade.upay.core.type.TaskPool;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 异步执行工具类
+ *
+ * 按用途使用独立的有界线程池（见TaskPool），任务队列已满时拒绝任务，因此下游资源（比如：序列表）变慢时任务不会无限堆积；
+ * 空闲线程（包括核心线程）超过两分钟自动回收。每个线程池的队列长度、活跃线程数、任务排队时间和拒绝次数
+ * 通过监控指标upay.async.*输出（标签pool），
+ * Spring容器关闭时由AsyncTaskLifecycle在数据源关闭前停止线程池并等待已提交任务执行完成
  */
 public class AsyncTaskExecutor {
-    private static final ExecutorService treadPool = new ThreadPoolExecutor(Runtime.getRuntime().availableProcessors(),
-        Integer.MAX_VALUE, 2, TimeUnit.MINUTES, new LinkedBlockingQueue());
-
-    public static <T> T submit(Callable<T> task) {
-        try {
-            Future<T> future = treadPool.submit(task);
-            return future.get();
-        } catch (Exception ex) {
-            throw new PaymentServiceException(ErrorCode.SYSTEM_UNKNOWN_ERROR, "异步任务执行异常");
+    // 关闭时等待任务执行完成的最长时间
+    private static final long SHUTDOWN_MILLIS = 10000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncTaskExecutor.class);
+
+    private static final Map<TaskPool, ThreadPoolExecutor> threadPools = new EnumMap<>(TaskPool.class);
+
+    private static final Map<TaskPool, Timer> waitTimers = new EnumMap<>(TaskPool.class);
+
+    static {
+        for (TaskPool pool : TaskPool.values()) {
+            String tag = pool.name().toLowerCase();
+            BlockingQueue<Runnable> queue = pool.getQueueCapacity() > 0 ?
+                new ArrayBlockingQueue<>(pool.getQueueCapacity()) : new SynchronousQueue<>();
+            AtomicInteger threads = new AtomicInteger();
+            ThreadPoolExecutor threadPool = new ThreadPoolExecutor(pool.getCoreThreads(), pool.getMaxThreads(),
+                2, TimeUnit.MINUTES, queue, runnable -> {
+                    Thread thread = new Thread(runnable, "async-" + tag + "-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, executor) -> {
+                    PaymentMetrics.increment("upay.async.rejected", "pool", tag);
+                    throw new RejectedExecutionException("Task pool " + tag + " is full");
+                });
+            threadPool.allowCoreThreadTimeOut(true);
+            threadPools.put(pool, threadPool);
+            waitTimers.put(pool, Timer.builder("upay.async.wait").tag("pool", tag).publishPercentileHistogram()
+                .register(PaymentMetrics.registry()));
+            Gauge.builder("upay.async.queue.size", threadPool, p -> p.getQueue().size()).tag("pool", tag)
+                .register(PaymentMetrics.registry());
+            Gauge.builder("upay.async.active", threadPool, ThreadPoolExecutor::getActiveCount).tag("pool", tag)
+                .register(PaymentMetrics.registry());
+        }
+    }
+
+    /**
+     * 获取指定用途的线程池，记录任务排队时间；线程池已满时抛出RejectedExecutionException
+     */
+    public static Executor executor(TaskPool pool) {
+        ThreadPoolExecutor threadPool = threadPools.get(pool);
+        Timer waitTimer = waitTimers.get(pool);
+        return command -> {
+            long submitTime = System.nanoTime();
+            threadPool.execute(() -> {
+                waitTimer.record(System.nanoTime() - submitTime, TimeUnit.NANOSECONDS);
+                command.run();
+            });
+        };
+    }
+
+    /**
+     * 停止接收新任务并等待已提交任务执行完成，超时后中断执行中的任务
+     */
+    public static void shutdown() {
+        threadPools.values().forEach(ThreadPoolExecutor::shutdown);
+        long deadline = System.currentTimeMillis() + SHUTDOWN_MILLIS;
+        for (Map.Entry<TaskPool, ThreadPoolExecutor> entry : threadPools.entrySet()) {
+            try {
+                long remaining = Math.max(deadline - System.currentTimeMillis(), 0);
+                if (!entry.getValue().awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+                    LOG.warn("Task pool {} shutdown timeout, interrupt running tasks", entry.getKey().name());
+                    entry.getValue().shutdownNow();
+                }
+            } catch (InterruptedException iex) {
+                entry.getValue().shutdownNow();
+                Thread.currentThread().interrupt();
+            }
         }
     }
 }
@@ -0,0 +1,38 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * 异步任务线程池生命周期
+ *
+ * Spring容器关闭时先停止所有Lifecycle组件再销毁单例Bean，因此在最后阶段停止线程池，
+ * 等待已提交任务执行完成时数据源等依赖资源尚未关闭
+ */
+public class AsyncTaskLifecycle implements SmartLifecycle {
+
+    private volatile boolean running = false;
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        AsyncTaskExecutor.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 停止顺序按阶段从大到小，最小阶段保证线程池最后停止
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE;
+    }
+}
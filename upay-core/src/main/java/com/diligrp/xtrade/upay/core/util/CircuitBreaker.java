@@ -0,0 +1,148 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 熔断器
+ *
+ * 连续失败（异常或执行时间超过慢调用阈值）达到阈值后熔断，熔断期间不再调用外部系统，直接执行降级逻辑；
+ * 熔断时间结束后只允许一个探测调用（半开状态），探测成功则恢复，失败则重新熔断。
+ * 熔断器无法中断执行中的调用，调用本身的超时时间需通过客户端配置（比如：Redis连接超时）；
+ * 熔断器状态通过监控指标upay.circuit-breaker.state输出（0-关闭，1-半开，2-熔断），调用结果通过upay.circuit-breaker.calls输出
+ */
+public class CircuitBreaker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final String name;
+    // 熔断的连续失败次数
+    private final int failureThreshold;
+    // 慢调用阈值-毫秒，执行时间超过阈值视为失败
+    private final long slowCallMillis;
+    // 熔断时间-毫秒
+    private final long openMillis;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    private final AtomicInteger failures = new AtomicInteger(0);
+
+    private volatile long openedTime;
+
+    private final Counter successes;
+
+    private final Counter errors;
+
+    private final Counter rejections;
+
+    public CircuitBreaker(String name, int failureThreshold, long slowCallMillis, long openMillis) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.slowCallMillis = slowCallMillis;
+        this.openMillis = openMillis;
+        this.successes = PaymentMetrics.registry().counter("upay.circuit-breaker.calls", "name", name,
+            PaymentMetrics.TAG_RESULT, PaymentMetrics.RESULT_SUCCESS);
+        this.errors = PaymentMetrics.registry().counter("upay.circuit-breaker.calls", "name", name,
+            PaymentMetrics.TAG_RESULT, "failure");
+        this.rejections = PaymentMetrics.registry().counter("upay.circuit-breaker.calls", "name", name,
+            PaymentMetrics.TAG_RESULT, "rejected");
+        Gauge.builder("upay.circuit-breaker.state", state, s -> s.get().ordinal()).tag("name", name)
+            .register(PaymentMetrics.registry());
+    }
+
+    /**
+     * 执行调用，熔断或调用异常时返回降级结果；调用抛出Error时记录失败（半开状态下重新熔断）后继续抛出
+     */
+    public <T> T execute(Callable<T> action, Supplier<T> fallback) {
+        if (!allowRequest()) {
+            rejections.increment();
+            return fallback.get();
+        }
+
+        long startTime = System.currentTimeMillis();
+        T result;
+        try {
+            result = action.call();
+        } catch (Exception ex) {
+            LOG.error("{} call failed", name, ex);
+            onFailure();
+            return fallback.get();
+        } catch (Error err) {
+            onFailure();
+            throw err;
+        }
+        if (System.currentTimeMillis() - startTime > slowCallMillis) {
+            LOG.warn("{} call too slow: {}ms", name, System.currentTimeMillis() - startTime);
+            onFailure();
+        } else {
+            onSuccess();
+        }
+        return result;
+    }
+
+    /**
+     * 执行无返回值的调用，熔断或调用异常时忽略
+     */
+    public void run(Action action) {
+        execute(() -> {
+            action.run();
+            return null;
+        }, () -> null);
+    }
+
+    /**
+     * 当前是否熔断，半开状态下探测调用执行期间其他调用同样视为熔断
+     */
+    public boolean isOpen() {
+        return state.get() != State.CLOSED;
+    }
+
+    private boolean allowRequest() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        // 熔断时间结束后只允许一个探测调用
+        return current == State.OPEN && System.currentTimeMillis() - openedTime >= openMillis
+            && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+    }
+
+    private void onSuccess() {
+        successes.increment();
+        failures.set(0);
+        if (state.get() == State.HALF_OPEN && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            LOG.info("{} circuit breaker closed", name);
+        }
+    }
+
+    private void onFailure() {
+        errors.increment();
+        State current = state.get();
+        if (current == State.HALF_OPEN || (failures.incrementAndGet() >= failureThreshold && current == State.CLOSED)) {
+            openedTime = System.currentTimeMillis();
+            if (state.compareAndSet(current, State.OPEN)) {
+                LOG.warn("{} circuit breaker opened", name);
+            }
+            failures.set(0);
+        }
+    }
+
+    /**
+     * 无返回值的调用
+     */
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+}
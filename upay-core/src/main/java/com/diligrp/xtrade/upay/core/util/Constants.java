@@ -15,6 +15,10 @@ public final class Constants {
     public static final String CONFIG_DATA_SIGN = "dataSignSwitch";
     // 数据字典常量-短信通知配置参数
     public static final String CONFIG_SMS_NOTIFY = "smsNotifySwitch";
+    // 数据字典分组-应用接入限额，参数编码为appId
+    public static final String APP_LIMIT_GROUP = "AppLimitCfg";
+    // 数据字典分组-服务接入限额，参数编码为服务名（比如：payment.trade.service:commit）
+    public static final String SERVICE_LIMIT_GROUP = "ServiceLimitCfg";
     // 数据字典常量-参数值: 开关打开
     public static final String SWITCH_ON = "on";
     // 数据字典常量-参数值: 开关关闭
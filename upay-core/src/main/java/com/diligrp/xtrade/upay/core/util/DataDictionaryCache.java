@@ -0,0 +1,217 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import com.diligrp.xtrade.shared.redis.JedisDataSource;
+import com.diligrp.xtrade.upay.core.model.DataDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 数据字典本地缓存
+ *
+ * 启动时一次加载所有数据字典配置，按分组缓存在本地JVM中，查询配置无需访问Redis和数据库（不存在的配置同样无需访问）。
+ * 修改配置时分组版本号加一（Redis计数器）并通过Redis发布订阅通知所有节点，版本号高于本地分组版本时重新加载该分组；
+ * 订阅断开重连后及每隔刷新间隔重新加载所有配置，因此通知丢失时旧配置最多保留一个刷新间隔。
+ * 所有加载操作在同一个后台线程中串行执行，避免较早查询到的旧数据覆盖较新的加载结果
+ */
+public class DataDictionaryCache {
+    // 缓存失效通知频道，消息格式：分组编码:分组版本
+    private static final String CHANNEL = "upay:dictionary:invalidation";
+    // 订阅连接断开后重连间隔
+    private static final long RECONNECT_MILLIS = 1000;
+
+    private Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    private final JedisDataSource dataSource;
+
+    // 按分组编码加载数据字典，分组编码为null时加载所有数据字典
+    private final Function<String, List<DataDictionary>> loader;
+
+    private final long refreshMillis;
+
+    private final ConcurrentMap<String, Group> groups = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService executor;
+
+    private final Subscriber subscriber = new Subscriber();
+
+    private volatile boolean loaded = false;
+
+    private volatile boolean subscribed = false;
+
+    private volatile boolean running = false;
+
+    public DataDictionaryCache(JedisDataSource dataSource, Function<String, List<DataDictionary>> loader, long refreshMillis) {
+        this.dataSource = dataSource;
+        this.loader = loader;
+        this.refreshMillis = refreshMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dictionary-cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 加载所有数据字典并启动定时刷新和失效通知订阅线程，未配置Redis时只定时刷新
+     */
+    public void start() {
+        running = true;
+        executor.submit(this::reloadAll);
+        executor.scheduleWithFixedDelay(this::reloadAll, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        if (dataSource != null) {
+            Thread thread = new Thread(this::subscribe, "dictionary-cache-subscriber");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * 停止刷新和订阅
+     */
+    public void close() {
+        running = false;
+        if (subscribed) {
+            subscriber.unsubscribe();
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * 数据字典是否已加载，未加载时调用方需直接查询
+     */
+    public boolean loaded() {
+        return loaded;
+    }
+
+    /**
+     * 查询缓存的配置值，配置不存在时返回null
+     */
+    public String get(String groupCode, String code) {
+        Group group = groups.get(groupCode);
+        return group == null ? null : group.values.get(code);
+    }
+
+    /**
+     * 本节点重新加载所有配置
+     */
+    public void refresh() {
+        executor.execute(this::reloadAll);
+    }
+
+    /**
+     * 本节点重新加载分组并通知所有节点，通知失败时依赖定时刷新
+     */
+    public void publish(String groupCode, long version) {
+        executor.execute(() -> reloadGroup(groupCode, version));
+        if (dataSource == null) {
+            return;
+        }
+        try (Jedis jedis = dataSource.getConnection()) {
+            jedis.publish(CHANNEL, groupCode + ":" + version);
+        } catch (Exception ex) {
+            LOG.error("Publish data dictionary invalidation failed: groupCode={}", groupCode, ex);
+        }
+    }
+
+    private void reloadAll() {
+        try {
+            Map<String, Map<String, String>> values = new HashMap<>();
+            for (DataDictionary dictionary : loader.apply(null)) {
+                values.computeIfAbsent(dictionary.getGroupCode(), key -> new HashMap<>())
+                    .put(dictionary.getCode(), dictionary.getValue());
+            }
+            groups.keySet().retainAll(values.keySet());
+            values.forEach((groupCode, group) -> {
+                Group current = groups.get(groupCode);
+                groups.put(groupCode, new Group(current == null ? 0 : current.version, group));
+            });
+            loaded = true;
+        } catch (Exception ex) {
+            LOG.error("Reload data dictionary failed", ex);
+        }
+    }
+
+    private void reloadGroup(String groupCode, long version) {
+        Group current = groups.get(groupCode);
+        if (current != null && version <= current.version) {
+            return;
+        }
+        try {
+            Map<String, String> values = new HashMap<>();
+            for (DataDictionary dictionary : loader.apply(groupCode)) {
+                values.put(dictionary.getCode(), dictionary.getValue());
+            }
+            groups.put(groupCode, new Group(version, values));
+        } catch (Exception ex) {
+            LOG.error("Reload data dictionary group failed: groupCode={}", groupCode, ex);
+        }
+    }
+
+    private void subscribe() {
+        while (running) {
+            try (Jedis jedis = dataSource.getConnection()) {
+                jedis.subscribe(subscriber, CHANNEL);
+            } catch (Exception ex) {
+                LOG.error("Data dictionary cache subscription broken", ex);
+            } finally {
+                subscribed = false;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(RECONNECT_MILLIS);
+                } catch (InterruptedException iex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private class Subscriber extends JedisPubSub {
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+            subscribed = true;
+            // 订阅断开期间可能丢失失效通知，重新加载所有配置
+            if (loaded) {
+                refresh();
+            }
+        }
+
+        @Override
+        public void onMessage(String channel, String message) {
+            int index = message.lastIndexOf(':');
+            try {
+                String groupCode = message.substring(0, index);
+                long version = Long.parseLong(message.substring(index + 1));
+                executor.execute(() -> reloadGroup(groupCode, version));
+            } catch (Exception ex) {
+                LOG.error("Invalid data dictionary invalidation message: {}", message);
+            }
+        }
+    }
+
+    private static class Group {
+        // 分组版本，全量刷新时保持不变
+        private final long version;
+        // 参数编码-参数值
+        private final Map<String, String> values;
+
+        Group(long version, Map<String, String> values) {
+            this.version = version;
+            this.values = Collections.unmodifiableMap(values);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 本地过期计数器
+ *
+ * 用于Redis不可用时的降级计数，计数只在本节点有效（多节点部署时为近似值）；
+ * 计数器过期后重新从一开始计数，超过最大数量时清理过期计数器，仍超过最大数量时清空所有计数器
+ */
+public class ExpiringCounters {
+
+    private final int maxSize;
+
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public ExpiringCounters(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 计数加一并返回当前计数，计数器不存在或已过期时按指定过期时间-秒新建计数器
+     */
+    public long incAndGet(String key, int expireSeconds) {
+        long now = System.currentTimeMillis();
+        if (counters.size() >= maxSize) {
+            purge(now);
+        }
+        Counter counter = counters.compute(key, (k, current) -> current == null || current.expireTime <= now ?
+            new Counter(now + expireSeconds * 1000L) : current.increment());
+        return counter.value;
+    }
+
+    /**
+     * 删除计数器
+     */
+    public void remove(String key) {
+        counters.remove(key);
+    }
+
+    private void purge(long now) {
+        counters.values().removeIf(counter -> counter.expireTime <= now);
+        if (counters.size() >= maxSize) {
+            counters.clear();
+        }
+    }
+
+    private static class Counter {
+        private final long expireTime;
+        private volatile long value;
+
+        Counter(long expireTime) {
+            this.expireTime = expireTime;
+            this.value = 1;
+        }
+
+        Counter increment() {
+            value ++;
+            return this;
+        }
+    }
+}
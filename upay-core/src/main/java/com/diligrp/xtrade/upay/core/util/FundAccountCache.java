@@ -0,0 +1,218 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import com.diligrp.xtrade.shared.redis.JedisDataSource;
+import com.diligrp.xtrade.upay.core.model.FundAccount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 资金账户本地缓存
+ *
+ * 按账号ID缓存资金账户，查询不加锁；容量有限（近似淘汰：超出容量时由一个线程先清除过期缓存项，仍超出时清除任意缓存项
+ * 至容量的90%）且缓存项有过期时间；资金账户状态或信息修改后通过Redis发布订阅通知所有节点失效缓存。
+ * 失效时记录账户的最小有效数据版本，数据版本低于此版本的资金账户不能再放入缓存，避免并发查询到的旧数据覆盖失效通知；
+ * 订阅连接未建立或断开期间缓存不可用并清空所有缓存项，因此只有在失效通知丢失且订阅连接未感知断开时，
+ * 旧数据最多保留一个缓存过期时间。缓存的资金账户为多线程共享对象，调用方不能修改
+ */
+public class FundAccountCache {
+    // 缓存失效通知频道，消息格式：账号ID:数据版本
+    private static final String CHANNEL = "upay:fund-account:invalidation";
+    // 订阅连接断开后重连间隔
+    private static final long RECONNECT_MILLIS = 1000;
+
+    private Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    private final JedisDataSource dataSource;
+
+    private final int capacity;
+
+    private final long ttlMillis;
+
+    private final ConcurrentMap<Long, Entry> entries;
+
+    // 是否有线程正在淘汰缓存项
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+    private final Subscriber subscriber = new Subscriber();
+
+    private volatile boolean subscribed = false;
+
+    private volatile boolean running = false;
+
+    public FundAccountCache(JedisDataSource dataSource, int capacity, long ttlMillis) {
+        this.dataSource = dataSource;
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+        this.entries = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+    }
+
+    /**
+     * 启动缓存失效通知订阅线程
+     */
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::subscribe, "fund-account-cache");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 停止订阅并清空缓存
+     */
+    public void close() {
+        running = false;
+        if (subscribed) {
+            subscriber.unsubscribe();
+        }
+        clear();
+    }
+
+    /**
+     * 查询缓存的资金账户，订阅连接不可用时不使用缓存
+     */
+    public Optional<FundAccount> get(Long accountId) {
+        if (!subscribed) {
+            return Optional.empty();
+        }
+        Entry entry = entries.get(accountId);
+        if (entry == null || entry.account == null || entry.expired(System.currentTimeMillis())) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.account);
+    }
+
+    /**
+     * 缓存资金账户，数据版本低于失效通知中的数据版本时不缓存
+     */
+    public void put(FundAccount account) {
+        if (!subscribed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long version = account.getVersion();
+        entries.compute(account.getAccountId(), (accountId, entry) -> entry != null && !entry.expired(now)
+            && version < entry.minVersion ? entry : new Entry(account, version, now + ttlMillis));
+        evictIfFull(now);
+    }
+
+    /**
+     * 本节点失效资金账户缓存，并记录账户最小有效数据版本
+     */
+    public void invalidate(Long accountId, long version) {
+        long now = System.currentTimeMillis();
+        entries.compute(accountId, (key, entry) -> new Entry(null,
+            entry != null && !entry.expired(now) ? Math.max(entry.minVersion, version) : version, now + ttlMillis));
+        evictIfFull(now);
+    }
+
+    /**
+     * 本节点移除资金账户缓存及最小有效数据版本，用于账户修改事务回滚
+     */
+    public void evict(Long accountId) {
+        entries.remove(accountId);
+    }
+
+    /**
+     * 失效本节点缓存并通知所有节点失效资金账户缓存，通知失败时依赖缓存过期时间
+     */
+    public void publish(Long accountId, long version) {
+        invalidate(accountId, version);
+        try (Jedis jedis = dataSource.getConnection()) {
+            jedis.publish(CHANNEL, accountId + ":" + version);
+        } catch (Exception ex) {
+            LOG.error("Publish fund account invalidation failed: accountId={}", accountId, ex);
+        }
+    }
+
+    private void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 超出容量时清除过期缓存项，仍超出容量时清除任意缓存项至容量的90%；同一时刻只有一个线程执行淘汰，其他线程直接返回
+     */
+    private void evictIfFull(long now) {
+        if (entries.size() <= capacity || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.entrySet().removeIf(entry -> entry.getValue().expired(now));
+            int target = capacity * 9 / 10;
+            Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+            while (entries.size() > target && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private void subscribe() {
+        while (running) {
+            try (Jedis jedis = dataSource.getConnection()) {
+                jedis.subscribe(subscriber, CHANNEL);
+            } catch (Exception ex) {
+                LOG.error("Fund account cache subscription broken", ex);
+            } finally {
+                // 订阅断开期间可能丢失失效通知，清空所有缓存项
+                subscribed = false;
+                clear();
+            }
+            if (running) {
+                try {
+                    Thread.sleep(RECONNECT_MILLIS);
+                } catch (InterruptedException iex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private class Subscriber extends JedisPubSub {
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+            clear();
+            subscribed = true;
+        }
+
+        @Override
+        public void onMessage(String channel, String message) {
+            int index = message.indexOf(':');
+            try {
+                invalidate(Long.parseLong(message.substring(0, index)), Long.parseLong(message.substring(index + 1)));
+            } catch (Exception ex) {
+                LOG.error("Invalid fund account invalidation message: {}", message);
+            }
+        }
+    }
+
+    private static class Entry {
+        // 资金账户，失效后为null
+        private final FundAccount account;
+        // 最小有效数据版本
+        private final long minVersion;
+        // 过期时间
+        private final long expireTime;
+
+        Entry(FundAccount account, long minVersion, long expireTime) {
+            this.account = account;
+            this.minVersion = minVersion;
+            this.expireTime = expireTime;
+        }
+
+        boolean expired(long now) {
+            return now >= expireTime;
+        }
+    }
+}
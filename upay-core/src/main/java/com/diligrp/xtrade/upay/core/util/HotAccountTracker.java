@@ -0,0 +1,156 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点账户统计器
+ *
+ * 使用Space-Saving算法在固定内存内统计出现频率最高的账户：每个分段最多跟踪固定数量的账户，分段已满时新账户替换
+ * 计数最小的账户并继承其计数（error记录继承的计数，真实计数介于count-error与count之间）；计数每隔一段时间衰减一半，
+ * 因此统计结果反映近期的热点账户。账户按ID取模映射到分段，各分段独立加锁降低并发提交时的锁竞争
+ */
+public class HotAccountTracker {
+    // 分段数量
+    private static final int SEGMENTS = 16;
+    // 每个分段最多跟踪的账户数量
+    private static final int SEGMENT_CAPACITY = 64;
+    // 计数衰减间隔
+    private static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public HotAccountTracker() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * 记录账户一次事件
+     */
+    public void record(long accountId) {
+        segments[Math.floorMod(accountId, SEGMENTS)].record(accountId, System.nanoTime());
+    }
+
+    /**
+     * 账户当前的估算计数，未被跟踪的账户返回0
+     */
+    public long count(long accountId) {
+        return segments[Math.floorMod(accountId, SEGMENTS)].count(accountId, System.nanoTime());
+    }
+
+    /**
+     * 按估算计数降序返回前top个账户
+     */
+    public List<Entry> topAccounts(int top) {
+        long now = System.nanoTime();
+        List<Entry> entries = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.collect(entries, now);
+        }
+        entries.sort(Comparator.comparingLong(Entry::getCount).reversed());
+        return entries.size() > top ? new ArrayList<>(entries.subList(0, top)) : entries;
+    }
+
+    private static class Segment {
+        private final Map<Long, Counter> counters = new HashMap<>();
+        private long lastDecay = System.nanoTime();
+
+        synchronized void record(long accountId, long now) {
+            decay(now);
+            Counter counter = counters.get(accountId);
+            if (counter == null) {
+                if (counters.size() < SEGMENT_CAPACITY) {
+                    counter = new Counter(0);
+                } else {
+                    // 替换计数最小的账户，新账户继承其计数作为误差上限
+                    Map.Entry<Long, Counter> min = null;
+                    for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+                        if (min == null || entry.getValue().count < min.getValue().count) {
+                            min = entry;
+                        }
+                    }
+                    counters.remove(min.getKey());
+                    counter = new Counter(min.getValue().count);
+                }
+                counters.put(accountId, counter);
+            }
+            counter.count ++;
+        }
+
+        synchronized long count(long accountId, long now) {
+            decay(now);
+            Counter counter = counters.get(accountId);
+            return counter == null ? 0 : counter.count;
+        }
+
+        synchronized void collect(List<Entry> entries, long now) {
+            decay(now);
+            counters.forEach((accountId, counter) -> entries.add(Entry.of(accountId, counter.count, counter.error)));
+        }
+
+        /**
+         * 每经过一个衰减间隔计数减半，计数衰减为0的账户不再跟踪
+         */
+        private void decay(long now) {
+            long periods = (now - lastDecay) / DECAY_NANOS;
+            if (periods <= 0) {
+                return;
+            }
+            int shift = (int) Math.min(periods, 63);
+            counters.values().removeIf(counter -> {
+                counter.count >>>= shift;
+                counter.error >>>= shift;
+                return counter.count == 0;
+            });
+            lastDecay += periods * DECAY_NANOS;
+        }
+    }
+
+    private static class Counter {
+        private long count;
+        private long error;
+
+        Counter(long error) {
+            this.count = error;
+            this.error = error;
+        }
+    }
+
+    /**
+     * 账户统计结果
+     */
+    public static class Entry {
+        // 账号ID
+        private long accountId;
+        // 估算计数
+        private long count;
+        // 计数误差上限
+        private long error;
+
+        public long getAccountId() {
+            return accountId;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        public static Entry of(long accountId, long count, long error) {
+            Entry entry = new Entry();
+            entry.accountId = accountId;
+            entry.count = count;
+            entry.error = error;
+            return entry;
+        }
+    }
+}
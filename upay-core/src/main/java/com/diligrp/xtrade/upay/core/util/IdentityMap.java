@@ -0,0 +1,107 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * 事务级数据对象标识映射
+ *
+ * 同一事务（一次支付操作）中按类型和ID缓存查询到的数据对象，每条记录在事务中最多查询一次数据库；
+ * 缓存随事务结束而清除，不存在跨请求的数据过期问题。事务中修改数据对象后需调用evict移除缓存。
+ * 无事务同步时直接查询数据库；事务结束时通过监控指标upay.identity-map.hits/misses记录本事务的命中和未命中次数
+ */
+public final class IdentityMap {
+
+    private static final Object RESOURCE_KEY = new Object();
+
+    /**
+     * 查询数据对象，当前事务中已查询过的数据对象直接返回（包括不存在的记录）
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Optional<T> find(Class<T> type, Object id, Supplier<Optional<T>> loader) {
+        Context context = context(true);
+        if (context == null) {
+            return loader.get();
+        }
+        Key key = new Key(type, id);
+        Optional<T> object = (Optional<T>) context.objects.get(key);
+        if (object != null) {
+            context.hits ++;
+            return object;
+        }
+        context.misses ++;
+        object = loader.get();
+        context.objects.put(key, object);
+        return object;
+    }
+
+    /**
+     * 移除当前事务中缓存的数据对象
+     */
+    public static void evict(Class<?> type, Object id) {
+        Context context = context(false);
+        if (context != null) {
+            context.objects.remove(new Key(type, id));
+        }
+    }
+
+    private static Context context(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Context context = (Context) TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+        if (context == null && create) {
+            Context resource = new Context();
+            TransactionSynchronizationManager.bindResource(RESOURCE_KEY, resource);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+                    PaymentMetrics.summary("upay.identity-map.hits", resource.hits);
+                    PaymentMetrics.summary("upay.identity-map.misses", resource.misses);
+                }
+            });
+            context = resource;
+        }
+        return context;
+    }
+
+    private static class Context {
+        private final Map<Key, Optional<?>> objects = new HashMap<>();
+        private int hits;
+        private int misses;
+    }
+
+    private static class Key {
+        private final Class<?> type;
+        private final Object id;
+
+        Key(Class<?> type, Object id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return type == key.type && Objects.equals(id, key.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + Objects.hashCode(id);
+        }
+    }
+}
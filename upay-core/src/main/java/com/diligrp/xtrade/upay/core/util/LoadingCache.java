@@ -0,0 +1,163 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import com.diligrp.xtrade.upay.core.exception.PaymentServiceException;
+import com.diligrp.xtrade.upay.core.type.TaskPool;
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 按键加载的本地缓存
+ *
+ * 缓存未命中时只有一个请求线程加载数据，同一键的其他请求线程等待加载结果，不同键之间互不阻塞；
+ * 缓存项超过刷新时间（过期时间的80%）后由第一个访问的请求线程在后台线程池中提前刷新，刷新期间及刷新失败时继续返回旧数据，
+ * 直到缓存项过期后由请求线程同步加载。不存在的数据同样缓存（较短的过期时间），避免无效键反复查询数据库；
+ * 加载异常时不缓存。缓存数据为多线程共享对象，必须是不可变对象。命中、加载和刷新次数通过监控指标upay.loading-cache.*输出（标签cache）
+ */
+public class LoadingCache<K, V> {
+    // 缓存项刷新时间占过期时间的比例
+    private static final double REFRESH_RATIO = 0.8;
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadingCache.class);
+
+    private final String name;
+
+    private final Function<K, Optional<V>> loader;
+
+    private final long ttlMillis;
+
+    private final long negativeTtlMillis;
+
+    private final ConcurrentMap<K, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+
+    private final Counter loads;
+
+    private final Counter refreshes;
+
+    public LoadingCache(String name, Function<K, Optional<V>> loader, long ttlMillis, long negativeTtlMillis) {
+        this.name = name;
+        this.loader = loader;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.hits = PaymentMetrics.registry().counter("upay.loading-cache.hits", "cache", name);
+        this.loads = PaymentMetrics.registry().counter("upay.loading-cache.loads", "cache", name);
+        this.refreshes = PaymentMetrics.registry().counter("upay.loading-cache.refreshes", "cache", name);
+    }
+
+    /**
+     * 获取缓存数据，缓存未命中或已过期时加载数据；数据不存在时返回Optional.empty()
+     */
+    public Optional<V> get(K key) {
+        while (true) {
+            Entry entry = entries.get(key);
+            long now = System.currentTimeMillis();
+            if (entry == null || (entry.loaded() && now >= entry.expireTime)) {
+                Entry loading = new Entry();
+                boolean owner = entry == null ? entries.putIfAbsent(key, loading) == null : entries.replace(key, entry, loading);
+                if (!owner) {
+                    // 其他线程已开始加载
+                    continue;
+                }
+                return load(key, loading);
+            }
+
+            if (entry.loaded() && now >= entry.refreshTime && entry.refreshing.compareAndSet(false, true)) {
+                refresh(key, entry);
+            }
+            hits.increment();
+            return await(entry);
+        }
+    }
+
+    /**
+     * 失效缓存数据，正在进行的刷新结果将被丢弃
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * 失效所有缓存数据
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    private Optional<V> load(K key, Entry entry) {
+        loads.increment();
+        try {
+            Optional<V> value = loader.apply(key);
+            entry.complete(value, System.currentTimeMillis());
+            return value;
+        } catch (RuntimeException ex) {
+            entries.remove(key, entry);
+            entry.future.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private void refresh(K key, Entry entry) {
+        try {
+            AsyncTaskExecutor.executor(TaskPool.REFRESH).execute(() -> {
+                try {
+                    Entry fresh = new Entry();
+                    fresh.complete(loader.apply(key), System.currentTimeMillis());
+                    // 刷新期间缓存项已失效或被替换时丢弃刷新结果
+                    entries.replace(key, entry, fresh);
+                    refreshes.increment();
+                } catch (Exception ex) {
+                    LOG.warn("Refresh {} cache failed: key={}", name, key, ex);
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException rex) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private Optional<V> await(Entry entry) {
+        try {
+            return entry.future.get();
+        } catch (InterruptedException iex) {
+            Thread.currentThread().interrupt();
+            throw new PaymentServiceException("等待缓存加载被中断", iex);
+        } catch (ExecutionException eex) {
+            Throwable cause = eex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new PaymentServiceException("缓存加载失败", cause);
+        }
+    }
+
+    private class Entry {
+        private final CompletableFuture<Optional<V>> future = new CompletableFuture<>();
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+        // 刷新时间和过期时间，加载完成前设置
+        private volatile long refreshTime;
+        private volatile long expireTime;
+
+        void complete(Optional<V> value, long now) {
+            long ttl = value.isPresent() ? ttlMillis : negativeTtlMillis;
+            // 不存在的数据不提前刷新
+            this.refreshTime = value.isPresent() ? now + (long) (ttl * REFRESH_RATIO) : now + ttl;
+            this.expireTime = now + ttl;
+            future.complete(value);
+        }
+
+        boolean loaded() {
+            return future.isDone();
+        }
+    }
+}
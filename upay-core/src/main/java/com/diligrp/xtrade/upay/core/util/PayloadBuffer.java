@@ -0,0 +1,128 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * 请求应答数据缓冲区
+ *
+ * 每个线程复用一个请求缓冲区和一个应答缓冲区（线程封闭，无需加锁），请求数据按字节读取一次后直接用于验签和反序列化，
+ * 应答数据序列化一次后直接用于签名和写回，避免中间字符串拷贝；缓冲区数据只在同一线程下次读取请求（分配应答缓冲区）前有效，
+ * 超过最大复用容量的缓冲区在下次使用时释放，避免大请求（应答）长期占用内存
+ */
+public final class PayloadBuffer {
+    // 初始容量-字节
+    private static final int INITIAL_CAPACITY = 4 * 1024;
+    // 最大复用容量-字节
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<PayloadBuffer> requests = ThreadLocal.withInitial(PayloadBuffer::new);
+
+    private static final ThreadLocal<PayloadBuffer> replies = ThreadLocal.withInitial(PayloadBuffer::new);
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+
+    private int length;
+
+    private final OutputStream output = new OutputStream() {
+        @Override
+        public void write(int b) {
+            ensureCapacity(length + 1);
+            bytes[length ++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int count) {
+            ensureCapacity(length + count);
+            System.arraycopy(data, offset, bytes, length, count);
+            length += count;
+        }
+    };
+
+    private PayloadBuffer() {
+    }
+
+    /**
+     * 使用当前线程的缓冲区读取输入流所有数据，contentLength未知时传入-1
+     */
+    public static PayloadBuffer read(InputStream in, int contentLength) throws IOException {
+        PayloadBuffer buffer = requests.get();
+        buffer.reset(contentLength);
+        int count;
+        while ((count = in.read(buffer.bytes, buffer.length, buffer.bytes.length - buffer.length)) >= 0) {
+            buffer.length += count;
+            if (buffer.length == buffer.bytes.length) {
+                buffer.bytes = Arrays.copyOf(buffer.bytes, buffer.bytes.length << 1);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * 分配当前线程的应答缓冲区，通过outputStream写入应答数据
+     */
+    public static PayloadBuffer allocate() {
+        PayloadBuffer buffer = replies.get();
+        buffer.reset(-1);
+        return buffer;
+    }
+
+    public byte[] array() {
+        return bytes;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * 缓冲区数据的输入流，不拷贝数据
+     */
+    public InputStream inputStream() {
+        return new ByteArrayInputStream(bytes, 0, length);
+    }
+
+    /**
+     * 追加数据到缓冲区的输出流，不拷贝数据
+     */
+    public OutputStream outputStream() {
+        return output;
+    }
+
+    /**
+     * 缓冲区数据写入输出流
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+    }
+
+    /**
+     * 缓冲区数据解码成字符串，仅用于日志等非关键路径
+     */
+    public String toString(Charset charset) {
+        return new String(bytes, 0, length, charset);
+    }
+
+    private void reset(int contentLength) {
+        // 按请求数据长度预留容量（多预留一个字节，避免读取结束标志前扩容），预留容量不超过最大复用容量，超过时按需扩容
+        int capacity = Math.min(Math.max(INITIAL_CAPACITY, contentLength + 1), MAX_POOLED_CAPACITY);
+        if (bytes.length < capacity || bytes.length > MAX_POOLED_CAPACITY) {
+            bytes = new byte[capacity];
+        }
+        length = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, capacity));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import com.diligrp.xtrade.shared.util.JsonUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 请求应答数据序列化工具类
+ *
+ * ObjectMapper配置与JsonUtils一致，直接从请求数据缓冲区流式反序列化，无需先解码成字符串；
+ * UTF-8数据由Jackson直接解析字节，其他字符集通过Reader按需解码。应答数据使用按类型预先创建的ObjectWriter
+ * 直接序列化成UTF-8字节写入应答缓冲区，与JsonUtils.toJsonString结果一致
+ */
+public final class PayloadCodec {
+
+    private static final ObjectMapper objectMapper = initObjectMapper();
+
+    private static final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private static ObjectMapper initObjectMapper() {
+        Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+        JsonUtils.initObjectMapperBuilder(builder);
+        return builder.createXmlMapper(false).build();
+    }
+
+    /**
+     * 反序列化缓冲区数据，数据格式错误时抛出IllegalArgumentException（与JsonUtils.fromJsonString一致）
+     */
+    public static <T> T fromJsonBytes(PayloadBuffer payload, Charset charset, Class<T> type) {
+        try {
+            if (charset == null || StandardCharsets.UTF_8.equals(charset)) {
+                return objectMapper.readValue(payload.array(), 0, payload.length(), type);
+            }
+            return objectMapper.readValue(new InputStreamReader(payload.inputStream(), charset), type);
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Deserialize json exception", ex);
+        }
+    }
+
+    /**
+     * 转换已解析的JSON节点，数据格式错误时抛出IllegalArgumentException
+     */
+    public static <T> T fromJsonNode(JsonNode node, Class<T> type) {
+        try {
+            return objectMapper.treeToValue(node, type);
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Deserialize json exception", ex);
+        }
+    }
+
+    /**
+     * 序列化数据到当前线程的应答缓冲区，序列化失败时抛出IllegalArgumentException（与JsonUtils.toJsonString一致）
+     */
+    public static PayloadBuffer toJsonBytes(Object value) {
+        PayloadBuffer payload = PayloadBuffer.allocate();
+        try {
+            ObjectWriter writer = value == null ? objectMapper.writer() :
+                writers.computeIfAbsent(value.getClass(), objectMapper::writerFor);
+            writer.writeValue(payload.outputStream(), value);
+            return payload;
+        } catch (Exception ex) {
+            throw new IllegalArgumentException("Serialize json exception", ex);
+        }
+    }
+}
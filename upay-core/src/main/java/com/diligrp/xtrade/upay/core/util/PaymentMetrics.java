@@ -0,0 +1,69 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import com.diligrp.xtrade.upay.core.exception.PaymentServiceException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 支付服务监控指标工具类
+ *
+ * 指标注册到Micrometer全局注册表，SpringBoot Actuator启动后自动将Prometheus注册表加入全局注册表；
+ * 未集成Actuator时（比如：基准测试）指标记录为空操作。指标标签只允许使用取值有限的数据（交易类型、错误码等），
+ * 禁止使用账号ID、支付ID等标签避免指标数量无限增长
+ */
+public final class PaymentMetrics {
+
+    public static final String TAG_RESULT = "result";
+
+    public static final String RESULT_SUCCESS = "success";
+
+    private static final MeterRegistry registry = Metrics.globalRegistry;
+
+    public static MeterRegistry registry() {
+        return registry;
+    }
+
+    /**
+     * 开始计时
+     */
+    public static Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * 结束计时并记录延迟直方图，根据异常信息设置result标签：success或错误码
+     */
+    public static void stop(Timer.Sample sample, String name, Throwable error, String... tags) {
+        sample.stop(Timer.builder(name).tags(tags).tag(TAG_RESULT, result(error)).publishPercentileHistogram()
+            .register(registry));
+    }
+
+    /**
+     * 计数器加一
+     */
+    public static void increment(String name, String... tags) {
+        registry.counter(name, tags).increment();
+    }
+
+    /**
+     * 记录数量分布
+     */
+    public static void summary(String name, double amount, String... tags) {
+        DistributionSummary.builder(name).tags(tags).register(registry).record(amount);
+    }
+
+    /**
+     * 操作结果：成功时为success，业务异常时为错误码，其他异常时为异常类名
+     */
+    public static String result(Throwable error) {
+        if (error == null) {
+            return RESULT_SUCCESS;
+        }
+        if (error instanceof PaymentServiceException) {
+            return String.valueOf(((PaymentServiceException) error).getCode());
+        }
+        return error.getClass().getSimpleName();
+    }
+}
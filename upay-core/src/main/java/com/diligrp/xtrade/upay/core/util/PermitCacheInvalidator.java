@@ -0,0 +1,134 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import com.diligrp.xtrade.shared.redis.JedisDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 接入许可缓存失效通知
+ *
+ * 商户和应用接入许可缓存在各节点的LoadingCache中，注册或修改商户、注册应用后通过Redis发布订阅通知所有节点失效缓存项
+ * （包括未注册商户、应用的缓存项）；订阅断开重连后失效所有缓存项，因此通知丢失时旧数据最多保留一个缓存过期时间。
+ * 未配置Redis时只失效本节点缓存
+ */
+public class PermitCacheInvalidator {
+    // 缓存失效通知频道，消息格式：缓存名称:缓存键
+    private static final String CHANNEL = "upay:permit:invalidation";
+    // 订阅连接断开后重连间隔
+    private static final long RECONNECT_MILLIS = 1000;
+
+    private Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    private final JedisDataSource dataSource;
+
+    private final Map<String, LoadingCache<Long, ?>> caches = new ConcurrentHashMap<>();
+
+    private final Subscriber subscriber = new Subscriber();
+
+    private volatile boolean subscribed = false;
+
+    private volatile boolean running = false;
+
+    public PermitCacheInvalidator(JedisDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * 注册接收失效通知的缓存，须在启动前注册
+     */
+    public void register(String name, LoadingCache<Long, ?> cache) {
+        caches.put(name, cache);
+    }
+
+    /**
+     * 启动缓存失效通知订阅线程，未配置Redis时不订阅
+     */
+    public void start() {
+        if (dataSource == null) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::subscribe, "permit-cache-subscriber");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 停止订阅
+     */
+    public void close() {
+        running = false;
+        if (subscribed) {
+            subscriber.unsubscribe();
+        }
+    }
+
+    /**
+     * 本节点失效缓存项
+     */
+    public void invalidate(String name, Long key) {
+        LoadingCache<Long, ?> cache = caches.get(name);
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * 失效本节点缓存并通知所有节点失效缓存项，通知失败时依赖缓存过期时间
+     */
+    public void publish(String name, Long key) {
+        invalidate(name, key);
+        if (dataSource == null) {
+            return;
+        }
+        try (Jedis jedis = dataSource.getConnection()) {
+            jedis.publish(CHANNEL, name + ":" + key);
+        } catch (Exception ex) {
+            LOG.error("Publish permit cache invalidation failed: {}={}", name, key, ex);
+        }
+    }
+
+    private void subscribe() {
+        while (running) {
+            try (Jedis jedis = dataSource.getConnection()) {
+                jedis.subscribe(subscriber, CHANNEL);
+            } catch (Exception ex) {
+                LOG.error("Permit cache subscription broken", ex);
+            } finally {
+                subscribed = false;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(RECONNECT_MILLIS);
+                } catch (InterruptedException iex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private class Subscriber extends JedisPubSub {
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+            subscribed = true;
+            // 订阅断开期间可能丢失失效通知，失效所有缓存项
+            caches.values().forEach(LoadingCache::invalidateAll);
+        }
+
+        @Override
+        public void onMessage(String channel, String message) {
+            int index = message.lastIndexOf(':');
+            try {
+                invalidate(message.substring(0, index), Long.parseLong(message.substring(index + 1)));
+            } catch (Exception ex) {
+                LOG.error("Invalid permit cache invalidation message: {}", message);
+            }
+        }
+    }
+}
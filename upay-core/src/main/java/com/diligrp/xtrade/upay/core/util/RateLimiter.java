@@ -0,0 +1,190 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import com.diligrp.xtrade.shared.util.ObjectUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁限流器：令牌桶限制调用速率，计数器限制并发调用数
+ *
+ * 令牌桶使用GCRA算法实现，只记录一个"理论到达时间"（已预支令牌用完的时间点），获取令牌时CAS推进该时间点，
+ * 超过突发容量对应的时间窗口则拒绝；令牌桶满时（无预支）总是允许调用，因此单次获取的令牌数可以超过突发容量（比如：批量调用），
+ * 超出部分由后续调用偿还。限额可在运行时修改，调用时按比例因子（0, 1]缩放限额，用于自适应降低限额
+ */
+public class RateLimiter {
+
+    private static final long NANOS_PER_SECOND = 1000_000_000L;
+
+    private volatile Limit limit;
+
+    private final AtomicLong arrivalTime = new AtomicLong(System.nanoTime());
+
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+
+    public RateLimiter(Limit limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * 修改限额，令牌桶状态和执行中的调用数保持不变
+     */
+    public void update(Limit limit) {
+        this.limit = limit;
+    }
+
+    public Limit limit() {
+        return limit;
+    }
+
+    /**
+     * 执行中的调用数
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 获取指定数量的令牌，未限制速率时总是成功
+     */
+    public boolean tryAcquire(int permits, double factor) {
+        Limit current = this.limit;
+        if (current.rate <= 0) {
+            return true;
+        }
+
+        long interval = interval(current, factor);
+        long window = interval * current.burst;
+        long cost = interval * permits;
+        while (true) {
+            long now = System.nanoTime();
+            long tat = arrivalTime.get();
+            boolean full = tat - now <= 0;
+            long next = (full ? now : tat) + cost;
+            if (!full && next - now > window) {
+                return false;
+            }
+            if (arrivalTime.compareAndSet(tat, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 退还已获取的令牌（比如：后续的限额检查失败，调用被拒绝），令牌桶最多恢复为满
+     */
+    public void refund(int permits, double factor) {
+        Limit current = this.limit;
+        if (current.rate <= 0) {
+            return;
+        }
+
+        long cost = interval(current, factor) * permits;
+        while (true) {
+            long now = System.nanoTime();
+            long tat = arrivalTime.get();
+            if (tat - now <= 0) {
+                return;
+            }
+            long next = tat - cost - now > 0 ? tat - cost : now;
+            if (arrivalTime.compareAndSet(tat, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 开始调用，执行中的调用数达到并发限额时返回false；返回true时调用结束后必须调用exit
+     */
+    public boolean tryEnter(double factor) {
+        Limit current = this.limit;
+        if (current.concurrency <= 0) {
+            inFlight.incrementAndGet();
+            return true;
+        }
+
+        int max = Math.max(1, (int) (current.concurrency * factor));
+        while (true) {
+            int calls = inFlight.get();
+            if (calls >= max) {
+                return false;
+            }
+            if (inFlight.compareAndSet(calls, calls + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 结束调用
+     */
+    public void exit() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * 按比例因子缩放后获取一个令牌的时间间隔-纳秒
+     */
+    private static long interval(Limit limit, double factor) {
+        return Math.max(1L, (long) (NANOS_PER_SECOND / (limit.rate * factor)));
+    }
+
+    /**
+     * 限额：每秒调用数、突发调用数和并发调用数，小于等于0表示不限制
+     */
+    public static final class Limit {
+        private final double rate;
+        private final int burst;
+        private final int concurrency;
+
+        private Limit(double rate, int burst, int concurrency) {
+            this.rate = rate;
+            this.burst = burst;
+            this.concurrency = concurrency;
+        }
+
+        public static Limit of(double rate, int burst, int concurrency) {
+            return new Limit(rate, burst > 0 ? burst : Math.max(1, (int) Math.ceil(rate)), concurrency);
+        }
+
+        /**
+         * 解析限额配置，格式：每秒调用数,突发调用数,并发调用数；突发调用数为空或0时为一秒的调用数，
+         * 并发调用数可省略；配置为空时返回null，格式错误时抛出IllegalArgumentException
+         */
+        public static Limit parse(String value) {
+            if (ObjectUtils.isEmpty(value)) {
+                return null;
+            }
+
+            String[] items = value.split(",");
+            if (items.length > 3) {
+                throw new IllegalArgumentException("Invalid limit config: " + value);
+            }
+            try {
+                double rate = Double.parseDouble(items[0].trim());
+                int burst = items.length > 1 && !items[1].isBlank() ? Integer.parseInt(items[1].trim()) : 0;
+                int concurrency = items.length > 2 && !items[2].isBlank() ? Integer.parseInt(items[2].trim()) : 0;
+                return of(rate, burst, concurrency);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid limit config: " + value, ex);
+            }
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        @Override
+        public String toString() {
+            return rate + "," + burst + "," + concurrency;
+        }
+    }
+}
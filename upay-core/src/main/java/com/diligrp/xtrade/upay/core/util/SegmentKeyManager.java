@@ -0,0 +1,108 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import com.diligrp.xtrade.shared.sequence.IKeyGenerator;
+import com.diligrp.xtrade.shared.sequence.KeyGeneratorManager;
+import com.diligrp.xtrade.upay.core.ErrorCode;
+import com.diligrp.xtrade.upay.core.exception.PaymentServiceException;
+import com.diligrp.xtrade.upay.core.type.SequenceKey;
+import com.diligrp.xtrade.upay.core.type.TaskPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 号段ID生成器管理
+ *
+ * 数据库序列ID需在独立事务中生成，避免Seata回滚造成ID重复；原实现每个ID都需切换到异步线程执行并阻塞等待。
+ * 号段ID生成器在ID生成线程池（无Spring事务和Seata全局事务，序列修改自动提交）中批量预取一个号段的ID，
+ * 当前号段剩余ID低于阈值时提前异步预取下一号段（双缓冲），稳态下请求线程直接从内存中获取ID；
+ * 只有冷启动或预取速度跟不上消耗速度时请求线程才等待号段加载。节点重启时未使用的ID将被丢弃
+ */
+@Component("segmentKeyManager")
+public class SegmentKeyManager {
+    // 剩余ID比例低于此阈值时预取下一号段
+    private static final double REFILL_RATIO = 0.2;
+
+    @Resource
+    private KeyGeneratorManager keyGeneratorManager;
+
+    // 号段大小
+    @Value("${upay.key-segment.size:100}")
+    private int segmentSize = 100;
+
+    private final ConcurrentMap<SequenceKey, IKeyGenerator> keyGenerators = new ConcurrentHashMap<>();
+
+    /**
+     * 获取号段ID生成器，在事务中可直接调用
+     */
+    public IKeyGenerator getKeyGenerator(SequenceKey key) {
+        return keyGenerators.computeIfAbsent(key,
+            k -> new SegmentKeyGenerator(keyGeneratorManager.getKeyGenerator(k)));
+    }
+
+    /**
+     * 双缓冲号段ID生成器
+     */
+    private class SegmentKeyGenerator implements IKeyGenerator {
+        private final IKeyGenerator source;
+        // 当前号段及下一个待分配ID的位置
+        private long[] segment;
+        private int position;
+        // 正在预取的下一号段
+        private CompletableFuture<long[]> nextSegment;
+
+        SegmentKeyGenerator(IKeyGenerator source) {
+            this.source = source;
+        }
+
+        @Override
+        public synchronized long nextId() {
+            if (segment == null || position >= segment.length) {
+                segment = takeNextSegment();
+                position = 0;
+            }
+            long id = segment[position ++];
+            if (nextSegment == null && segment.length - position <= segment.length * REFILL_RATIO) {
+                nextSegment = loadSegment();
+            }
+            return id;
+        }
+
+        private long[] takeNextSegment() {
+            if (nextSegment == null) {
+                nextSegment = loadSegment();
+            }
+            try {
+                return nextSegment.get();
+            } catch (InterruptedException iex) {
+                Thread.currentThread().interrupt();
+                throw new PaymentServiceException(ErrorCode.SYSTEM_UNKNOWN_ERROR, "ID号段加载被中断");
+            } catch (ExecutionException eex) {
+                throw new PaymentServiceException("ID号段加载失败", eex.getCause());
+            } finally {
+                nextSegment = null;
+            }
+        }
+
+        private CompletableFuture<long[]> loadSegment() {
+            try {
+                return CompletableFuture.supplyAsync(() -> {
+                    long[] ids = new long[segmentSize];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = source.nextId();
+                    }
+                    return ids;
+                }, AsyncTaskExecutor.executor(TaskPool.SEQUENCE));
+            } catch (RejectedExecutionException rex) {
+                // 线程池已满时下次获取ID重新加载
+                return CompletableFuture.failedFuture(rex);
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.diligrp.xtrade.upay.core.util;
+
+import com.diligrp.xtrade.upay.core.domain.ApplicationPermit;
+import com.diligrp.xtrade.upay.core.type.SignScheme;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * 数据签名验签工具类
+ *
+ * Signature.getInstance需查找安全提供者，开销远大于签名初始化，因此每个线程复用一个Signature（Mac）实例（线程封闭，无需加锁），
+ * 每次签名验签前使用新密钥重新初始化；密钥应预先解析（见ApplicationPermit/MerchantPermit），避免每次请求Base64解码和KeyFactory解析
+ */
+public final class SignatureUtils {
+
+    private final static String CHARSET_UTF8 = "utf-8";
+
+    private static final String KEY_ALGORITHM = "RSA";
+
+    private static final String SIGN_ALGORITHMS = SignScheme.RSA.getName();
+
+    private static final String HMAC_ALGORITHM = SignScheme.HMAC_SHA256.getName();
+
+    // HMAC密钥长度-字节
+    private static final int HMAC_KEY_BYTES = 32;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private static final ThreadLocal<Signature> signatures = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance(SIGN_ALGORITHMS);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(SIGN_ALGORITHMS + " not supported", ex);
+        }
+    });
+
+    private static final ThreadLocal<Mac> macs = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(HMAC_ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " not supported", ex);
+        }
+    });
+
+    /**
+     * 按应用签名方式验证请求数据签名：RSA使用应用公钥，HMAC使用应用密钥
+     */
+    public static boolean verify(ApplicationPermit application, String payload, String charset, String signature)
+        throws GeneralSecurityException {
+        if (application.signScheme() == SignScheme.HMAC_SHA256) {
+            return hmacVerify(payload, charset, signature, application.secretKey());
+        }
+        return verify(payload, charset, signature, application.publicKey());
+    }
+
+    /**
+     * 按应用签名方式验证请求原始字节数据的签名，无需将请求数据解码成字符串
+     */
+    public static boolean verify(ApplicationPermit application, byte[] data, int offset, int length, String signature)
+        throws GeneralSecurityException {
+        byte[] sign = Base64.getDecoder().decode(signature);
+        if (application.signScheme() == SignScheme.HMAC_SHA256) {
+            Mac mac = macs.get();
+            mac.init(application.secretKey());
+            mac.update(data, offset, length);
+            return MessageDigest.isEqual(mac.doFinal(), sign);
+        }
+        Signature verifier = signatures.get();
+        verifier.initVerify(application.publicKey());
+        verifier.update(data, offset, length);
+        return verifier.verify(sign);
+    }
+
+    /**
+     * 按应用签名方式签名应答数据：RSA使用商户私钥，HMAC使用应用密钥
+     */
+    public static String sign(ApplicationPermit application, String payload, String charset) throws GeneralSecurityException {
+        if (application.signScheme() == SignScheme.HMAC_SHA256) {
+            return hmacSign(payload, charset, application.secretKey());
+        }
+        return sign(payload, charset, application.getMerchant().privateKey());
+    }
+
+    /**
+     * 按应用签名方式签名应答原始字节数据，无需将应答数据编码成字符串
+     */
+    public static String sign(ApplicationPermit application, byte[] data, int offset, int length)
+        throws GeneralSecurityException {
+        if (application.signScheme() == SignScheme.HMAC_SHA256) {
+            Mac mac = macs.get();
+            mac.init(application.secretKey());
+            mac.update(data, offset, length);
+            return Base64.getEncoder().encodeToString(mac.doFinal());
+        }
+        // SHA1WithRSA(PKCS#1 v1.5)签名无需随机数
+        Signature signer = signatures.get();
+        signer.initSign(application.getMerchant().privateKey());
+        signer.update(data, offset, length);
+        return Base64.getEncoder().encodeToString(signer.sign());
+    }
+
+    public static String sign(String payload, String privateKey) throws Exception {
+        return sign(payload, CHARSET_UTF8, getPrivateKey(privateKey));
+    }
+
+    /**
+     * 使用预先解析的私钥签名，返回Base64编码的签名
+     */
+    public static String sign(String payload, String charset, PrivateKey privateKey) throws GeneralSecurityException {
+        byte[] packet = payload.getBytes(Charset.forName(charset));
+        return Base64.getEncoder().encodeToString(sign(packet, privateKey));
+    }
+
+    public static byte[] sign(byte[] data, PrivateKey privateKey) throws GeneralSecurityException {
+        // SHA1WithRSA(PKCS#1 v1.5)签名无需随机数
+        Signature signature = signatures.get();
+        signature.initSign(privateKey);
+        signature.update(data);
+        return signature.sign();
+    }
+
+    public static boolean verify(String payload, String signature, String publicKey) throws Exception {
+        return verify(payload, CHARSET_UTF8, signature, getPublicKey(publicKey));
+    }
+
+    /**
+     * 使用预先解析的公钥验证Base64编码的签名
+     */
+    public static boolean verify(String payload, String charset, String signature, PublicKey publicKey) throws GeneralSecurityException {
+        byte[] packet = payload.getBytes(Charset.forName(charset));
+        byte[] sign = Base64.getDecoder().decode(signature);
+        return verify(packet, sign, publicKey);
+    }
+
+    public static boolean verify(byte[] data, byte[] sign, PublicKey publicKey) throws GeneralSecurityException {
+        Signature signature = signatures.get();
+        signature.initVerify(publicKey);
+        signature.update(data);
+        return signature.verify(sign);
+    }
+
+    public static PrivateKey getPrivateKey(String key) throws GeneralSecurityException {
+        byte[] keyBytes = Base64.getDecoder().decode(key);
+        PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(keyBytes);
+        KeyFactory keyFactory = KeyFactory.getInstance(KEY_ALGORITHM);
+        return keyFactory.generatePrivate(keySpec);
+    }
+
+    public static PublicKey getPublicKey(String key) throws GeneralSecurityException {
+        byte[] keyBytes = Base64.getDecoder().decode(key);
+        X509EncodedKeySpec keySpec = new X509EncodedKeySpec(keyBytes);
+        KeyFactory keyFactory = KeyFactory.getInstance(KEY_ALGORITHM);
+        return keyFactory.generatePublic(keySpec);
+    }
+
+    /**
+     * HMAC签名，返回Base64编码的签名
+     */
+    public static String hmacSign(String payload, String charset, SecretKey secretKey) throws GeneralSecurityException {
+        byte[] packet = payload.getBytes(Charset.forName(charset));
+        return Base64.getEncoder().encodeToString(hmac(packet, secretKey));
+    }
+
+    /**
+     * 验证Base64编码的HMAC签名，使用常量时间比较避免时序攻击
+     */
+    public static boolean hmacVerify(String payload, String charset, String signature, SecretKey secretKey)
+        throws GeneralSecurityException {
+        byte[] packet = payload.getBytes(Charset.forName(charset));
+        byte[] sign = Base64.getDecoder().decode(signature);
+        return MessageDigest.isEqual(hmac(packet, secretKey), sign);
+    }
+
+    public static byte[] hmac(byte[] data, SecretKey secretKey) throws GeneralSecurityException {
+        Mac mac = macs.get();
+        mac.init(secretKey);
+        return mac.doFinal(data);
+    }
+
+    public static SecretKey getSecretKey(String key) {
+        return new SecretKeySpec(Base64.getDecoder().decode(key), HMAC_ALGORITHM);
+    }
+
+    /**
+     * 生成Base64编码的随机HMAC密钥
+     */
+    public static String generateSecretKey() {
+        byte[] keyBytes = new byte[HMAC_KEY_BYTES];
+        random.nextBytes(keyBytes);
+        return Base64.getEncoder().encodeToString(keyBytes);
+    }
+}
@@ -0,0 +1,64 @@
+package com.diligrp.xtrade.upay.trade.domain;
+
+import com.diligrp.xtrade.upay.core.domain.TransactionStatus;
+
+/**
+ * 支付结果重放模型，缓存已完成的支付操作结果
+ *
+ * PaymentResult继承HashMap，JSON序列化时忽略其属性，因此使用独立的模型缓存支付结果
+ */
+public class PaymentReplay {
+    // 请求特征，特征不一致的重复请求不重放结果
+    private String fingerprint;
+    // 交易状态
+    private int code;
+    // 支付ID
+    private String paymentId;
+    // 账户资金
+    private TransactionStatus status;
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public void setCode(int code) {
+        this.code = code;
+    }
+
+    public String getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(String paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public TransactionStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TransactionStatus status) {
+        this.status = status;
+    }
+
+    public PaymentResult toPaymentResult() {
+        return PaymentResult.of(code, paymentId, status);
+    }
+
+    public static PaymentReplay of(String fingerprint, PaymentResult result) {
+        PaymentReplay replay = new PaymentReplay();
+        replay.setFingerprint(fingerprint);
+        replay.setCode(result.getCode());
+        replay.setPaymentId(result.getPaymentId());
+        replay.setStatus(result.getStatus());
+        return replay;
+    }
+}
@@ -0,0 +1,23 @@
+package com.diligrp.xtrade.upay.trade.service;
+
+import com.diligrp.xtrade.upay.trade.domain.PaymentResult;
+
+import java.util.function.Supplier;
+
+/**
+ * 支付结果重放服务接口：按(应用, 交易, 支付操作)保证支付操作幂等
+ */
+public interface IPaymentReplayService {
+    /**
+     * 幂等执行支付操作：支付操作已成功完成时直接返回缓存的支付结果；相同支付操作执行中时等待其完成并返回其结果或异常，
+     * 等待超时时正常执行支付操作（由交易状态检查保证不重复支付）；请求特征不一致时不重放结果，正常执行支付操作
+     *
+     * @param appId - 应用ID
+     * @param tradeId - 交易ID
+     * @param operation - 支付操作，比如：commit、confirm、cancel
+     * @param fingerprint - 请求特征，比如：账号ID和支付渠道
+     * @param action - 支付操作
+     * @return 支付结果
+     */
+    PaymentResult execute(Long appId, String tradeId, String operation, String fingerprint, Supplier<PaymentResult> action);
+}
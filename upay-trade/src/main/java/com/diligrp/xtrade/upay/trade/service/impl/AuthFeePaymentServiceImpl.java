@@ -1,8 +1,6 @@
 package com.diligrp.xtrade.upay.trade.service.impl;
 
-import com.diligrp.xtrade.shared.exception.ServiceAccessException;
 import com.diligrp.xtrade.shared.sequence.IKeyGenerator;
-import com.diligrp.xtrade.shared.sequence.KeyGeneratorManager;
 import com.diligrp.xtrade.shared.sequence.SnowflakeKeyManager;
 import com.diligrp.xtrade.shared.util.ObjectUtils;
 import com.diligrp.xtrade.upay.channel.dao.IFrozenOrderDao;
@@ -15,12 +13,12 @@ import com.diligrp.xtrade.upay.channel.type.ChannelType;
 import com.diligrp.xtrade.upay.channel.type.FrozenState;
 import com.diligrp.xtrade.upay.channel.type.FrozenType;
 import com.diligrp.xtrade.upay.core.ErrorCode;
-import com.diligrp.xtrade.upay.core.dao.IMerchantDao;
 import com.diligrp.xtrade.upay.core.domain.MerchantPermit;
 import com.diligrp.xtrade.upay.core.domain.TransactionStatus;
 import com.diligrp.xtrade.upay.core.model.FundAccount;
+import com.diligrp.xtrade.upay.core.service.IAccessPermitService;
 import com.diligrp.xtrade.upay.core.type.SequenceKey;
-import com.diligrp.xtrade.upay.core.util.AsyncTaskExecutor;
+import com.diligrp.xtrade.upay.core.util.SegmentKeyManager;
 import com.diligrp.xtrade.upay.trade.dao.IPaymentFeeDao;
 import com.diligrp.xtrade.upay.trade.dao.ITradeOrderDao;
 import com.diligrp.xtrade.upay.trade.dao.ITradePaymentDao;
@@ -45,6 +43,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -69,13 +68,13 @@ public class AuthFeePaymentServiceImpl extends FeePaymentServiceImpl implements
     private IPaymentFeeDao paymentFeeDao;
 
     @Resource
-    private IMerchantDao merchantDao;
+    private IAccessPermitService accessPermitService;
 
     @Resource
     private IAccountChannelService accountChannelService;
 
     @Resource
-    private KeyGeneratorManager keyGeneratorManager;
+    private SegmentKeyManager segmentKeyManager;
 
     @Resource
     private SnowflakeKeyManager snowflakeKeyManager;
@@ -112,9 +111,9 @@ public class AuthFeePaymentServiceImpl extends FeePaymentServiceImpl implements
         // 创建冻结资金订单
         Long masterAccountId = account.getParentId() == 0 ? account.getAccountId() : account.getParentId();
         Long childAccountId = account.getParentId() == 0 ? null : account.getAccountId();
-        IKeyGenerator frozenKey = keyGeneratorManager.getKeyGenerator(SequenceKey.FROZEN_ID);
-        // 异步执行避免Seata回滚造成ID重复
-        long frozenId = AsyncTaskExecutor.submit(() -> frozenKey.nextId());
+        IKeyGenerator frozenKey = segmentKeyManager.getKeyGenerator(SequenceKey.FROZEN_ID);
+        // 号段ID在后台独立事务中预取，避免Seata回滚造成ID重复
+        long frozenId = frozenKey.nextId();
         FrozenOrder frozenOrder = FrozenOrder.builder().frozenId(frozenId).paymentId(paymentId)
             .accountId(masterAccountId).childId(childAccountId).name(account.getName())
             .type(FrozenType.TRADE_FROZEN.getCode()).amount(trade.getAmount()).state(FrozenState.FROZEN.getCode())
@@ -170,10 +169,7 @@ public class AuthFeePaymentServiceImpl extends FeePaymentServiceImpl implements
         LocalDateTime now = LocalDateTime.now();
         FundAccount account = accountChannelService.checkTradePermission(payment.getAccountId(), confirm.getPassword(), -1);
         accountChannelService.checkAccountTradeState(account); // 寿光专用业务逻辑
-        MerchantPermit merchant = merchantDao.findMerchantById(trade.getMchId()).map(mer -> MerchantPermit.of(
-            mer.getMchId(), mer.getCode(), mer.getProfitAccount(), mer.getVouchAccount(), mer.getPledgeAccount(),
-            mer.getPrivateKey(), mer.getPublicKey()))
-            .orElseThrow(() -> new ServiceAccessException(ErrorCode.OBJECT_NOT_FOUND, "商户信息未注册"));
+        MerchantPermit merchant = accessPermitService.loadMerchantPermit(trade.getMchId());
         // 客户账号资金解冻并缴费
         AccountChannel channel = AccountChannel.of(payment.getPaymentId(), account.getAccountId(), account.getParentId());
         IFundTransaction transaction = channel.openTransaction(trade.getType(), now);
@@ -181,7 +177,8 @@ public class AuthFeePaymentServiceImpl extends FeePaymentServiceImpl implements
         fees.forEach(fee ->
             transaction.outgo(fee.getAmount(), fee.getType(), fee.getTypeName())
         );
-        TransactionStatus status = accountChannelService.submit(transaction);
+        List<IFundTransaction> transactions = new ArrayList<>();
+        transactions.add(transaction);
 
         // 园区收益账户收款
         AccountChannel merChannel = AccountChannel.of(payment.getPaymentId(), merchant.getProfitAccount(), 0L);
@@ -189,7 +186,9 @@ public class AuthFeePaymentServiceImpl extends FeePaymentServiceImpl implements
         fees.forEach(fee ->
             feeTransaction.income(fee.getAmount(), fee.getType(), fee.getTypeName())
         );
-        accountChannelService.submit(feeTransaction);
+        transactions.add(feeTransaction);
+        // 按账号顺序批量提交客户和园区资金事务
+        TransactionStatus status = accountChannelService.submitAll(transactions).get(0);
 
         // 修改冻结订单"已解冻"状态
         FrozenStateDto frozenState = FrozenStateDto.of(frozenOrder.getFrozenId(), FrozenState.UNFROZEN.getCode(),
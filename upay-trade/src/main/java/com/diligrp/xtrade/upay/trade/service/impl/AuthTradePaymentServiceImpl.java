@@ -1,8 +1,6 @@
 package com.diligrp.xtrade.upay.trade.service.impl;
 
-import com.diligrp.xtrade.shared.exception.ServiceAccessException;
 import com.diligrp.xtrade.shared.sequence.IKeyGenerator;
-import com.diligrp.xtrade.shared.sequence.KeyGeneratorManager;
 import com.diligrp.xtrade.shared.sequence.SnowflakeKeyManager;
 import com.diligrp.xtrade.shared.util.ObjectUtils;
 import com.diligrp.xtrade.upay.channel.dao.IFrozenOrderDao;
@@ -15,13 +13,13 @@ import com.diligrp.xtrade.upay.channel.type.ChannelType;
 import com.diligrp.xtrade.upay.channel.type.FrozenState;
 import com.diligrp.xtrade.upay.channel.type.FrozenType;
 import com.diligrp.xtrade.upay.core.ErrorCode;
-import com.diligrp.xtrade.upay.core.dao.IMerchantDao;
 import com.diligrp.xtrade.upay.core.domain.MerchantPermit;
 import com.diligrp.xtrade.upay.core.domain.TransactionStatus;
 import com.diligrp.xtrade.upay.core.model.FundAccount;
+import com.diligrp.xtrade.upay.core.service.IAccessPermitService;
 import com.diligrp.xtrade.upay.core.service.IFundAccountService;
 import com.diligrp.xtrade.upay.core.type.SequenceKey;
-import com.diligrp.xtrade.upay.core.util.AsyncTaskExecutor;
+import com.diligrp.xtrade.upay.core.util.SegmentKeyManager;
 import com.diligrp.xtrade.upay.trade.dao.IPaymentFeeDao;
 import com.diligrp.xtrade.upay.trade.dao.ITradeOrderDao;
 import com.diligrp.xtrade.upay.trade.dao.ITradePaymentDao;
@@ -47,6 +45,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -72,7 +71,7 @@ public class AuthTradePaymentServiceImpl extends TradePaymentServiceImpl impleme
     private IFrozenOrderDao frozenOrderDao;
 
     @Resource
-    private IMerchantDao merchantDao;
+    private IAccessPermitService accessPermitService;
 
     @Resource
     private IAccountChannelService accountChannelService;
@@ -81,7 +80,7 @@ public class AuthTradePaymentServiceImpl extends TradePaymentServiceImpl impleme
     private IFundAccountService fundAccountService;
 
     @Resource
-    private KeyGeneratorManager keyGeneratorManager;
+    private SegmentKeyManager segmentKeyManager;
 
     @Resource
     private SnowflakeKeyManager snowflakeKeyManager;
@@ -117,9 +116,9 @@ public class AuthTradePaymentServiceImpl extends TradePaymentServiceImpl impleme
         // 创建冻结资金订单
         Long masterAccountId = fromAccount.getParentId() == 0 ? fromAccount.getAccountId() : fromAccount.getParentId();
         Long childAccountId = fromAccount.getParentId() == 0 ? null : fromAccount.getAccountId();
-        IKeyGenerator frozenKey = keyGeneratorManager.getKeyGenerator(SequenceKey.FROZEN_ID);
-        // 异步执行避免Seata回滚造成ID重复
-        long frozenId = AsyncTaskExecutor.submit(() -> frozenKey.nextId());
+        IKeyGenerator frozenKey = segmentKeyManager.getKeyGenerator(SequenceKey.FROZEN_ID);
+        // 号段ID在后台独立事务中预取，避免Seata回滚造成ID重复
+        long frozenId = frozenKey.nextId();
         FrozenOrder frozenOrder = FrozenOrder.builder().frozenId(frozenId).paymentId(paymentId)
             .accountId(masterAccountId).childId(childAccountId).name(fromAccount.getName())
             .type(FrozenType.TRADE_FROZEN.getCode()).amount(trade.getAmount()).state(FrozenState.FROZEN.getCode())
@@ -175,10 +174,7 @@ public class AuthTradePaymentServiceImpl extends TradePaymentServiceImpl impleme
         if (!ObjectUtils.equals(fromAccount.getMchId(), trade.getMchId())) {
             throw new TradePaymentException(ErrorCode.OPERATION_NOT_ALLOWED, "不能进行跨商户交易");
         }
-        MerchantPermit merchant = merchantDao.findMerchantById(trade.getMchId()).map(mer -> MerchantPermit.of(
-            mer.getMchId(), mer.getCode(), mer.getProfitAccount(), mer.getVouchAccount(), mer.getPledgeAccount(),
-            mer.getPrivateKey(), mer.getPublicKey())).orElseThrow(
-            () -> new ServiceAccessException(ErrorCode.OBJECT_NOT_FOUND, "商户信息未注册"));
+        MerchantPermit merchant = accessPermitService.loadMerchantPermit(trade.getMchId());
 
         // 处理买家付款和买家佣金
         AccountChannel fromChannel = AccountChannel.of(payment.getPaymentId(), fromAccount.getAccountId(), fromAccount.getParentId());
@@ -188,7 +184,8 @@ public class AuthTradePaymentServiceImpl extends TradePaymentServiceImpl impleme
         fees.stream().filter(Fee::forBuyer).forEach(fee -> {
             fromTransaction.outgo(fee.getAmount(), fee.getType(), fee.getTypeName());
         });
-        TransactionStatus status = accountChannelService.submit(fromTransaction);
+        List<IFundTransaction> transactions = new ArrayList<>();
+        transactions.add(fromTransaction);
 
         // 处理卖家收款和卖家佣金
         FundAccount toAccount = fundAccountService.findFundAccountById(trade.getAccountId());
@@ -199,7 +196,7 @@ public class AuthTradePaymentServiceImpl extends TradePaymentServiceImpl impleme
         fees.stream().filter(Fee::forSeller).forEach(fee -> {
             toTransaction.outgo(fee.getAmount(), fee.getType(), fee.getTypeName());
         });
-        status.setRelation(accountChannelService.submit(toTransaction));
+        transactions.add(toTransaction);
 
         // 处理商户收益
         if (!fees.isEmpty()) {
@@ -208,8 +205,12 @@ public class AuthTradePaymentServiceImpl extends TradePaymentServiceImpl impleme
             fees.forEach(fee ->
                 merTransaction.income(fee.getAmount(), fee.getType(), fee.getTypeName())
             );
-            accountChannelService.submit(merTransaction);
+            transactions.add(merTransaction);
         }
+        // 按账号顺序批量提交买卖家和商户资金事务
+        List<TransactionStatus> statuses = accountChannelService.submitAll(transactions);
+        TransactionStatus status = statuses.get(0);
+        status.setRelation(statuses.get(1));
 
         // 修改冻结订单"已解冻"状态
         FrozenStateDto frozenState = FrozenStateDto.of(frozenOrder.getFrozenId(), FrozenState.UNFROZEN.getCode(),
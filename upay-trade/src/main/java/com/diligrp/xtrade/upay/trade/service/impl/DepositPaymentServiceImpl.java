@@ -34,6 +34,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -89,7 +90,8 @@ public class DepositPaymentServiceImpl implements IPaymentService {
         fees.forEach(fee -> {
             transaction.outgo(fee.getAmount(), fee.getType(), fee.getTypeName());
         });
-        TransactionStatus status = accountChannelService.submit(transaction);
+        List<IFundTransaction> transactions = new ArrayList<>();
+        transactions.add(transaction);
 
         // 处理商户收益
         if (!fees.isEmpty()) {
@@ -99,8 +101,10 @@ public class DepositPaymentServiceImpl implements IPaymentService {
             fees.forEach(fee ->
                 feeTransaction.income(fee.getAmount(), fee.getType(), fee.getTypeName())
             );
-            accountChannelService.submit(feeTransaction);
+            transactions.add(feeTransaction);
         }
+        // 按账号顺序批量提交客户和商户资金事务
+        TransactionStatus status = accountChannelService.submitAll(transactions).get(0);
 
         TradeStateDto tradeState = TradeStateDto.of(trade.getTradeId(), TradeState.SUCCESS.getCode(), trade.getVersion(), now);
         int result = tradeOrderDao.compareAndSetState(tradeState);
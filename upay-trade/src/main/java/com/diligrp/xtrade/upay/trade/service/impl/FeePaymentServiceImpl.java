@@ -1,6 +1,5 @@
 package com.diligrp.xtrade.upay.trade.service.impl;
 
-import com.diligrp.xtrade.shared.exception.ServiceAccessException;
 import com.diligrp.xtrade.shared.sequence.IKeyGenerator;
 import com.diligrp.xtrade.shared.sequence.SnowflakeKeyManager;
 import com.diligrp.xtrade.shared.util.ObjectUtils;
@@ -9,10 +8,10 @@ import com.diligrp.xtrade.upay.channel.domain.IFundTransaction;
 import com.diligrp.xtrade.upay.channel.service.IAccountChannelService;
 import com.diligrp.xtrade.upay.channel.type.ChannelType;
 import com.diligrp.xtrade.upay.core.ErrorCode;
-import com.diligrp.xtrade.upay.core.dao.IMerchantDao;
 import com.diligrp.xtrade.upay.core.domain.MerchantPermit;
 import com.diligrp.xtrade.upay.core.domain.TransactionStatus;
 import com.diligrp.xtrade.upay.core.model.FundAccount;
+import com.diligrp.xtrade.upay.core.service.IAccessPermitService;
 import com.diligrp.xtrade.upay.core.type.SequenceKey;
 import com.diligrp.xtrade.upay.trade.dao.IPaymentFeeDao;
 import com.diligrp.xtrade.upay.trade.dao.IRefundPaymentDao;
@@ -39,6 +38,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -62,7 +62,7 @@ public class FeePaymentServiceImpl implements IPaymentService {
     private IPaymentFeeDao paymentFeeDao;
 
     @Resource
-    private IMerchantDao merchantDao;
+    private IAccessPermitService accessPermitService;
 
     @Resource
     private IAccountChannelService accountChannelService;
@@ -100,13 +100,14 @@ public class FeePaymentServiceImpl implements IPaymentService {
         accountChannelService.checkAccountTradeState(account); // 寿光专用业务逻辑
         IKeyGenerator keyGenerator = snowflakeKeyManager.getKeyGenerator(SequenceKey.PAYMENT_ID);
         String paymentId = String.valueOf(keyGenerator.nextId());
+        List<IFundTransaction> transactions = new ArrayList<>();
         if (payment.getChannelId() == ChannelType.ACCOUNT.getCode()) {
             AccountChannel channel = AccountChannel.of(paymentId, account.getAccountId(), account.getParentId());
             IFundTransaction transaction = channel.openTransaction(trade.getType(), now);
             fees.forEach(fee ->
                 transaction.outgo(fee.getAmount(), fee.getType(), fee.getTypeName())
             );
-            status = accountChannelService.submit(transaction);
+            transactions.add(transaction);
         }
 
         // 处理商户收款
@@ -115,7 +116,12 @@ public class FeePaymentServiceImpl implements IPaymentService {
         fees.forEach(fee ->
             feeTransaction.income(fee.getAmount(), fee.getType(), fee.getTypeName())
         );
-        accountChannelService.submit(feeTransaction);
+        transactions.add(feeTransaction);
+        // 按账号顺序批量提交客户和商户资金事务
+        List<TransactionStatus> statuses = accountChannelService.submitAll(transactions);
+        if (transactions.size() > 1) {
+            status = statuses.get(0);
+        }
 
         TradeStateDto tradeState = TradeStateDto.of(trade.getTradeId(), TradeState.SUCCESS.getCode(),
             trade.getVersion(), now);
@@ -163,10 +169,7 @@ public class FeePaymentServiceImpl implements IPaymentService {
         FundAccount account = accountChannelService.checkTradePermission(trade.getAccountId());
         accountChannelService.checkAccountTradeState(account); // 寿光专用业务逻辑
         // 获取交易订单中的商户收益账号信息，并处理商户退款
-        MerchantPermit merchant = merchantDao.findMerchantById(trade.getMchId()).map(mer -> MerchantPermit.of(
-            mer.getMchId(), mer.getCode(), mer.getProfitAccount(), mer.getVouchAccount(), mer.getPledgeAccount(),
-            mer.getPrivateKey(), mer.getPublicKey())).orElseThrow(
-            () -> new ServiceAccessException(ErrorCode.OBJECT_NOT_FOUND, "商户信息未注册"));
+        MerchantPermit merchant = accessPermitService.loadMerchantPermit(trade.getMchId());
         IKeyGenerator keyGenerator = snowflakeKeyManager.getKeyGenerator(SequenceKey.PAYMENT_ID);
         String paymentId = String.valueOf(keyGenerator.nextId());
         AccountChannel merChannel = AccountChannel.of(paymentId, merchant.getProfitAccount(), 0L);
@@ -174,7 +177,8 @@ public class FeePaymentServiceImpl implements IPaymentService {
         fees.forEach(fee ->
             feeTransaction.outgo(fee.getAmount(), fee.getType(), fee.getTypeName())
         );
-        accountChannelService.submit(feeTransaction);
+        List<IFundTransaction> transactions = new ArrayList<>();
+        transactions.add(feeTransaction);
 
         // 处理客户收款
         TransactionStatus status = null;
@@ -184,7 +188,12 @@ public class FeePaymentServiceImpl implements IPaymentService {
             fees.forEach(fee ->
                 transaction.income(fee.getAmount(), fee.getType(), fee.getTypeName())
             );
-            status = accountChannelService.submit(transaction);
+            transactions.add(transaction);
+        }
+        // 按账号顺序批量提交商户和客户资金事务
+        List<TransactionStatus> statuses = accountChannelService.submitAll(transactions);
+        if (transactions.size() > 1) {
+            status = statuses.get(1);
         }
 
         RefundPayment refund = RefundPayment.builder().paymentId(paymentId).type(TradeType.CANCEL_TRADE.getCode())
@@ -10,6 +10,7 @@ import com.diligrp.xtrade.upay.core.domain.MerchantPermit;
 import com.diligrp.xtrade.upay.core.model.FundAccount;
 import com.diligrp.xtrade.upay.core.service.IFundAccountService;
 import com.diligrp.xtrade.upay.core.type.SequenceKey;
+import com.diligrp.xtrade.upay.core.util.PaymentMetrics;
 import com.diligrp.xtrade.upay.trade.dao.ITradeOrderDao;
 import com.diligrp.xtrade.upay.trade.domain.Confirm;
 import com.diligrp.xtrade.upay.trade.domain.ConfirmRequest;
@@ -23,9 +24,11 @@ import com.diligrp.xtrade.upay.trade.domain.TradeRequest;
 import com.diligrp.xtrade.upay.trade.exception.TradePaymentException;
 import com.diligrp.xtrade.upay.trade.model.TradeOrder;
 import com.diligrp.xtrade.upay.trade.service.IPaymentPlatformService;
+import com.diligrp.xtrade.upay.trade.service.IPaymentReplayService;
 import com.diligrp.xtrade.upay.trade.service.IPaymentService;
 import com.diligrp.xtrade.upay.trade.type.TradeState;
 import com.diligrp.xtrade.upay.trade.type.TradeType;
+import io.micrometer.core.instrument.Timer;
 import org.apache.commons.lang.ObjectUtils;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanPostProcessor;
@@ -38,6 +41,7 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * 支付平台服务：聚合所有支持的业务类型，根据不同的交易类型将请求分发只不同的业务服务组件
@@ -57,6 +61,9 @@ public class PaymentPlatformServiceImpl implements IPaymentPlatformService, Bean
     @Resource
     private SnowflakeKeyManager snowflakeKeyManager;
 
+    @Resource
+    private IPaymentReplayService paymentReplayService;
+
     private Map<TradeType, IPaymentService> services = new HashMap<>();
 
     /**
@@ -88,10 +95,16 @@ public class PaymentPlatformServiceImpl implements IPaymentPlatformService, Bean
     /**
      * {@inheritDoc}
      *
-     * 预授权业务只冻结资金不进行实际交易
+     * 预授权业务只冻结资金不进行实际交易；重复提交（相同账号和支付渠道）时重放首次提交的支付结果
      */
     @Override
     public PaymentResult commit(ApplicationPermit application, PaymentRequest request) {
+        String fingerprint = request.getAccountId() + ":" + request.getChannelId();
+        return paymentReplayService.execute(application.getAppId(), request.getTradeId(), "commit", fingerprint,
+            () -> doCommit(application, request));
+    }
+
+    private PaymentResult doCommit(ApplicationPermit application, PaymentRequest request) {
         Optional<ChannelType> channelType = ChannelType.getType(request.getChannelId());
         channelType.orElseThrow(() -> new TradePaymentException(ErrorCode.CHANNEL_NOT_SUPPORTED, "不支持的支付渠道"));
 
@@ -117,16 +130,22 @@ public class PaymentPlatformServiceImpl implements IPaymentPlatformService, Bean
         payment.put(MerchantPermit.class.getName(), application.getMerchant());
         request.fees().ifPresent(fees -> payment.put(Fee.class.getName(), fees));
 
-        return service.commit(trade, payment);
+        return execute("commit", tradeType, () -> service.commit(trade, payment));
     }
 
     /**
      * {@inheritDoc}
      *
-     * 预授权业务确认交易，解冻资金并实际发生资金交易
+     * 预授权业务确认交易，解冻资金并实际发生资金交易；重复提交（相同账号和确认金额）时重放首次提交的支付结果
      */
     @Override
     public PaymentResult confirm(ApplicationPermit application, ConfirmRequest request) {
+        String fingerprint = request.getAccountId() + ":" + request.getAmount();
+        return paymentReplayService.execute(application.getAppId(), request.getTradeId(), "confirm", fingerprint,
+            () -> doConfirm(application, request));
+    }
+
+    private PaymentResult doConfirm(ApplicationPermit application, ConfirmRequest request) {
         Optional<TradeOrder> tradeOpt = tradeOrderDao.findTradeOrderById(request.getTradeId());
         TradeOrder trade = tradeOpt.orElseThrow(() -> new TradePaymentException(ErrorCode.TRADE_NOT_FOUND, "交易不存在"));
         if (!ObjectUtils.equals(trade.getMchId(), application.getMerchant().getMchId())) {
@@ -143,16 +162,23 @@ public class PaymentPlatformServiceImpl implements IPaymentPlatformService, Bean
         Confirm confirm = Confirm.of(request.getAccountId(), request.getAmount(), request.getPassword());
         confirm.put(MerchantPermit.class.getName(), application.getMerchant());
         request.fees().ifPresent(fees -> confirm.put(Fee.class.getName(), fees));
-        return service.confirm(trade, confirm);
+        return execute("confirm", tradeType, () -> service.confirm(trade, confirm));
     }
 
     /**
      * {@inheritDoc}
      *
-     * 正常业务撤销将对资金进行逆向操作；对于预授权业务，确认交易前撤销只解冻资金，确认交易后撤销进行资金逆向操作
+     * 正常业务撤销将对资金进行逆向操作；对于预授权业务，确认交易前撤销只解冻资金，确认交易后撤销进行资金逆向操作；
+     * 重复提交（相同账号）时重放首次提交的支付结果
      */
     @Override
     public PaymentResult cancel(ApplicationPermit application, RefundRequest request) {
+        String fingerprint = String.valueOf(request.getAccountId());
+        return paymentReplayService.execute(application.getAppId(), request.getTradeId(), "cancel", fingerprint,
+            () -> doCancel(application, request));
+    }
+
+    private PaymentResult doCancel(ApplicationPermit application, RefundRequest request) {
         Optional<TradeOrder> tradeOpt = tradeOrderDao.findTradeOrderById(request.getTradeId());
         TradeOrder trade = tradeOpt.orElseThrow(() -> new TradePaymentException(ErrorCode.TRADE_NOT_FOUND, "交易不存在"));
         if (!ObjectUtils.equals(trade.getMchId(), application.getMerchant().getMchId())) {
@@ -168,7 +194,7 @@ public class PaymentPlatformServiceImpl implements IPaymentPlatformService, Bean
 
         Refund cancel = Refund.of(request.getAccountId(), trade.getAmount(), request.getPassword());
         cancel.put(MerchantPermit.class.getName(), application.getMerchant());
-        return service.cancel(trade, cancel);
+        return execute("cancel", tradeType, () -> service.cancel(trade, cancel));
     }
 
     @Override
@@ -188,4 +214,20 @@ public class PaymentPlatformServiceImpl implements IPaymentPlatformService, Bean
     private Optional<IPaymentService> tradeService(TradeType tradeType) {
         return Optional.ofNullable(services.get(tradeType));
     }
+
+    /**
+     * 执行业务服务组件的支付操作，按交易类型和处理结果（成功或错误码）记录操作延迟监控指标upay.payment.{action}
+     */
+    private PaymentResult execute(String action, TradeType tradeType, Supplier<PaymentResult> operation) {
+        Timer.Sample sample = PaymentMetrics.start();
+        Throwable error = null;
+        try {
+            return operation.get();
+        } catch (RuntimeException ex) {
+            error = ex;
+            throw ex;
+        } finally {
+            PaymentMetrics.stop(sample, "upay.payment." + action, error, "tradeType", tradeType.name());
+        }
+    }
 }
@@ -0,0 +1,286 @@
+package com.diligrp.xtrade.upay.trade.service.impl;
+
+import com.diligrp.xtrade.shared.redis.IRedisSystemService;
+import com.diligrp.xtrade.shared.util.JsonUtils;
+import com.diligrp.xtrade.shared.util.ObjectUtils;
+import com.diligrp.xtrade.upay.core.ErrorCode;
+import com.diligrp.xtrade.upay.core.util.CircuitBreaker;
+import com.diligrp.xtrade.upay.core.util.PaymentMetrics;
+import com.diligrp.xtrade.upay.trade.domain.PaymentReplay;
+import com.diligrp.xtrade.upay.trade.domain.PaymentResult;
+import com.diligrp.xtrade.upay.trade.exception.TradePaymentException;
+import com.diligrp.xtrade.upay.trade.service.IPaymentReplayService;
+import io.seata.core.context.RootContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 支付结果重放服务实现
+ *
+ * 成功的支付结果同时缓存在Redis和本地（Redis熔断或异常时只使用本地缓存），缓存过期时间内重复提交直接重放支付结果，
+ * 无需重新查询交易订单、检查交易状态和验证支付密码。相同支付操作同时提交时，本节点通过执行中的支付操作列表去重，
+ * 节点间通过Redis计数器去重（计数为1的节点执行，其他节点轮询计数器直到其被删除），重复提交等待首次提交完成，避免并发修改交易状态失败；
+ * 首次提交失败时没有缓存的支付结果，等待的重复提交在计数器删除后立即执行支付操作；
+ * 处于Seata全局事务中的支付操作可能被回滚，不缓存也不重放支付结果
+ */
+@Service("paymentReplayService")
+public class PaymentReplayServiceImpl implements IPaymentReplayService {
+
+    private static final String PREFIX_REPLAY_KEY = "upay:replay:result:";
+
+    private static final String PREFIX_PENDING_KEY = "upay:replay:pending:";
+
+    private static final String METRIC_REPLAY = "upay.payment.replay";
+
+    // 轮询其他节点执行状态的间隔-毫秒
+    private static final long POLL_MILLIS = 50;
+
+    private Logger LOG = LoggerFactory.getLogger(this.getClass());
+
+    @Resource
+    private IRedisSystemService redisSystemService;
+
+    @Resource
+    private CircuitBreaker redisCircuitBreaker;
+
+    // 是否启用支付结果重放
+    @Value("${upay.replay.enable:true}")
+    private boolean enable;
+
+    // 支付结果缓存时间-秒
+    @Value("${upay.replay.expire:86400}")
+    private int expireSeconds;
+
+    // 重复提交等待首次提交完成的超时时间-毫秒
+    @Value("${upay.replay.wait-timeout:10000}")
+    private long waitTimeout;
+
+    // 本地缓存的最大支付结果数
+    @Value("${upay.replay.local-max-size:10000}")
+    private int localMaxSize;
+
+    // 本节点执行中的支付操作
+    private final ConcurrentMap<String, InFlight> inFlights = new ConcurrentHashMap<>();
+
+    // 本地缓存的支付结果
+    private final ConcurrentMap<String, LocalReplay> localReplays = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PaymentResult execute(Long appId, String tradeId, String operation, String fingerprint,
+                                 Supplier<PaymentResult> action) {
+        if (!enable || RootContext.getXID() != null) {
+            return action.get();
+        }
+
+        String key = appId + ":" + tradeId + ":" + operation;
+        LocalReplay local = localReplays.get(key);
+        if (local != null && local.expireTime > System.currentTimeMillis()) {
+            return replay(key, operation, fingerprint, local.replay, action);
+        }
+
+        InFlight inFlight = new InFlight(fingerprint);
+        InFlight first = inFlights.putIfAbsent(key, inFlight);
+        if (first != null) {
+            return awaitInFlight(key, operation, fingerprint, first, action);
+        }
+        try {
+            PaymentResult result = executeOnce(key, operation, fingerprint, action);
+            inFlight.future.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            inFlight.future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlights.remove(key, inFlight);
+        }
+    }
+
+    /**
+     * 其他节点执行中时等待其执行完成，否则查询缓存的支付结果，都没有时执行支付操作并缓存成功的支付结果
+     */
+    private PaymentResult executeOnce(String key, String operation, String fingerprint, Supplier<PaymentResult> action) {
+        boolean owner = acquirePending(key);
+        try {
+            PaymentReplay replay = owner ? loadReplay(key) : pollReplay(key);
+            if (replay != null) {
+                return replay(key, operation, fingerprint, replay, action);
+            }
+
+            PaymentResult result = action.get();
+            if (result.isSuccess()) {
+                saveReplay(key, PaymentReplay.of(fingerprint, result));
+            }
+            return result;
+        } finally {
+            if (owner) {
+                releasePending(key);
+            }
+        }
+    }
+
+    /**
+     * 等待本节点执行中的相同支付操作完成，返回其支付结果或抛出其异常；请求特征不一致或等待超时时正常执行支付操作
+     */
+    private PaymentResult awaitInFlight(String key, String operation, String fingerprint, InFlight first,
+                                        Supplier<PaymentResult> action) {
+        if (!ObjectUtils.equals(fingerprint, first.fingerprint)) {
+            PaymentMetrics.increment(METRIC_REPLAY, "operation", operation, PaymentMetrics.TAG_RESULT, "mismatch");
+            return action.get();
+        }
+
+        try {
+            PaymentResult result = first.future.get(waitTimeout, TimeUnit.MILLISECONDS);
+            LOG.info("Duplicate payment submission waited for the first: {}", key);
+            PaymentMetrics.increment(METRIC_REPLAY, "operation", operation, PaymentMetrics.TAG_RESULT, "waited");
+            return result;
+        } catch (ExecutionException ex) {
+            PaymentMetrics.increment(METRIC_REPLAY, "operation", operation, PaymentMetrics.TAG_RESULT, "waited");
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new TradePaymentException("支付操作执行失败", cause);
+        } catch (TimeoutException ex) {
+            LOG.warn("Timeout waiting for duplicate payment submission: {}", key);
+            PaymentMetrics.increment(METRIC_REPLAY, "operation", operation, PaymentMetrics.TAG_RESULT, "timeout");
+            return action.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new TradePaymentException(ErrorCode.SERVICE_BUSY, "系统正忙，请稍后重试");
+        }
+    }
+
+    /**
+     * 重放缓存的支付结果，请求特征不一致时正常执行支付操作
+     */
+    private PaymentResult replay(String key, String operation, String fingerprint, PaymentReplay replay,
+                                 Supplier<PaymentResult> action) {
+        if (!ObjectUtils.equals(fingerprint, replay.getFingerprint())) {
+            PaymentMetrics.increment(METRIC_REPLAY, "operation", operation, PaymentMetrics.TAG_RESULT, "mismatch");
+            return action.get();
+        }
+        LOG.info("Duplicate payment submission replayed: {}", key);
+        PaymentMetrics.increment(METRIC_REPLAY, "operation", operation, PaymentMetrics.TAG_RESULT, "replayed");
+        return replay.toPaymentResult();
+    }
+
+    /**
+     * 支付操作计数加一，计数为1时本节点执行支付操作；Redis熔断或异常时本节点执行
+     */
+    private boolean acquirePending(String key) {
+        int expire = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitTimeout));
+        return redisCircuitBreaker.execute(() -> redisSystemService.incAndGet(PREFIX_PENDING_KEY + key, expire) == 1,
+            () -> Boolean.TRUE);
+    }
+
+    private void releasePending(String key) {
+        redisCircuitBreaker.run(() -> redisSystemService.remove(PREFIX_PENDING_KEY + key));
+    }
+
+    /**
+     * 判断其他节点是否仍在执行支付操作，Redis熔断或异常时视为执行完成
+     */
+    private boolean isPending(String key) {
+        return redisCircuitBreaker.execute(() -> !ObjectUtils.isEmpty(redisSystemService.get(PREFIX_PENDING_KEY + key)),
+            () -> Boolean.FALSE);
+    }
+
+    /**
+     * 轮询其他节点的支付操作计数，计数删除（其他节点执行完成）后返回其缓存的支付结果；
+     * 其他节点执行失败时不缓存支付结果，此时返回NULL由本节点立即执行支付操作，等待超时也返回NULL
+     */
+    private PaymentReplay pollReplay(String key) {
+        long deadline = System.currentTimeMillis() + waitTimeout;
+        do {
+            if (!isPending(key)) {
+                return loadReplay(key);
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new TradePaymentException(ErrorCode.SERVICE_BUSY, "系统正忙，请稍后重试");
+            }
+        } while (System.currentTimeMillis() < deadline);
+
+        LOG.warn("Timeout waiting for duplicate payment submission on other node: {}", key);
+        return null;
+    }
+
+    /**
+     * 优先查询本地缓存的支付结果，未命中时查询Redis，Redis熔断或异常时返回NULL
+     */
+    private PaymentReplay loadReplay(String key) {
+        LocalReplay local = localReplays.get(key);
+        if (local != null && local.expireTime > System.currentTimeMillis()) {
+            return local.replay;
+        }
+
+        String payload = redisCircuitBreaker.execute(() -> redisSystemService.get(PREFIX_REPLAY_KEY + key), () -> null);
+        if (ObjectUtils.isEmpty(payload)) {
+            return null;
+        }
+        try {
+            return JsonUtils.fromJsonString(payload, PaymentReplay.class);
+        } catch (Exception ex) {
+            LOG.error("Invalid cached payment result: {}", key, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Redis缓存和本地缓存存储支付结果，Redis熔断时只存储本地缓存，忽略程序异常
+     */
+    private void saveReplay(String key, PaymentReplay replay) {
+        long now = System.currentTimeMillis();
+        if (localReplays.size() >= localMaxSize) {
+            localReplays.values().removeIf(local -> local.expireTime <= now);
+            if (localReplays.size() >= localMaxSize) {
+                localReplays.clear();
+            }
+        }
+        localReplays.put(key, new LocalReplay(replay, now + expireSeconds * 1000L));
+
+        try {
+            String payload = JsonUtils.toJsonString(replay);
+            redisCircuitBreaker.run(() -> redisSystemService.setAndExpire(PREFIX_REPLAY_KEY + key, payload, expireSeconds));
+        } catch (Exception ex) {
+            LOG.error("Failed to cache payment result: {}", key, ex);
+        }
+    }
+
+    private static class InFlight {
+        private final String fingerprint;
+        private final CompletableFuture<PaymentResult> future = new CompletableFuture<>();
+
+        InFlight(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private static class LocalReplay {
+        private final PaymentReplay replay;
+        private final long expireTime;
+
+        LocalReplay(PaymentReplay replay, long expireTime) {
+            this.replay = replay;
+            this.expireTime = expireTime;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.diligrp.xtrade.upay.trade.service.impl;
 
-import com.diligrp.xtrade.shared.exception.ServiceAccessException;
 import com.diligrp.xtrade.shared.sequence.IKeyGenerator;
 import com.diligrp.xtrade.shared.sequence.SnowflakeKeyManager;
 import com.diligrp.xtrade.shared.util.ObjectUtils;
@@ -9,10 +8,10 @@ import com.diligrp.xtrade.upay.channel.domain.IFundTransaction;
 import com.diligrp.xtrade.upay.channel.service.IAccountChannelService;
 import com.diligrp.xtrade.upay.channel.type.ChannelType;
 import com.diligrp.xtrade.upay.core.ErrorCode;
-import com.diligrp.xtrade.upay.core.dao.IMerchantDao;
 import com.diligrp.xtrade.upay.core.domain.MerchantPermit;
 import com.diligrp.xtrade.upay.core.domain.TransactionStatus;
 import com.diligrp.xtrade.upay.core.model.FundAccount;
+import com.diligrp.xtrade.upay.core.service.IAccessPermitService;
 import com.diligrp.xtrade.upay.core.service.IFundAccountService;
 import com.diligrp.xtrade.upay.core.type.SequenceKey;
 import com.diligrp.xtrade.upay.trade.dao.IPaymentFeeDao;
@@ -41,6 +40,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -65,7 +65,7 @@ public class TradePaymentServiceImpl implements IPaymentService {
     private IRefundPaymentDao refundPaymentDao;
 
     @Resource
-    private IMerchantDao merchantDao;
+    private IAccessPermitService accessPermitService;
 
     @Resource
     private IAccountChannelService accountChannelService;
@@ -109,7 +109,8 @@ public class TradePaymentServiceImpl implements IPaymentService {
         fees.stream().filter(Fee::forBuyer).forEach(fee -> {
             fromTransaction.outgo(fee.getAmount(), fee.getType(), fee.getTypeName());
         });
-        TransactionStatus status = accountChannelService.submit(fromTransaction);
+        List<IFundTransaction> transactions = new ArrayList<>();
+        transactions.add(fromTransaction);
 
         // 处理卖家收款和卖家佣金
         FundAccount toAccount = fundAccountService.findFundAccountById(trade.getAccountId());
@@ -120,7 +121,7 @@ public class TradePaymentServiceImpl implements IPaymentService {
         fees.stream().filter(Fee::forSeller).forEach(fee -> {
             toTransaction.outgo(fee.getAmount(), fee.getType(), fee.getTypeName());
         });
-        status.setRelation(accountChannelService.submit(toTransaction));
+        transactions.add(toTransaction);
 
         // 处理商户收益
         if (!fees.isEmpty()) {
@@ -130,8 +131,12 @@ public class TradePaymentServiceImpl implements IPaymentService {
             fees.forEach(fee ->
                 merTransaction.income(fee.getAmount(), fee.getType(), fee.getTypeName())
             );
-            accountChannelService.submit(merTransaction);
+            transactions.add(merTransaction);
         }
+        // 按账号顺序批量提交买卖家和商户资金事务
+        List<TransactionStatus> statuses = accountChannelService.submitAll(transactions);
+        TransactionStatus status = statuses.get(0);
+        status.setRelation(statuses.get(1));
 
         // 卖家佣金存储在TradeOrder订单模型中
         long toFee = fees.stream().filter(Fee::forSeller).mapToLong(Fee::getAmount).sum();
@@ -178,10 +183,7 @@ public class TradePaymentServiceImpl implements IPaymentService {
         LocalDateTime now = LocalDateTime.now();
         FundAccount fromAccount = accountChannelService.checkTradePermission(trade.getAccountId());
         accountChannelService.checkAccountTradeState(fromAccount); // 寿光专用业务逻辑
-        MerchantPermit merchant = merchantDao.findMerchantById(trade.getMchId()).map(mer -> MerchantPermit.of(
-            mer.getMchId(), mer.getCode(), mer.getProfitAccount(), mer.getVouchAccount(), mer.getPledgeAccount(),
-            mer.getPrivateKey(), mer.getPublicKey()))
-            .orElseThrow(() -> new ServiceAccessException(ErrorCode.OBJECT_NOT_FOUND, "商户信息未注册"));
+        MerchantPermit merchant = accessPermitService.loadMerchantPermit(trade.getMchId());
         IKeyGenerator keyGenerator = snowflakeKeyManager.getKeyGenerator(SequenceKey.PAYMENT_ID);
         String paymentId = String.valueOf(keyGenerator.nextId());
 
@@ -194,7 +196,8 @@ public class TradePaymentServiceImpl implements IPaymentService {
         fees.stream().filter(PaymentFee::forSeller).forEach(fee -> {
             fromTransaction.income(fee.getAmount(), fee.getType(), fee.getTypeName());
         });
-        TransactionStatus status = accountChannelService.submit(fromTransaction);
+        List<IFundTransaction> transactions = new ArrayList<>();
+        transactions.add(fromTransaction);
 
         // 处理买家收款和退佣金
         FundAccount toAccount = fundAccountService.findFundAccountById(payment.getAccountId());
@@ -205,7 +208,7 @@ public class TradePaymentServiceImpl implements IPaymentService {
             toTransaction.income(fee.getAmount(), fee.getType(), fee.getTypeName());
         });
         toTransaction.income(trade.getAmount(), FundType.FUND.getCode(), FundType.FUND.getName());
-        status.setRelation(accountChannelService.submit(toTransaction));
+        transactions.add(toTransaction);
 
         // 处理商户退佣金
         if (!fees.isEmpty()) {
@@ -214,8 +217,12 @@ public class TradePaymentServiceImpl implements IPaymentService {
             fees.forEach(fee ->
                 merTransaction.outgo(fee.getAmount(), fee.getType(), fee.getTypeName())
             );
-            accountChannelService.submit(merTransaction);
+            transactions.add(merTransaction);
         }
+        // 按账号顺序批量提交买卖家和商户资金事务
+        List<TransactionStatus> statuses = accountChannelService.submitAll(transactions);
+        TransactionStatus status = statuses.get(0);
+        status.setRelation(statuses.get(1));
 
         RefundPayment refund = RefundPayment.builder().paymentId(paymentId).type(TradeType.CANCEL_TRADE.getCode())
             .tradeId(trade.getTradeId()).tradeType(trade.getType()).amount(trade.getAmount()).fee(0L)
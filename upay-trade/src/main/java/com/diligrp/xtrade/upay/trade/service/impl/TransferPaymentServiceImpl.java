@@ -30,6 +30,7 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -82,7 +83,8 @@ public class TransferPaymentServiceImpl implements IPaymentService {
         AccountChannel fromChannel = AccountChannel.of(paymentId, fromAccount.getAccountId(), fromAccount.getParentId());
         IFundTransaction fromTransaction = fromChannel.openTransaction(trade.getType(), now);
         fromTransaction.outgo(trade.getAmount(), FundType.FUND.getCode(), FundType.FUND.getName());
-        TransactionStatus status = accountChannelService.submit(fromTransaction);
+        List<IFundTransaction> transactions = new ArrayList<>();
+        transactions.add(fromTransaction);
 
         // 交易转入
         FundAccount toAccount = fundAccountService.findFundAccountById(trade.getAccountId());
@@ -90,7 +92,11 @@ public class TransferPaymentServiceImpl implements IPaymentService {
         AccountChannel toChannel = AccountChannel.of(paymentId, toAccount.getAccountId(), toAccount.getParentId());
         IFundTransaction toTransaction = toChannel.openTransaction(trade.getType(), now);
         toTransaction.income(trade.getAmount(), FundType.FUND.getCode(), FundType.FUND.getName());
-        status.setRelation(accountChannelService.submit(toTransaction));
+        transactions.add(toTransaction);
+        // 按账号顺序批量提交转出和转入资金事务
+        List<TransactionStatus> statuses = accountChannelService.submitAll(transactions);
+        TransactionStatus status = statuses.get(0);
+        status.setRelation(statuses.get(1));
 
         TradeStateDto tradeState = TradeStateDto.of(trade.getTradeId(), TradeState.SUCCESS.getCode(),
             trade.getVersion(), now);